@@ -0,0 +1,35 @@
+#!/usr/bin/env bash
+# Compares request throughput/latency of the running backend under increasing concurrency.
+# Run it once with VIRTUAL_THREADS_ENABLED=false and once with VIRTUAL_THREADS_ENABLED=true
+# against the same database and compare the two reports.
+#
+# Requires hey (https://github.com/rakyll/hey).
+#
+# Usage: scripts/load-test.sh [base-url] [label]
+set -euo pipefail
+
+BASE_URL="${1:-http://localhost:8080}"
+LABEL="${2:-$(date +%Y%m%d-%H%M%S)}"
+DURATION="${DURATION:-30s}"
+CONCURRENCY_LEVELS="${CONCURRENCY_LEVELS:-50 200 800}"
+ENDPOINTS="${ENDPOINTS:-/api/medications/page /api/intakes/me /api/intakes/adherence/me}"
+OUT_DIR="${OUT_DIR:-load-test-results}/${LABEL}"
+
+command -v hey >/dev/null || { echo "hey is not installed" >&2; exit 1; }
+mkdir -p "$OUT_DIR"
+
+curl -fsS "$BASE_URL/actuator/health" >/dev/null || { echo "$BASE_URL is not up" >&2; exit 1; }
+
+for endpoint in $ENDPOINTS; do
+  name="$(echo "$endpoint" | tr '/' '_' | sed 's/^_//')"
+  for c in $CONCURRENCY_LEVELS; do
+    echo "== $endpoint, $c concurrent clients, $DURATION"
+    hey -z "$DURATION" -c "$c" "$BASE_URL$endpoint" > "$OUT_DIR/${name}_c${c}.txt"
+    grep -E "Requests/sec|Average|99%|\[[0-9]{3}\]" "$OUT_DIR/${name}_c${c}.txt" | sed 's/^/   /'
+  done
+done
+
+for metric in database.concurrency.waiting hikaricp.connections.pending jvm.threads.live; do
+  echo "$metric: $(curl -fsS "$BASE_URL/actuator/metrics/$metric" 2>/dev/null || echo n/a)" >> "$OUT_DIR/metrics.txt"
+done
+echo "Reports written to $OUT_DIR"
@@ -17,12 +17,20 @@ public class CloudinaryConfig {
     @Value("${CLOUDINARY_API_SECRET}")
     private String apiSecret;
 
+    @Value("${cloudinary.http.timeout-seconds:15}")
+    private int timeoutSeconds;
+
+    @Value("${cloudinary.http.connection-timeout-seconds:5}")
+    private int connectionTimeoutSeconds;
+
     @Bean
     public Cloudinary cloudinary() {
         return new Cloudinary(ObjectUtils.asMap(
                 "cloud_name", cloudName,
                 "api_key", apiKey,
-                "api_secret", apiSecret
+                "api_secret", apiSecret,
+                "timeout", timeoutSeconds,
+                "connection_timeout", connectionTimeoutSeconds
         ));
     }
 }
@@ -0,0 +1,219 @@
+package com.project.pillpal.cloudinary;
+
+import com.cloudinary.api.exceptions.ApiException;
+import com.cloudinary.api.exceptions.GeneralError;
+import com.project.pillpal.exceptions.CloudinaryRequestException;
+import com.project.pillpal.exceptions.CloudinaryUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Component
+@Slf4j
+public class CloudinaryGuard {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final Pattern UNEXPECTED_STATUS = Pattern.compile("unexpected status code - (\\d{3})");
+
+    private final Duration timeout;
+    private final Duration maxWait;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final int halfOpenProbes;
+    private final Semaphore bulkhead;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("cloudinary-call-", 0).factory());
+    private final MeterRegistry meterRegistry;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private int probesInFlight;
+
+    public CloudinaryGuard(MeterRegistry meterRegistry,
+            @Value("${cloudinary.resilience.timeout-ms:10000}") long timeoutMs,
+            @Value("${cloudinary.resilience.max-concurrent-calls:8}") int maxConcurrentCalls,
+            @Value("${cloudinary.resilience.max-wait-ms:0}") long maxWaitMs,
+            @Value("${cloudinary.resilience.failure-threshold:5}") int failureThreshold,
+            @Value("${cloudinary.resilience.open-duration-ms:30000}") long openDurationMs,
+            @Value("${cloudinary.resilience.half-open-probes:1}") int halfOpenProbes) {
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.maxWait = Duration.ofMillis(maxWaitMs);
+        this.failureThreshold = failureThreshold;
+        this.openDuration = Duration.ofMillis(openDurationMs);
+        this.halfOpenProbes = halfOpenProbes;
+        this.bulkhead = new Semaphore(maxConcurrentCalls, true);
+        this.meterRegistry = meterRegistry;
+        for (State value : State.values()) {
+            Gauge.builder("cloudinary.circuit.state", this, guard -> guard.state() == value ? 1 : 0)
+                    .tag("state", value.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry);
+        }
+        Gauge.builder("cloudinary.bulkhead.available", bulkhead, Semaphore::availablePermits)
+                .register(meterRegistry);
+    }
+
+    public <T> T call(String operation, Callable<T> call) throws IOException {
+        if (!tryEnter()) {
+            count(operation, "rejected");
+            throw new CloudinaryUnavailableException("Cloudinary circuit is open, skipping " + operation);
+        }
+
+        try {
+            if (!bulkhead.tryAcquire(maxWait.toMillis(), TimeUnit.MILLISECONDS)) {
+                abandonProbe();
+                count(operation, "bulkhead-full");
+                throw new CloudinaryUnavailableException("Too many concurrent Cloudinary calls, skipping " + operation);
+            }
+        } catch (InterruptedException e) {
+            abandonProbe();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a Cloudinary " + operation + " slot");
+        }
+
+        Future<T> future = executor.submit(() -> {
+            try {
+                return call.call();
+            } finally {
+                bulkhead.release();
+            }
+        });
+        try {
+            T result = future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            onSuccess();
+            count(operation, "success");
+            return result;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            onFailure();
+            count(operation, "timeout");
+            throw new CloudinaryUnavailableException("Cloudinary " + operation + " timed out after " + timeout);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (isOutage(cause)) {
+                onFailure();
+                count(operation, "failure");
+            } else {
+                abandonProbe();
+                count(operation, "client-error");
+            }
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("Cloudinary " + operation + " failed", cause);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            abandonProbe();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for Cloudinary " + operation);
+        }
+    }
+
+    public synchronized State state() {
+        if (state == State.OPEN && openElapsed()) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private synchronized boolean tryEnter() {
+        if (state == State.OPEN) {
+            if (!openElapsed()) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            probesInFlight = 0;
+            log.info("Cloudinary circuit half-open, probing with up to {} calls", halfOpenProbes);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesInFlight >= halfOpenProbes) {
+                return false;
+            }
+            probesInFlight++;
+        }
+        return true;
+    }
+
+    private synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        if (state == State.HALF_OPEN) {
+            state = State.CLOSED;
+            probesInFlight = 0;
+            log.info("Cloudinary circuit closed");
+        }
+    }
+
+    private synchronized void onFailure() {
+        if (state == State.OPEN) {
+            return;
+        }
+        if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.nanoTime();
+            consecutiveFailures = 0;
+            probesInFlight = 0;
+            log.warn("Cloudinary circuit opened for {}", openDuration);
+        }
+    }
+
+    private synchronized void abandonProbe() {
+        if (state == State.HALF_OPEN && probesInFlight > 0) {
+            probesInFlight--;
+        }
+    }
+
+    public static boolean isOutage(Throwable error) {
+        Throwable cause = error instanceof IOException && error.getCause() instanceof ApiException apiException
+                ? apiException : error;
+        if (cause instanceof CloudinaryRequestException rejected) {
+            return rejected.getStatusCode() >= 500;
+        }
+        if (cause instanceof ApiException) {
+            return cause instanceof GeneralError;
+        }
+        if (cause instanceof IOException) {
+            return true;
+        }
+        Matcher status = UNEXPECTED_STATUS.matcher(String.valueOf(cause.getMessage()));
+        return status.find() && Integer.parseInt(status.group(1)) >= 500;
+    }
+
+    private boolean openElapsed() {
+        return System.nanoTime() - openedAt >= openDuration.toNanos();
+    }
+
+    private void count(String operation, String outcome) {
+        Counter.builder("cloudinary.calls").tag("operation", operation).tag("outcome", outcome)
+                .register(meterRegistry).increment();
+    }
+}
@@ -2,29 +2,47 @@ package com.project.pillpal.cloudinary;
 
 import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
+import com.project.pillpal.exceptions.CloudinaryRequestException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
 import java.util.Map;
 
 @Service
 @Slf4j
 public class CloudinaryService {
+    public static final int MAX_BULK_DELETE = 100;
+    private static final String MEDICATION_TRANSFORMATION = "w_800,h_600,c_limit,q_auto,f_auto";
+
     private final Cloudinary cloudinary;
+    private final ImageNormalizer imageNormalizer;
+    private final CloudinaryGuard cloudinaryGuard;
 
-    public CloudinaryService(Cloudinary cloudinary) {
+    public CloudinaryService(Cloudinary cloudinary, ImageNormalizer imageNormalizer,
+            CloudinaryGuard cloudinaryGuard) {
         this.cloudinary = cloudinary;
+        this.imageNormalizer = imageNormalizer;
+        this.cloudinaryGuard = cloudinaryGuard;
     }
 
     @SuppressWarnings("unchecked")
     public Map<String, Object> uploadFile(MultipartFile file) throws IOException {
-        return (Map<String, Object>) cloudinary.uploader().upload(file.getBytes(), ObjectUtils.emptyMap());
+        Path spooled = spool(file);
+        try {
+            return cloudinaryGuard.call("upload",
+                    () -> (Map<String, Object>) cloudinary.uploader().upload(spooled.toFile(), ObjectUtils.emptyMap()));
+        } finally {
+            Files.deleteIfExists(spooled);
+        }
     }
 
     public void deleteFile(String publicId) throws IOException {
-        cloudinary.uploader().destroy(publicId, ObjectUtils.emptyMap());
+        cloudinaryGuard.call("destroy", () -> cloudinary.uploader().destroy(publicId, ObjectUtils.emptyMap()));
     }
 
     public Map<String, Object> uploadMedicationImage(MultipartFile file) throws IOException {
@@ -37,26 +55,76 @@ public class CloudinaryService {
             throw new IllegalArgumentException("File must be an image");
         }
 
+        Path spooled = spool(file);
+        try {
+            return uploadMedicationImageFile(spooled);
+        } finally {
+            Files.deleteIfExists(spooled);
+        }
+    }
+
+    public Map<String, Object> uploadMedicationImageFile(Path image) throws IOException {
+        if (image == null || Files.size(image) == 0) {
+            throw new IllegalArgumentException("File cannot be empty");
+        }
+
+        Path normalized = normalizeMedicationImage(image);
+        try {
+            return normalized.equals(image)
+                    ? uploadOriginalMedicationImage(image)
+                    : uploadNormalizedMedicationImage(normalized);
+        } finally {
+            if (!normalized.equals(image)) {
+                Files.deleteIfExists(normalized);
+            }
+        }
+    }
+
+    public Path normalizeMedicationImage(Path image) throws IOException {
+        return imageNormalizer.normalize(image);
+    }
+
+    public Map<String, Object> uploadNormalizedMedicationImage(Path image) throws IOException {
+        return uploadWithTransformation(image, MEDICATION_TRANSFORMATION);
+    }
+
+    public Map<String, Object> uploadOriginalMedicationImage(Path image) throws IOException {
+        return uploadWithTransformation(image, MEDICATION_TRANSFORMATION + ",fl_strip_profile");
+    }
+
+    private Map<String, Object> uploadWithTransformation(Path image, String transformation) throws IOException {
         @SuppressWarnings("unchecked")
         Map<String, Object> uploadOptions = (Map<String, Object>) ObjectUtils.asMap(
                 "folder", "pillpal/medications",
                 "resource_type", "image",
-                "transformation", "w_800,h_600,c_limit,q_auto,f_auto");
+                "transformation", transformation,
+                "return_error", true);
 
         @SuppressWarnings("unchecked")
-        Map<String, Object> result = (Map<String, Object>) cloudinary.uploader().upload(file.getBytes(), uploadOptions);
+        Map<String, Object> result = cloudinaryGuard.call("upload",
+                () -> checked("upload", cloudinary.uploader().upload(image.toFile(), uploadOptions)));
         return result;
     }
 
+    public Path spool(MultipartFile file) throws IOException {
+        Path target = Files.createTempFile("pillpal-upload-", ".tmp");
+        try {
+            file.transferTo(target.toFile());
+            return target;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+    }
+
     public void deleteMedicationImage(String publicId) throws IOException {
         if (publicId == null || publicId.trim().isEmpty()) {
             throw new IllegalArgumentException("Public ID cannot be empty");
         }
 
         try {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> result = (Map<String, Object>) cloudinary.uploader().destroy(publicId,
-                    ObjectUtils.emptyMap());
+            Map<String, Object> result = cloudinaryGuard.call("destroy", () -> checked("destroy",
+                    cloudinary.uploader().destroy(publicId, ObjectUtils.asMap("return_error", true))));
 
             String resultStatus = (String) result.get("result");
             if (!"ok".equals(resultStatus)) {
@@ -68,6 +136,32 @@ public class CloudinaryService {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    public Map<String, String> deleteMedicationImages(Collection<String> publicIds) throws IOException {
+        if (publicIds.isEmpty()) {
+            return Map.of();
+        }
+        if (publicIds.size() > MAX_BULK_DELETE) {
+            throw new IllegalArgumentException("Cannot delete more than " + MAX_BULK_DELETE + " images at once");
+        }
+
+        Map<String, Object> result = cloudinaryGuard.call("delete-resources",
+                () -> cloudinary.api().deleteResources(publicIds, ObjectUtils.asMap("resource_type", "image")));
+        Map<String, String> deleted = (Map<String, String>) result.get("deleted");
+        return deleted != null ? deleted : Map.of();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> checked(String operation, Map<?, ?> result)
+            throws CloudinaryRequestException {
+        if (result.get("error") instanceof Map<?, ?> error) {
+            int statusCode = error.get("http_code") instanceof Number code ? code.intValue() : 500;
+            throw new CloudinaryRequestException(statusCode,
+                    "Cloudinary " + operation + " failed with status " + statusCode + ": " + error.get("message"));
+        }
+        return (Map<String, Object>) result;
+    }
+
     public String getImageUrl(String publicId) {
         if (publicId == null || publicId.trim().isEmpty()) {
             return null;
@@ -0,0 +1,128 @@
+package com.project.pillpal.cloudinary;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
+
+final class ImageMetadata {
+
+    private static final int SOI = 0xFFD8;
+    private static final int SOS = 0xFFDA;
+    private static final int APP0 = 0xFFE0;
+    private static final int APP2 = 0xFFE2;
+    private static final int APP14 = 0xFFEE;
+    private static final int COM = 0xFFFE;
+    private static final byte[] ICC_HEADER = "ICC_PROFILE\0".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PNG_SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+    private static final Set<String> PNG_METADATA_CHUNKS = Set.of("tEXt", "zTXt", "iTXt", "eXIf", "tIME");
+
+    private ImageMetadata() {
+    }
+
+    static boolean supports(Path source) throws IOException {
+        byte[] header = header(source);
+        return isJpeg(header) || isPng(header);
+    }
+
+    static Path strip(Path source) throws IOException {
+        byte[] header = header(source);
+        boolean jpeg = isJpeg(header);
+        if (!jpeg && !isPng(header)) {
+            throw new IllegalArgumentException("Unsupported image format");
+        }
+
+        Path target = Files.createTempFile("pillpal-stripped-", jpeg ? ".jpg" : ".png");
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(source)));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                        Files.newOutputStream(target)))) {
+            if (jpeg) {
+                stripJpeg(in, out);
+            } else {
+                stripPng(in, out);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(target);
+            throw e;
+        }
+        return target;
+    }
+
+    private static byte[] header(Path source) throws IOException {
+        try (InputStream in = Files.newInputStream(source)) {
+            return in.readNBytes(PNG_SIGNATURE.length);
+        }
+    }
+
+    private static boolean isJpeg(byte[] header) {
+        return header.length >= 2 && ((header[0] & 0xFF) << 8 | (header[1] & 0xFF)) == SOI;
+    }
+
+    private static boolean isPng(byte[] header) {
+        return Arrays.equals(header, PNG_SIGNATURE);
+    }
+
+    private static void stripJpeg(DataInputStream in, DataOutputStream out) throws IOException {
+        out.writeShort(in.readUnsignedShort());
+        while (true) {
+            int marker = in.readUnsignedShort();
+            if ((marker & 0xFF00) != 0xFF00) {
+                throw new IOException("Malformed JPEG segment");
+            }
+            if (marker == SOS) {
+                out.writeShort(marker);
+                in.transferTo(out);
+                return;
+            }
+            int length = in.readUnsignedShort();
+            byte[] segment = in.readNBytes(length - 2);
+            if (segment.length != length - 2) {
+                throw new EOFException("Truncated JPEG segment");
+            }
+            if (keepsJpegSegment(marker, segment)) {
+                out.writeShort(marker);
+                out.writeShort(length);
+                out.write(segment);
+            }
+        }
+    }
+
+    private static boolean keepsJpegSegment(int marker, byte[] segment) {
+        if (marker == COM) {
+            return false;
+        }
+        if (marker < APP0 || marker > 0xFFEF) {
+            return true;
+        }
+        return marker == APP0 || marker == APP14 || (marker == APP2 && segment.length >= ICC_HEADER.length
+                && Arrays.equals(segment, 0, ICC_HEADER.length, ICC_HEADER, 0, ICC_HEADER.length));
+    }
+
+    private static void stripPng(DataInputStream in, DataOutputStream out) throws IOException {
+        out.write(in.readNBytes(PNG_SIGNATURE.length));
+        while (true) {
+            int length = in.readInt();
+            byte[] type = in.readNBytes(4);
+            byte[] data = in.readNBytes(length);
+            int crc = in.readInt();
+            String chunk = new String(type, StandardCharsets.US_ASCII);
+            if (!PNG_METADATA_CHUNKS.contains(chunk)) {
+                out.writeInt(length);
+                out.write(type);
+                out.write(data);
+                out.writeInt(crc);
+            }
+            if ("IEND".equals(chunk)) {
+                return;
+            }
+        }
+    }
+}
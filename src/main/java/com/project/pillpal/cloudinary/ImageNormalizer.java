@@ -0,0 +1,238 @@
+package com.project.pillpal.cloudinary;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+@Slf4j
+public class ImageNormalizer {
+
+    static final int MAX_WIDTH = 800;
+    static final int MAX_HEIGHT = 600;
+    private static final long MAX_SOURCE_PIXELS = 100_000_000L;
+
+    private final boolean enabled;
+    private final float jpegQuality;
+    private final Duration timeout;
+    private final ThreadPoolExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary bytesIn;
+    private final DistributionSummary bytesOut;
+    private final Timer duration;
+
+    public ImageNormalizer(MeterRegistry meterRegistry,
+            @Value("${cloudinary.normalize.enabled:true}") boolean enabled,
+            @Value("${cloudinary.normalize.concurrency:2}") int concurrency,
+            @Value("${cloudinary.normalize.queue-capacity:16}") int queueCapacity,
+            @Value("${cloudinary.normalize.jpeg-quality:0.85}") float jpegQuality,
+            @Value("${cloudinary.normalize.timeout-ms:10000}") long timeoutMs) {
+        this.enabled = enabled;
+        this.jpegQuality = jpegQuality;
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.meterRegistry = meterRegistry;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> {
+                    Thread thread = new Thread(task, "image-normalize-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        this.bytesIn = DistributionSummary.builder("images.normalize.bytes").tag("stage", "in")
+                .baseUnit("bytes").register(meterRegistry);
+        this.bytesOut = DistributionSummary.builder("images.normalize.bytes").tag("stage", "out")
+                .baseUnit("bytes").register(meterRegistry);
+        this.duration = Timer.builder("images.normalize.duration").register(meterRegistry);
+        Gauge.builder("images.normalize.queued", executor, e -> e.getQueue().size()).register(meterRegistry);
+    }
+
+    public Path normalize(Path source) throws IOException {
+        if (!enabled) {
+            return source;
+        }
+
+        Future<Path> normalized;
+        try {
+            normalized = executor.submit(() -> duration.recordCallable(() -> normalizeNow(source)));
+        } catch (RejectedExecutionException e) {
+            log.warn("Image normalization pool is full, uploading {} without metadata", source.getFileName());
+            count("busy");
+            return stripped(source);
+        }
+
+        try {
+            Path result = normalized.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            return result != null ? result : stripped(source);
+        } catch (TimeoutException e) {
+            normalized.cancel(true);
+            log.warn("Image normalization timed out after {}, uploading {} without metadata", timeout,
+                    source.getFileName());
+            count("timeout");
+        } catch (ExecutionException e) {
+            log.warn("Could not normalize image {}: {}", source.getFileName(), e.getCause().getMessage());
+            count("failed");
+        } catch (InterruptedException e) {
+            normalized.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while normalizing image " + source.getFileName(), e);
+        }
+        return stripped(source);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    Path normalizeNow(Path source) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                count("unsupported");
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_SOURCE_PIXELS) {
+                    count("too-large");
+                    return null;
+                }
+
+                int orientation = "jpeg".equalsIgnoreCase(reader.getFormatName())
+                        ? ExifOrientation.read(source)
+                        : ExifOrientation.NORMAL;
+                boolean swap = ExifOrientation.swapsAxes(orientation);
+                double scale = Math.min(1.0, Math.min((double) MAX_WIDTH / (swap ? height : width),
+                        (double) MAX_HEIGHT / (swap ? width : height)));
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, (int) (1 / scale / 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage decoded = reader.read(0, param);
+
+                BufferedImage rendered = render(decoded, orientation, scale * subsampling);
+                boolean alpha = decoded.getColorModel().hasAlpha();
+                Path target = Files.createTempFile("pillpal-normalized-", alpha ? ".png" : ".jpg");
+                try {
+                    write(rendered, alpha, target);
+                    if (Thread.currentThread().isInterrupted()) {
+                        Files.deleteIfExists(target);
+                        return null;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    Files.deleteIfExists(target);
+                    throw e;
+                }
+
+                long originalSize = Files.size(source);
+                long normalizedSize = Files.size(target);
+                bytesIn.record(originalSize);
+                bytesOut.record(normalizedSize);
+                count("normalized");
+                log.debug("Normalized {}x{} image from {} to {} bytes", width, height, originalSize, normalizedSize);
+                return target;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage render(BufferedImage decoded, int orientation, double scale) {
+        boolean swap = ExifOrientation.swapsAxes(orientation);
+        int width = Math.max(1, (int) Math.round((swap ? decoded.getHeight() : decoded.getWidth()) * scale));
+        int height = Math.max(1, (int) Math.round((swap ? decoded.getWidth() : decoded.getHeight()) * scale));
+        width = Math.min(width, MAX_WIDTH);
+        height = Math.min(height, MAX_HEIGHT);
+        boolean alpha = decoded.getColorModel().hasAlpha();
+
+        BufferedImage rendered = new BufferedImage(width, height,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = rendered.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            if (!alpha) {
+                graphics.setColor(Color.WHITE);
+                graphics.fillRect(0, 0, width, height);
+            }
+            AffineTransform transform = AffineTransform.getScaleInstance(
+                    (double) width / (swap ? decoded.getHeight() : decoded.getWidth()),
+                    (double) height / (swap ? decoded.getWidth() : decoded.getHeight()));
+            transform.concatenate(ExifOrientation.transform(orientation, decoded.getWidth(), decoded.getHeight()));
+            graphics.drawImage(decoded, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return rendered;
+    }
+
+    private void write(BufferedImage image, boolean alpha, Path target) throws IOException {
+        if (alpha) {
+            ImageIO.write(image, "png", target.toFile());
+            return;
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private Path stripped(Path source) throws IOException {
+        if (!ImageMetadata.supports(source)) {
+            log.debug("Cannot strip metadata of {} locally, leaving it to Cloudinary", source.getFileName());
+            count("passthrough");
+            return source;
+        }
+        Path target = ImageMetadata.strip(source);
+        count("stripped");
+        return target;
+    }
+
+    private void count(String outcome) {
+        Counter.builder("images.normalize").tag("outcome", outcome).register(meterRegistry).increment();
+    }
+}
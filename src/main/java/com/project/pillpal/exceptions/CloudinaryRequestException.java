@@ -0,0 +1,17 @@
+package com.project.pillpal.exceptions;
+
+import java.io.IOException;
+
+public class CloudinaryRequestException extends IOException {
+
+    private final int statusCode;
+
+    public CloudinaryRequestException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
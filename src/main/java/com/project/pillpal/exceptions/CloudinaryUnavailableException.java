@@ -0,0 +1,9 @@
+package com.project.pillpal.exceptions;
+
+import java.io.IOException;
+
+public class CloudinaryUnavailableException extends IOException {
+    public CloudinaryUnavailableException(String message) {
+        super(message);
+    }
+}
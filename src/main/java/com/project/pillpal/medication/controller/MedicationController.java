@@ -1,12 +1,18 @@
 package com.project.pillpal.medication.controller;
 
 import com.project.pillpal.medication.dtos.CreateMedicationRequest;
+import com.project.pillpal.medication.dtos.CursorPageResponse;
+import com.project.pillpal.medication.dtos.MedicationCountResponse;
+import com.project.pillpal.medication.dtos.MedicationImageStatusResponse;
 import com.project.pillpal.medication.dtos.MedicationResponse;
+import com.project.pillpal.medication.dtos.NameMatch;
 
 import com.project.pillpal.medication.dtos.UpdateMedicationRequest;
 import com.project.pillpal.medication.service.MedicationService;
 import com.project.pillpal.medication.dtos.MedicationStatusResponse;
+import com.project.pillpal.medication.dtos.MedicationSuggestionResponse;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.project.pillpal.user.TestUserUtils;
 import com.project.pillpal.user.entity.User;
 import io.swagger.v3.oas.annotations.Operation;
@@ -19,13 +25,19 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api/medications")
@@ -36,6 +48,7 @@ public class MedicationController {
 
         private final MedicationService medicationService;
         private final TestUserUtils testUserUtils;
+        private final ObjectMapper objectMapper;
 
         @GetMapping
         @Operation(summary = "Get all medications", description = "Returns a list of all medications in the system")
@@ -49,6 +62,31 @@ public class MedicationController {
                 return ResponseEntity.ok(responses);
         }
 
+        @GetMapping("/page")
+        @Operation(summary = "Get medications page", description = "Returns a page of medications ordered by ID. Pass the returned nextCursor as afterId to fetch the next page")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Page of medications successfully obtained", content = @Content(schema = @Schema(implementation = CursorPageResponse.class))),
+                        @ApiResponse(responseCode = "500", description = "Internal server error")
+        })
+        public ResponseEntity<CursorPageResponse<MedicationResponse>> getAllMedicationsPage(
+                        @Parameter(description = "Return medications with ID greater than this cursor") @RequestParam(required = false) Long afterId,
+                        @Parameter(description = "Page size (default 20, max 100)") @RequestParam(required = false) Integer size) {
+                log.info("Received request to get medications page after id {}", afterId);
+                CursorPageResponse<MedicationResponse> response = medicationService.getAllMedicationsPage(afterId, size);
+                return ResponseEntity.ok(response);
+        }
+
+        @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+        @Operation(summary = "Stream all medications", description = "Streams all medications as newline-delimited JSON, one medication per line")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Medications stream started"),
+                        @ApiResponse(responseCode = "500", description = "Internal server error")
+        })
+        public ResponseEntity<StreamingResponseBody> streamAllMedications() {
+                log.info("Received request to stream all medications");
+                return ndjson(medicationService::streamAllMedications);
+        }
+
         @GetMapping("/{id}")
         @Operation(summary = "Get medication by ID", description = "Returns medication by specified identifier")
         @ApiResponses(value = {
@@ -63,6 +101,19 @@ public class MedicationController {
                 return ResponseEntity.ok(response);
         }
 
+        @GetMapping("/{id}/image")
+        @Operation(summary = "Get medication image status", description = "Returns the upload status (NONE, PENDING, UPLOADED, FAILED) and URL of the medication image")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Image status found", content = @Content(schema = @Schema(implementation = MedicationImageStatusResponse.class))),
+                        @ApiResponse(responseCode = "404", description = "Medication not found"),
+                        @ApiResponse(responseCode = "500", description = "Internal server error")
+        })
+        public ResponseEntity<MedicationImageStatusResponse> getMedicationImageStatus(
+                        @Parameter(description = "Medication ID", required = true) @PathVariable Long id) {
+                log.debug("Received request to get image status for medication: {}", id);
+                return ResponseEntity.ok(medicationService.getMedicationImageStatus(id));
+        }
+
         @PostMapping(consumes = "application/json")
         @Operation(summary = "Create new medication", description = "Creates new medication in the system")
         @ApiResponses(value = {
@@ -81,7 +132,7 @@ public class MedicationController {
         }
 
         @PostMapping(value = "/with-image", consumes = "multipart/form-data")
-        @Operation(summary = "Create new medication with image", description = "Creates new medication in the system with image upload")
+        @Operation(summary = "Create new medication with image", description = "Creates new medication in the system and uploads the image in the background. The response has imageStatus PENDING until the upload finishes; poll GET /api/medications/{id}/image for the result")
         @ApiResponses(value = {
                         @ApiResponse(responseCode = "201", description = "Medication successfully created", content = @Content(schema = @Schema(implementation = MedicationResponse.class))),
                         @ApiResponse(responseCode = "400", description = "Invalid request data"),
@@ -130,6 +181,7 @@ public class MedicationController {
                         @ApiResponse(responseCode = "404", description = "Medication not found"),
                         @ApiResponse(responseCode = "400", description = "Invalid request data"),
                         @ApiResponse(responseCode = "401", description = "User not authenticated or not authorized"),
+                        @ApiResponse(responseCode = "409", description = "Medication was modified concurrently"),
                         @ApiResponse(responseCode = "500", description = "Internal server error")
         })
         public ResponseEntity<MedicationResponse> updateMedication(
@@ -149,6 +201,7 @@ public class MedicationController {
                         @ApiResponse(responseCode = "404", description = "Medication not found"),
                         @ApiResponse(responseCode = "400", description = "Invalid request data"),
                         @ApiResponse(responseCode = "401", description = "User not authenticated or not authorized"),
+                        @ApiResponse(responseCode = "409", description = "Medication was modified concurrently"),
                         @ApiResponse(responseCode = "500", description = "Internal server error")
         })
         public ResponseEntity<MedicationResponse> updateMedicationWithImage(
@@ -160,6 +213,7 @@ public class MedicationController {
                         @Parameter(description = "Start date") @RequestParam(required = false) String startDate,
                         @Parameter(description = "End date") @RequestParam(required = false) String endDate,
                         @Parameter(description = "Lifetime status") @RequestParam(required = false) Boolean lifetime,
+                        @Parameter(description = "Version the client last read, rejected with 409 if stale") @RequestParam(required = false) Long version,
                         @Parameter(description = "Image file", content = @Content(mediaType = "multipart/form-data", schema = @Schema(type = "string", format = "binary"))) @RequestParam(value = "image", required = false) MultipartFile image) {
 
                 log.info("Received request to update medication with image, id: {}", id);
@@ -173,7 +227,8 @@ public class MedicationController {
                                 active,
                                 startDate != null ? java.time.LocalDate.parse(startDate) : null,
                                 endDate != null ? java.time.LocalDate.parse(endDate) : null,
-                                lifetime);
+                                lifetime,
+                                version);
 
                 MedicationResponse response = medicationService.updateMedication(id, request, image, authenticatedUser);
                 return ResponseEntity.ok(response);
@@ -214,6 +269,34 @@ public class MedicationController {
                 return ResponseEntity.ok(responses);
         }
 
+        @GetMapping("/user/{userId}/page")
+        @Operation(summary = "Get medications page by user ID", description = "Returns a page of medications for a specific user ordered by ID. Pass the returned nextCursor as afterId to fetch the next page")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Page of medications for user obtained", content = @Content(schema = @Schema(implementation = CursorPageResponse.class))),
+                        @ApiResponse(responseCode = "500", description = "Internal server error")
+        })
+        public ResponseEntity<CursorPageResponse<MedicationResponse>> getMedicationsByUserIdPage(
+                        @Parameter(description = "User ID", required = true) @PathVariable Long userId,
+                        @Parameter(description = "Return medications with ID greater than this cursor") @RequestParam(required = false) Long afterId,
+                        @Parameter(description = "Page size (default 20, max 100)") @RequestParam(required = false) Integer size) {
+                log.info("Received request to get medications page for user {} after id {}", userId, afterId);
+                CursorPageResponse<MedicationResponse> response = medicationService.getMedicationsByUserIdPage(userId,
+                                afterId, size);
+                return ResponseEntity.ok(response);
+        }
+
+        @GetMapping(value = "/user/{userId}/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+        @Operation(summary = "Stream medications by user ID", description = "Streams all medications for a specific user as newline-delimited JSON, one medication per line")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Medications stream started"),
+                        @ApiResponse(responseCode = "500", description = "Internal server error")
+        })
+        public ResponseEntity<StreamingResponseBody> streamMedicationsByUserId(
+                        @Parameter(description = "User ID", required = true) @PathVariable Long userId) {
+                log.info("Received request to stream medications for user: {}", userId);
+                return ndjson(consumer -> medicationService.streamMedicationsByUserId(userId, consumer));
+        }
+
         @GetMapping("/active")
         @Operation(summary = "Get active medications", description = "Returns all active medications")
         @ApiResponses(value = {
@@ -226,6 +309,57 @@ public class MedicationController {
                 return ResponseEntity.ok(responses);
         }
 
+        @GetMapping("/active/page")
+        @Operation(summary = "Get active medications page", description = "Returns a page of active medications ordered by ID. Pass the returned nextCursor as afterId to fetch the next page")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Page of active medications obtained", content = @Content(schema = @Schema(implementation = CursorPageResponse.class))),
+                        @ApiResponse(responseCode = "500", description = "Internal server error")
+        })
+        public ResponseEntity<CursorPageResponse<MedicationResponse>> getActiveMedicationsPage(
+                        @Parameter(description = "Return medications with ID greater than this cursor") @RequestParam(required = false) Long afterId,
+                        @Parameter(description = "Page size (default 20, max 100)") @RequestParam(required = false) Integer size) {
+                log.info("Received request to get active medications page after id {}", afterId);
+                CursorPageResponse<MedicationResponse> response = medicationService.getActiveMedicationsPage(afterId,
+                                size);
+                return ResponseEntity.ok(response);
+        }
+
+        @GetMapping(value = "/active/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+        @Operation(summary = "Stream active medications", description = "Streams all active medications as newline-delimited JSON, one medication per line")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Medications stream started"),
+                        @ApiResponse(responseCode = "500", description = "Internal server error")
+        })
+        public ResponseEntity<StreamingResponseBody> streamActiveMedications() {
+                log.info("Received request to stream active medications");
+                return ndjson(medicationService::streamActiveMedications);
+        }
+
+        @GetMapping("/count")
+        @Operation(summary = "Get medication counts", description = "Returns total, active, lifetime and dated medication counts")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Medication counts obtained", content = @Content(schema = @Schema(implementation = MedicationCountResponse.class))),
+                        @ApiResponse(responseCode = "500", description = "Internal server error")
+        })
+        public ResponseEntity<MedicationCountResponse> getMedicationCounts() {
+                log.info("Received request to get medication counts");
+                MedicationCountResponse response = medicationService.getMedicationCounts();
+                return ResponseEntity.ok(response);
+        }
+
+        @GetMapping("/user/{userId}/count")
+        @Operation(summary = "Get medication counts by user ID", description = "Returns total, active, lifetime and dated medication counts for a specific user")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Medication counts for user obtained", content = @Content(schema = @Schema(implementation = MedicationCountResponse.class))),
+                        @ApiResponse(responseCode = "500", description = "Internal server error")
+        })
+        public ResponseEntity<MedicationCountResponse> getMedicationCountsByUserId(
+                        @Parameter(description = "User ID", required = true) @PathVariable Long userId) {
+                log.info("Received request to get medication counts for user: {}", userId);
+                MedicationCountResponse response = medicationService.getMedicationCountsByUserId(userId);
+                return ResponseEntity.ok(response);
+        }
+
         @GetMapping("/status")
         @Operation(summary = "Get medications status by time of day", description = "Returns medications with status based on current time and today's intake records")
         @ApiResponses(value = {
@@ -238,6 +372,22 @@ public class MedicationController {
                 return ResponseEntity.ok(responses);
         }
 
+        @GetMapping("/user/{userId}/status")
+        @Operation(summary = "Get user's medications status by time of day", description = "Returns a page of the user's active medications with status based on today's intake records, ordered by ID. Pass the returned nextCursor as afterId to fetch the next page")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Medications status page obtained", content = @Content(schema = @Schema(implementation = CursorPageResponse.class))),
+                        @ApiResponse(responseCode = "500", description = "Internal server error")
+        })
+        public ResponseEntity<CursorPageResponse<MedicationStatusResponse>> getMedicationsByTimeOfDayForUser(
+                        @Parameter(description = "User ID", required = true) @PathVariable Long userId,
+                        @Parameter(description = "Return medications with ID greater than this cursor") @RequestParam(required = false) Long afterId,
+                        @Parameter(description = "Page size (default 20, max 100)") @RequestParam(required = false) Integer size) {
+                log.info("Received request to get medications status for user {} after id {}", userId, afterId);
+                CursorPageResponse<MedicationStatusResponse> response = medicationService
+                                .getMedicationsByTimeOfDayForUser(userId, afterId, size);
+                return ResponseEntity.ok(response);
+        }
+
         @GetMapping("/{id}/status")
         @Operation(summary = "Get medication status by ID", description = "Returns status for a specific medication based on today's intake records")
         @ApiResponses(value = {
@@ -253,14 +403,15 @@ public class MedicationController {
         }
 
         @GetMapping("/search")
-        @Operation(summary = "Search medications by name", description = "Searches for medications by partial name match (case-insensitive)")
+        @Operation(summary = "Search medications by name", description = "Searches for medications whose name contains the term (case-insensitive). Pass match=prefix to only match names starting with the term")
         @ApiResponses(value = {
                         @ApiResponse(responseCode = "200", description = "Search results found", content = @Content(schema = @Schema(implementation = MedicationResponse.class))),
                         @ApiResponse(responseCode = "400", description = "Invalid search parameter"),
                         @ApiResponse(responseCode = "500", description = "Internal server error")
         })
         public ResponseEntity<List<MedicationResponse>> searchMedicationsByName(
-                        @Parameter(description = "Name or partial name to search for", required = true) @RequestParam String name) {
+                        @Parameter(description = "Name or part of the name to search for", required = true) @RequestParam String name,
+                        @Parameter(description = "contains (default) or prefix") @RequestParam(defaultValue = "contains") NameMatch match) {
 
                 log.info("Received request to search medications by name: {}", name);
 
@@ -268,12 +419,36 @@ public class MedicationController {
                         return ResponseEntity.badRequest().build();
                 }
 
-                List<MedicationResponse> responses = medicationService.searchMedicationsByName(name.trim());
+                List<MedicationResponse> responses = medicationService.searchMedicationsByName(name.trim(), match);
                 return ResponseEntity.ok(responses);
         }
 
+        @GetMapping("/search/page")
+        @Operation(summary = "Search medications page by name", description = "Returns a page of medications whose name contains the term (case-insensitive, or starts with it for match=prefix) ordered by ID. Pass the returned nextCursor as afterId to fetch the next page")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Search results page found", content = @Content(schema = @Schema(implementation = CursorPageResponse.class))),
+                        @ApiResponse(responseCode = "400", description = "Invalid search parameter"),
+                        @ApiResponse(responseCode = "500", description = "Internal server error")
+        })
+        public ResponseEntity<CursorPageResponse<MedicationResponse>> searchMedicationsByNamePage(
+                        @Parameter(description = "Name or part of the name to search for", required = true) @RequestParam String name,
+                        @Parameter(description = "contains (default) or prefix") @RequestParam(defaultValue = "contains") NameMatch match,
+                        @Parameter(description = "Return medications with ID greater than this cursor") @RequestParam(required = false) Long afterId,
+                        @Parameter(description = "Page size (default 20, max 100)") @RequestParam(required = false) Integer size) {
+
+                log.info("Received request to search medications page by name: {} after id {}", name, afterId);
+
+                if (name == null || name.trim().isEmpty()) {
+                        return ResponseEntity.badRequest().build();
+                }
+
+                CursorPageResponse<MedicationResponse> response = medicationService
+                                .searchMedicationsByNamePage(name.trim(), match, afterId, size);
+                return ResponseEntity.ok(response);
+        }
+
         @GetMapping("/user/{userId}/search")
-        @Operation(summary = "Search medications by name for specific user", description = "Searches for medications by partial name match for a specific user (case-insensitive)")
+        @Operation(summary = "Search medications by name for specific user", description = "Searches for a user's medications whose name contains the term (case-insensitive). Pass match=prefix to only match names starting with the term")
         @ApiResponses(value = {
                         @ApiResponse(responseCode = "200", description = "Search results found", content = @Content(schema = @Schema(implementation = MedicationResponse.class))),
                         @ApiResponse(responseCode = "400", description = "Invalid search parameter"),
@@ -281,7 +456,8 @@ public class MedicationController {
         })
         public ResponseEntity<List<MedicationResponse>> searchMedicationsByUserIdAndName(
                         @Parameter(description = "User ID", required = true) @PathVariable Long userId,
-                        @Parameter(description = "Name or partial name to search for", required = true) @RequestParam String name) {
+                        @Parameter(description = "Name or part of the name to search for", required = true) @RequestParam String name,
+                        @Parameter(description = "contains (default) or prefix") @RequestParam(defaultValue = "contains") NameMatch match) {
 
                 log.info("Received request to search medications for user {} by name: {}", userId, name);
 
@@ -290,8 +466,77 @@ public class MedicationController {
                 }
 
                 List<MedicationResponse> responses = medicationService.searchMedicationsByUserIdAndName(userId,
-                                name.trim());
+                                name.trim(), match);
                 return ResponseEntity.ok(responses);
         }
 
-}
\ No newline at end of file
+        @GetMapping("/user/{userId}/autocomplete")
+        @Operation(summary = "Autocomplete medication names for specific user", description = "Returns up to limit medications of a user whose name, or any word of it, starts with the prefix (case-insensitive). Served from an in-memory index")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Suggestions found", content = @Content(schema = @Schema(implementation = MedicationSuggestionResponse.class))),
+                        @ApiResponse(responseCode = "400", description = "Invalid prefix parameter"),
+                        @ApiResponse(responseCode = "500", description = "Internal server error")
+        })
+        public ResponseEntity<List<MedicationSuggestionResponse>> autocompleteMedicationNames(
+                        @Parameter(description = "User ID", required = true) @PathVariable Long userId,
+                        @Parameter(description = "Beginning of the medication name or of any word in it", required = true) @RequestParam String prefix,
+                        @Parameter(description = "Maximum number of suggestions (default 10, max 50)") @RequestParam(required = false) Integer limit) {
+
+                log.debug("Received request to autocomplete medication names for user {} with prefix: {}", userId,
+                                prefix);
+
+                if (prefix == null || prefix.trim().isEmpty()) {
+                        return ResponseEntity.badRequest().build();
+                }
+
+                List<MedicationSuggestionResponse> responses = medicationService.autocompleteMedicationNames(userId,
+                                prefix, limit);
+                return ResponseEntity.ok(responses);
+        }
+
+        @GetMapping("/user/{userId}/search/page")
+        @Operation(summary = "Search medications page by name for specific user", description = "Returns a page of a user's medications whose name contains the term (case-insensitive, or starts with it for match=prefix) ordered by ID. Pass the returned nextCursor as afterId to fetch the next page")
+        @ApiResponses(value = {
+                        @ApiResponse(responseCode = "200", description = "Search results page found", content = @Content(schema = @Schema(implementation = CursorPageResponse.class))),
+                        @ApiResponse(responseCode = "400", description = "Invalid search parameter"),
+                        @ApiResponse(responseCode = "500", description = "Internal server error")
+        })
+        public ResponseEntity<CursorPageResponse<MedicationResponse>> searchMedicationsByUserIdAndNamePage(
+                        @Parameter(description = "User ID", required = true) @PathVariable Long userId,
+                        @Parameter(description = "Name or part of the name to search for", required = true) @RequestParam String name,
+                        @Parameter(description = "contains (default) or prefix") @RequestParam(defaultValue = "contains") NameMatch match,
+                        @Parameter(description = "Return medications with ID greater than this cursor") @RequestParam(required = false) Long afterId,
+                        @Parameter(description = "Page size (default 20, max 100)") @RequestParam(required = false) Integer size) {
+
+                log.info("Received request to search medications page for user {} by name: {} after id {}", userId,
+                                name, afterId);
+
+                if (name == null || name.trim().isEmpty()) {
+                        return ResponseEntity.badRequest().build();
+                }
+
+                CursorPageResponse<MedicationResponse> response = medicationService
+                                .searchMedicationsByUserIdAndNamePage(userId, name.trim(), match, afterId, size);
+                return ResponseEntity.ok(response);
+        }
+
+        private ResponseEntity<StreamingResponseBody> ndjson(Consumer<Consumer<MedicationResponse>> source) {
+                StreamingResponseBody body = outputStream -> {
+                        source.accept(medication -> writeLine(outputStream, medication));
+                        outputStream.flush();
+                };
+                return ResponseEntity.ok()
+                                .contentType(MediaType.APPLICATION_NDJSON)
+                                .body(body);
+        }
+
+        private void writeLine(OutputStream outputStream, MedicationResponse medication) {
+                try {
+                        outputStream.write(objectMapper.writeValueAsBytes(medication));
+                        outputStream.write('\n');
+                } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                }
+        }
+
+}
@@ -0,0 +1,29 @@
+package com.project.pillpal.medication.dtos;
+
+import java.util.List;
+import java.util.function.Function;
+
+public record CursorPageResponse<T>(
+        List<T> items,
+        Long nextCursor,
+        boolean hasMore) {
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    public static int pageSize(Integer requestedSize) {
+        if (requestedSize == null || requestedSize < 1) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(requestedSize, MAX_PAGE_SIZE);
+    }
+
+    public static long afterId(Long requestedAfterId) {
+        return requestedAfterId != null ? requestedAfterId : 0L;
+    }
+
+    public static <T> CursorPageResponse<T> of(List<T> items, boolean hasMore, Function<T, Long> cursorExtractor) {
+        Long nextCursor = hasMore && !items.isEmpty() ? cursorExtractor.apply(items.getLast()) : null;
+        return new CursorPageResponse<>(items, nextCursor, hasMore);
+    }
+}
@@ -0,0 +1,26 @@
+package com.project.pillpal.medication.dtos;
+
+import java.util.List;
+
+public record MedicationCountResponse(
+        long total,
+        long active,
+        long lifetime,
+        long dated) {
+
+    public static MedicationCountResponse from(List<MedicationCountRow> rows) {
+        long total = 0;
+        long active = 0;
+        long lifetime = 0;
+        for (MedicationCountRow row : rows) {
+            total += row.count();
+            if (Boolean.TRUE.equals(row.active())) {
+                active += row.count();
+            }
+            if (Boolean.TRUE.equals(row.lifetime())) {
+                lifetime += row.count();
+            }
+        }
+        return new MedicationCountResponse(total, active, lifetime, total - lifetime);
+    }
+}
@@ -0,0 +1,7 @@
+package com.project.pillpal.medication.dtos;
+
+public record MedicationCountRow(
+        Boolean lifetime,
+        Boolean active,
+        Long count) {
+}
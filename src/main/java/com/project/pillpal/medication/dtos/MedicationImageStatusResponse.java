@@ -0,0 +1,10 @@
+package com.project.pillpal.medication.dtos;
+
+import com.project.pillpal.medication.entity.ImageStatus;
+
+public record MedicationImageStatusResponse(
+        Long medicationId,
+        ImageStatus imageStatus,
+        String imgUrl
+) {
+}
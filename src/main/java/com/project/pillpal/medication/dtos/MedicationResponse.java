@@ -1,5 +1,8 @@
 package com.project.pillpal.medication.dtos;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.project.pillpal.medication.entity.ImageStatus;
+
 import java.time.LocalDate;
 
 public record MedicationResponse(
@@ -7,11 +10,25 @@ public record MedicationResponse(
         String name,
         String description,
         String imgUrl,
+        ImageStatus imageStatus,
         String dosage,
         Boolean active,
         LocalDate startDate,
         LocalDate endDate,
         Boolean lifetime,
-        Long userId
+        Long userId,
+        Long version,
+        @JsonInclude(JsonInclude.Include.NON_DEFAULT) boolean imageUpdateSkipped
 ) {
+    public MedicationResponse(Long id, String name, String description, String imgUrl, ImageStatus imageStatus,
+            String dosage, Boolean active, LocalDate startDate, LocalDate endDate, Boolean lifetime, Long userId,
+            Long version) {
+        this(id, name, description, imgUrl, imageStatus, dosage, active, startDate, endDate, lifetime, userId,
+                version, false);
+    }
+
+    public MedicationResponse withImageUpdateSkipped() {
+        return new MedicationResponse(id, name, description, imgUrl, imageStatus, dosage, active, startDate, endDate,
+                lifetime, userId, version, true);
+    }
 }
@@ -0,0 +1,6 @@
+package com.project.pillpal.medication.dtos;
+
+public record MedicationSuggestionResponse(
+        Long id,
+        String name) {
+}
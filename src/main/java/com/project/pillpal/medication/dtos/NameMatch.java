@@ -0,0 +1,6 @@
+package com.project.pillpal.medication.dtos;
+
+public enum NameMatch {
+    CONTAINS,
+    PREFIX
+}
@@ -19,5 +19,7 @@ public record UpdateMedicationRequest(
 
         LocalDate endDate,
 
-        Boolean lifetime) {
+        Boolean lifetime,
+
+        Long version) {
 }
@@ -0,0 +1,8 @@
+package com.project.pillpal.medication.entity;
+
+public enum ImageStatus {
+    NONE,
+    PENDING,
+    UPLOADED,
+    FAILED
+}
@@ -4,20 +4,37 @@ import com.project.pillpal.user.entity.User;
 import com.project.pillpal.medicationintake.entity.MedicationIntake;
 import com.project.pillpal.reminder.entity.Reminder;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.OptimisticLock;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "medications")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "medications")
+@Table(name = "medications", indexes = {
+        @Index(name = "idx_medications_user_active_id", columnList = "user_id, active, id"),
+        @Index(name = "idx_medications_user_name_normalized", columnList = "user_id, name_normalized"),
+        @Index(name = "idx_medications_name_normalized", columnList = "name_normalized")
+})
 public class Medication {
+    public static final int TRIGRAM_LENGTH = 3;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -25,12 +42,29 @@ public class Medication {
     @Column(nullable = false)
     private String name;
 
+    @Column(name = "name_normalized")
+    private String nameNormalized;
+
+    @ElementCollection
+    @CollectionTable(name = "medication_name_trigrams", joinColumns = @JoinColumn(name = "medication_id"),
+            indexes = @Index(name = "idx_medication_name_trigrams_trigram", columnList = "trigram, medication_id"))
+    @Column(name = "trigram", nullable = false, length = TRIGRAM_LENGTH)
+    @OptimisticLock(excluded = true)
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Set<String> nameTrigrams = new HashSet<>();
+
     @Column(columnDefinition = "TEXT")
     private String description;
 
     @Column(name = "img_url")
     private String imgUrl;
 
+    @Enumerated(EnumType.STRING)
+    @ColumnDefault("'NONE'")
+    @Column(name = "image_status", nullable = false, length = 16)
+    private ImageStatus imageStatus = ImageStatus.NONE;
+
     @Column(nullable = false)
     private String dosage;
 
@@ -50,9 +84,49 @@ public class Medication {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version;
+
     @OneToMany(mappedBy = "medication", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<MedicationIntake> medicationIntakes = new ArrayList<>();
 
     @OneToMany(mappedBy = "medication", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Reminder> reminders = new ArrayList<>();
+
+    public void setName(String name) {
+        this.name = name;
+        refreshNameTrigrams();
+    }
+
+    public void refreshNameTrigrams() {
+        Set<String> trigrams = trigrams(normalizeName(name));
+        nameTrigrams.retainAll(trigrams);
+        nameTrigrams.addAll(trigrams);
+    }
+
+    @PrePersist
+    @PreUpdate
+    void normalizeName() {
+        nameNormalized = normalizeName(name);
+    }
+
+    public static String normalizeName(String value) {
+        if (value == null) {
+            return null;
+        }
+        return value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    public static Set<String> trigrams(String normalizedName) {
+        Set<String> trigrams = new HashSet<>();
+        if (normalizedName == null) {
+            return trigrams;
+        }
+        for (int i = 0; i + TRIGRAM_LENGTH <= normalizedName.length(); i++) {
+            trigrams.add(normalizedName.substring(i, i + TRIGRAM_LENGTH));
+        }
+        return trigrams;
+    }
 }
@@ -0,0 +1,32 @@
+package com.project.pillpal.medication.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "medication_images", indexes = {
+        @Index(name = "uk_medication_images_content_hash", columnList = "content_hash", unique = true),
+        @Index(name = "idx_medication_images_secure_url", columnList = "secure_url")
+})
+public class MedicationImage {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "content_hash", nullable = false, length = 64)
+    private String contentHash;
+
+    @Column(name = "public_id", nullable = false)
+    private String publicId;
+
+    @Column(name = "secure_url", nullable = false)
+    private String secureUrl;
+
+    @Column(name = "reference_count", nullable = false)
+    private int referenceCount;
+}
@@ -19,12 +19,14 @@ public class MedicationMapperImpl implements MedicationMapper {
                 medication.getName(),
                 medication.getDescription(),
                 medication.getImgUrl(),
+                medication.getImageStatus(),
                 medication.getDosage(),
                 medication.getActive(),
                 medication.getStartDate(),
                 medication.getEndDate(),
                 medication.getLifetime(),
-                medication.getUser() != null ? medication.getUser().getId() : null);
+                medication.getUser() != null ? medication.getUser().getId() : null,
+                medication.getVersion());
     }
 
     @Override
@@ -0,0 +1,16 @@
+package com.project.pillpal.medication.repository;
+
+import com.project.pillpal.medication.entity.ImageDeletion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ImageDeletionRepository extends JpaRepository<ImageDeletion, Long> {
+
+    @Query(value = "SELECT d.id FROM image_deletion_outbox d WHERE d.next_attempt_at <= :now "
+            + "ORDER BY d.next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockDueIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+}
@@ -0,0 +1,44 @@
+package com.project.pillpal.medication.repository;
+
+import com.project.pillpal.medication.entity.MedicationImage;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface MedicationImageRepository extends JpaRepository<MedicationImage, Long> {
+
+    String NATIVE_SPACES_HINT = "org.hibernate.query.native.spaces";
+
+    @Query("SELECT i.secureUrl FROM MedicationImage i WHERE i.contentHash = :contentHash")
+    Optional<String> findSecureUrlByContentHash(@Param("contentHash") String contentHash);
+
+    @Query("SELECT i.publicId FROM MedicationImage i WHERE i.secureUrl = :secureUrl")
+    Optional<String> findPublicIdBySecureUrl(@Param("secureUrl") String secureUrl);
+
+    @Modifying
+    @Query("UPDATE MedicationImage i SET i.referenceCount = i.referenceCount + 1 "
+            + "WHERE i.contentHash = :contentHash")
+    int addReferenceByContentHash(@Param("contentHash") String contentHash);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES_HINT, value = "medication_images"))
+    @Query(value = "INSERT INTO medication_images (content_hash, public_id, secure_url, reference_count) "
+            + "VALUES (:contentHash, :publicId, :secureUrl, 1) "
+            + "ON DUPLICATE KEY UPDATE reference_count = reference_count + 1", nativeQuery = true)
+    int addReference(@Param("contentHash") String contentHash, @Param("publicId") String publicId,
+            @Param("secureUrl") String secureUrl);
+
+    @Modifying
+    @Query("UPDATE MedicationImage i SET i.referenceCount = i.referenceCount - 1 "
+            + "WHERE i.secureUrl = :secureUrl AND i.referenceCount > 0")
+    int removeReference(@Param("secureUrl") String secureUrl);
+
+    @Modifying
+    @Query("DELETE FROM MedicationImage i WHERE i.secureUrl = :secureUrl AND i.referenceCount = 0")
+    int deleteUnreferenced(@Param("secureUrl") String secureUrl);
+}
@@ -1,22 +1,121 @@
 package com.project.pillpal.medication.repository;
 
+import com.project.pillpal.medication.dtos.MedicationCountRow;
+import com.project.pillpal.medication.dtos.MedicationImageStatusResponse;
+import com.project.pillpal.medication.dtos.MedicationResponse;
+import com.project.pillpal.medication.dtos.MedicationSuggestionResponse;
 import com.project.pillpal.medication.entity.Medication;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface MedicationRepository extends JpaRepository<Medication, Long> {
-    List<Medication> findByUserIdAndActiveTrue(Long userId);
+    String STREAM_FETCH_SIZE = "500";
 
-    List<Medication> findByUserId(Long userId);
+    String SELECT_RESPONSE = "SELECT new com.project.pillpal.medication.dtos.MedicationResponse("
+            + "m.id, m.name, m.description, m.imgUrl, m.imageStatus, m.dosage, m.active, m.startDate, m.endDate, m.lifetime, "
+            + "m.user.id, m.version) "
+            + "FROM Medication m";
+
+    String SELECT_COUNT_ROW = "SELECT new com.project.pillpal.medication.dtos.MedicationCountRow("
+            + "m.lifetime, m.active, COUNT(m)) FROM Medication m";
+
+    String NAME_LIKE = "m.nameNormalized LIKE :pattern ESCAPE '!'";
+
+    String NAME_HAS_TRIGRAM = "m.id IN (SELECT t.id FROM Medication t JOIN t.nameTrigrams g WHERE g = :trigram)";
 
     List<Medication> findByActiveTrue();
 
-    @Query("SELECT m FROM Medication m WHERE LOWER(m.name) LIKE LOWER(CONCAT('%', :name, '%'))")
-    List<Medication> findByNameContainingIgnoreCase(@Param("name") String name);
+    @Query("SELECT m.id FROM Medication m WHERE m.user.id = :userId AND m.id IN :ids")
+    List<Long> findIdsByUserIdAndIdIn(@Param("userId") Long userId, @Param("ids") Collection<Long> ids);
+
+    long countByUserId(Long userId);
+
+    long countByUserIdAndActiveTrue(Long userId);
+
+    @Query(SELECT_COUNT_ROW + " GROUP BY m.lifetime, m.active")
+    List<MedicationCountRow> countGroupedByLifetimeAndActive();
+
+    @Query(SELECT_COUNT_ROW + " WHERE m.user.id = :userId GROUP BY m.lifetime, m.active")
+    List<MedicationCountRow> countByUserIdGroupedByLifetimeAndActive(@Param("userId") Long userId);
+
+    List<Medication> findByUserIdAndActiveTrueAndIdGreaterThanOrderByIdAsc(Long userId, Long afterId,
+            Pageable pageable);
+
+    @Query("SELECT new com.project.pillpal.medication.dtos.MedicationSuggestionResponse(m.id, m.name) "
+            + "FROM Medication m WHERE m.user.id = :userId")
+    List<MedicationSuggestionResponse> findSuggestionsByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT new com.project.pillpal.medication.dtos.MedicationImageStatusResponse(m.id, m.imageStatus, m.imgUrl) "
+            + "FROM Medication m WHERE m.id = :id")
+    Optional<MedicationImageStatusResponse> findImageStatusById(@Param("id") Long id);
+
+    @Query(SELECT_RESPONSE + " WHERE m.id = :id")
+    Optional<MedicationResponse> findResponseById(@Param("id") Long id);
+
+    @Query(SELECT_RESPONSE)
+    List<MedicationResponse> findAllResponses();
+
+    @Query(SELECT_RESPONSE + " WHERE m.user.id = :userId")
+    List<MedicationResponse> findResponsesByUserId(@Param("userId") Long userId);
+
+    @Query(SELECT_RESPONSE + " WHERE m.active = true")
+    List<MedicationResponse> findActiveResponses();
+
+    @Query(SELECT_RESPONSE + " WHERE m.user.id = :userId AND m.active = true")
+    List<MedicationResponse> findActiveResponsesByUserId(@Param("userId") Long userId);
+
+    @Query(SELECT_RESPONSE + " WHERE m.id > :afterId ORDER BY m.id")
+    List<MedicationResponse> findResponsesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(SELECT_RESPONSE + " WHERE m.active = true AND m.id > :afterId ORDER BY m.id")
+    List<MedicationResponse> findActiveResponsesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(SELECT_RESPONSE + " WHERE m.user.id = :userId AND m.id > :afterId ORDER BY m.id")
+    List<MedicationResponse> findResponsesByUserIdAfter(@Param("userId") Long userId, @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    @Query(SELECT_RESPONSE + " WHERE m.id > :afterId AND " + NAME_LIKE + " ORDER BY m.id")
+    List<MedicationResponse> findResponsesByNameLikeAfter(@Param("pattern") String pattern,
+            @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(SELECT_RESPONSE + " WHERE m.user.id = :userId AND m.id > :afterId AND " + NAME_LIKE + " ORDER BY m.id")
+    List<MedicationResponse> findResponsesByUserIdAndNameLikeAfter(@Param("userId") Long userId,
+            @Param("pattern") String pattern, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(SELECT_RESPONSE + " WHERE m.id > :afterId AND " + NAME_HAS_TRIGRAM + " AND " + NAME_LIKE
+            + " ORDER BY m.id")
+    List<MedicationResponse> findResponsesByNameTrigramAndNameLikeAfter(@Param("trigram") String trigram,
+            @Param("pattern") String pattern, @Param("afterId") Long afterId, Pageable pageable);
+
+    @Query(SELECT_RESPONSE + " WHERE m.user.id = :userId AND m.id > :afterId AND " + NAME_HAS_TRIGRAM + " AND "
+            + NAME_LIKE + " ORDER BY m.id")
+    List<MedicationResponse> findResponsesByUserIdAndNameTrigramAndNameLikeAfter(@Param("userId") Long userId,
+            @Param("trigram") String trigram, @Param("pattern") String pattern, @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    @Query("SELECT m.id FROM Medication m WHERE m.id > :afterId AND LENGTH(m.nameNormalized) >= "
+            + Medication.TRIGRAM_LENGTH + " AND m.nameTrigrams IS EMPTY ORDER BY m.id")
+    List<Long> findIdsMissingNameTrigramsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(SELECT_RESPONSE + " ORDER BY m.id")
+    Stream<MedicationResponse> streamAllResponses();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(SELECT_RESPONSE + " WHERE m.active = true ORDER BY m.id")
+    Stream<MedicationResponse> streamActiveResponses();
 
-    @Query("SELECT m FROM Medication m WHERE m.user.id = :userId AND LOWER(m.name) LIKE LOWER(CONCAT('%', :name, '%'))")
-    List<Medication> findByUserIdAndNameContainingIgnoreCase(@Param("userId") Long userId, @Param("name") String name);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE))
+    @Query(SELECT_RESPONSE + " WHERE m.user.id = :userId ORDER BY m.id")
+    Stream<MedicationResponse> streamResponsesByUserId(@Param("userId") Long userId);
 }
@@ -0,0 +1,160 @@
+package com.project.pillpal.medication.service;
+
+import com.project.pillpal.medication.dtos.MedicationSuggestionResponse;
+import com.project.pillpal.medication.entity.Medication;
+import com.project.pillpal.medication.repository.MedicationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MedicationAutocompleteService {
+
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 50;
+    static final int MAX_CACHED_USERS = 1000;
+
+    private final MedicationRepository medicationRepository;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<Long, NameIndex> indexes = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, NameIndex> eldest) {
+            return size() > MAX_CACHED_USERS;
+        }
+    };
+
+    public List<MedicationSuggestionResponse> suggest(Long userId, String prefix, Integer limit) {
+        String normalizedPrefix = Medication.normalizeName(prefix);
+        if (normalizedPrefix == null || normalizedPrefix.isEmpty()) {
+            return List.of();
+        }
+        return indexFor(userId).lookup(normalizedPrefix, limit(limit));
+    }
+
+    public void invalidate(Long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(userId);
+                }
+            });
+        } else {
+            evict(userId);
+        }
+    }
+
+    private void evict(Long userId) {
+        generation.incrementAndGet();
+        synchronized (indexes) {
+            indexes.remove(userId);
+        }
+        log.debug("Invalidated medication autocomplete index for user {}", userId);
+    }
+
+    private NameIndex indexFor(Long userId) {
+        synchronized (indexes) {
+            NameIndex cached = indexes.get(userId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        long loadedAt = generation.get();
+        NameIndex index = NameIndex.build(medicationRepository.findSuggestionsByUserId(userId));
+        log.debug("Loaded medication autocomplete index for user {} with {} keys", userId, index.size());
+
+        synchronized (indexes) {
+            if (generation.get() == loadedAt) {
+                indexes.put(userId, index);
+            }
+        }
+        return index;
+    }
+
+    private static int limit(Integer requestedLimit) {
+        if (requestedLimit == null || requestedLimit < 1) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.min(requestedLimit, MAX_LIMIT);
+    }
+
+    private record Key(String term, MedicationSuggestionResponse suggestion) {
+    }
+
+    private static final class NameIndex {
+
+        private static final Comparator<Key> ORDER = Comparator.comparing(Key::term)
+                .thenComparing(key -> key.suggestion().id());
+
+        private final Key[] keys;
+
+        private NameIndex(Key[] keys) {
+            this.keys = keys;
+        }
+
+        static NameIndex build(List<MedicationSuggestionResponse> suggestions) {
+            List<Key> keys = new ArrayList<>();
+            for (MedicationSuggestionResponse suggestion : suggestions) {
+                String normalized = Medication.normalizeName(suggestion.name());
+                if (normalized == null || normalized.isEmpty()) {
+                    continue;
+                }
+                keys.add(new Key(normalized, suggestion));
+                for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+                    keys.add(new Key(normalized.substring(i + 1), suggestion));
+                }
+            }
+            Key[] sorted = keys.toArray(Key[]::new);
+            Arrays.sort(sorted, ORDER);
+            return new NameIndex(sorted);
+        }
+
+        List<MedicationSuggestionResponse> lookup(String prefix, int limit) {
+            List<MedicationSuggestionResponse> matches = new ArrayList<>(Math.min(limit, keys.length));
+            Set<Long> seen = new HashSet<>();
+            for (int i = lowerBound(prefix); i < keys.length && matches.size() < limit; i++) {
+                if (!keys[i].term().startsWith(prefix)) {
+                    break;
+                }
+                if (seen.add(keys[i].suggestion().id())) {
+                    matches.add(keys[i].suggestion());
+                }
+            }
+            return matches;
+        }
+
+        int size() {
+            return keys.length;
+        }
+
+        private int lowerBound(String prefix) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid].term().compareTo(prefix) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
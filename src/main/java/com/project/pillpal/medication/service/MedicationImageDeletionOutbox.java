@@ -0,0 +1,147 @@
+package com.project.pillpal.medication.service;
+
+import com.project.pillpal.cloudinary.CloudinaryService;
+import com.project.pillpal.medication.entity.ImageDeletion;
+import com.project.pillpal.medication.repository.ImageDeletionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@Slf4j
+public class MedicationImageDeletionOutbox {
+
+    private final ImageDeletionRepository imageDeletionRepository;
+    private final CloudinaryService cloudinaryService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean drainEnabled;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration claimTimeout;
+    private final Counter deleted;
+    private final Counter retried;
+    private final Counter abandoned;
+
+    public MedicationImageDeletionOutbox(ImageDeletionRepository imageDeletionRepository,
+            CloudinaryService cloudinaryService, TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+            @Value("${medications.image-deletion.enabled:true}") boolean drainEnabled,
+            @Value("${medications.image-deletion.batch-size:100}") int batchSize,
+            @Value("${medications.image-deletion.max-attempts:10}") int maxAttempts,
+            @Value("${medications.image-deletion.initial-backoff-ms:30000}") long initialBackoffMs,
+            @Value("${medications.image-deletion.claim-timeout-ms:60000}") long claimTimeoutMs) {
+        this.imageDeletionRepository = imageDeletionRepository;
+        this.cloudinaryService = cloudinaryService;
+        this.transactionTemplate = transactionTemplate;
+        this.drainEnabled = drainEnabled;
+        this.batchSize = Math.min(batchSize, CloudinaryService.MAX_BULK_DELETE);
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = Duration.ofMillis(initialBackoffMs);
+        this.claimTimeout = Duration.ofMillis(claimTimeoutMs);
+        this.deleted = counter(meterRegistry, "deleted");
+        this.retried = counter(meterRegistry, "retried");
+        this.abandoned = counter(meterRegistry, "abandoned");
+    }
+
+    public void enqueue(String publicId) {
+        LocalDateTime now = LocalDateTime.now();
+        imageDeletionRepository.save(new ImageDeletion(null, publicId, 0, now, now));
+        log.debug("Queued deletion of image {}", publicId);
+    }
+
+    @Scheduled(fixedDelayString = "${medications.image-deletion.interval-ms:10000}")
+    public void drain() {
+        if (!drainEnabled) {
+            return;
+        }
+        drain(LocalDateTime.now());
+    }
+
+    int drain(LocalDateTime now) {
+        int drained = 0;
+        List<ImageDeletion> batch;
+        do {
+            batch = transactionTemplate.execute(status -> claimDue(now));
+            if (batch.isEmpty()) {
+                break;
+            }
+            drained += deleteBatch(batch, now);
+        } while (batch.size() == batchSize);
+
+        if (drained > 0) {
+            log.debug("Deleted {} images from the outbox", drained);
+        }
+        return drained;
+    }
+
+    private List<ImageDeletion> claimDue(LocalDateTime now) {
+        List<Long> ids = imageDeletionRepository.lockDueIds(now, batchSize);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        List<ImageDeletion> claimed = imageDeletionRepository.findAllById(ids);
+        claimed.forEach(deletion -> deletion.setNextAttemptAt(now.plus(claimTimeout)));
+        return claimed;
+    }
+
+    private int deleteBatch(List<ImageDeletion> batch, LocalDateTime now) {
+        Map<String, String> results;
+        try {
+            results = cloudinaryService.deleteMedicationImages(
+                    batch.stream().map(ImageDeletion::getPublicId).distinct().toList());
+        } catch (Exception e) {
+            log.warn("Could not delete {} images, will retry: {}", batch.size(), e.getMessage());
+            results = Map.of();
+        }
+
+        List<Long> done = new ArrayList<>();
+        List<ImageDeletion> retry = new ArrayList<>();
+        int succeeded = 0;
+        for (ImageDeletion deletion : batch) {
+            String result = results.get(deletion.getPublicId());
+            if ("deleted".equals(result) || "not_found".equals(result)) {
+                done.add(deletion.getId());
+                succeeded++;
+            } else if (deletion.getAttempts() + 1 >= maxAttempts) {
+                log.error("Giving up deleting image {} after {} attempts", deletion.getPublicId(), maxAttempts);
+                done.add(deletion.getId());
+                abandoned.increment();
+            } else {
+                deletion.setAttempts(deletion.getAttempts() + 1);
+                deletion.setNextAttemptAt(now.plus(backoff(deletion.getAttempts())));
+                retry.add(deletion);
+                retried.increment();
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!done.isEmpty()) {
+                imageDeletionRepository.deleteAllByIdInBatch(done);
+            }
+            if (!retry.isEmpty()) {
+                imageDeletionRepository.saveAll(retry);
+            }
+        });
+        deleted.increment(succeeded);
+        return succeeded;
+    }
+
+    private Duration backoff(int attempts) {
+        return initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 16));
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("medications.image-deletion").tag("outcome", outcome).register(meterRegistry);
+    }
+}
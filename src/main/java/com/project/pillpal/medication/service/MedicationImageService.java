@@ -2,13 +2,17 @@ package com.project.pillpal.medication.service;
 
 import com.project.pillpal.cloudinary.CloudinaryService;
 import com.project.pillpal.exceptions.CloudinaryException;
+import com.project.pillpal.exceptions.CloudinaryUnavailableException;
+import com.project.pillpal.medication.entity.ImageStatus;
 import com.project.pillpal.medication.entity.Medication;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.util.Map;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 @Service
 @RequiredArgsConstructor
@@ -16,44 +20,86 @@ import java.util.Map;
 public class MedicationImageService {
 
     private final CloudinaryService cloudinaryService;
+    private final MedicationImageUploadQueue medicationImageUploadQueue;
+    private final MedicationImageStore medicationImageStore;
 
-    public void uploadImageForMedication(Medication medication, MultipartFile image) {
+    public Path stageImageForMedication(Medication medication, MultipartFile image) {
         if (image == null || image.isEmpty()) {
-            log.debug("No image provided for medication {}", medication.getId());
-            return;
+            return null;
+        }
+
+        String contentType = image.getContentType();
+        if (contentType == null || !contentType.startsWith("image/")) {
+            throw new IllegalArgumentException("File must be an image");
         }
 
         try {
-            log.info("Uploading image for medication {}", medication.getId());
-            Map<String, Object> uploadResult = cloudinaryService.uploadMedicationImage(image);
-            String imageUrl = (String) uploadResult.get("secure_url");
-            medication.setImgUrl(imageUrl);
-            log.info("Successfully uploaded image for medication {}", medication.getId());
-        } catch (Exception e) {
-            log.error("Error uploading image for medication {}: {}", medication.getId(), e.getMessage());
-            throw new CloudinaryException("Failed to upload medication image", e);
+            Path staged = cloudinaryService.spool(image);
+            medication.setImageStatus(ImageStatus.PENDING);
+            return staged;
+        } catch (IOException e) {
+            log.error("Error reading image for medication {}: {}", medication.getName(), e.getMessage());
+            throw new CloudinaryException("Failed to read medication image", e);
         }
     }
 
-    public void updateImageForMedication(Medication medication, MultipartFile image) {
-        if (image == null || image.isEmpty()) {
-            log.debug("No new image provided for medication {}", medication.getId());
+    public void queueImageUpload(Long medicationId, Path image) {
+        if (image == null) {
             return;
         }
+        medicationImageUploadQueue.submit(medicationId, image);
+    }
 
+    public void discardStagedImage(Path image) {
+        if (image == null) {
+            return;
+        }
         try {
-            if (medication.getImgUrl() != null && !medication.getImgUrl().trim().isEmpty()) {
-                deleteImageFromMedication(medication);
-            }
+            Files.deleteIfExists(image);
+        } catch (IOException e) {
+            log.warn("Could not delete staged image {}: {}", image, e.getMessage());
+        }
+    }
 
-            uploadImageForMedication(medication, image);
-            log.info("Successfully updated image for medication {}", medication.getId());
+    public String storeImage(Long medicationId, MultipartFile image) {
+        if (image == null || image.isEmpty()) {
+            log.debug("No new image provided for medication {}", medicationId);
+            return null;
+        }
+
+        try {
+            log.info("Uploading new image for medication {}", medicationId);
+            return medicationImageStore.store(image);
+        } catch (CloudinaryUnavailableException e) {
+            log.warn("Keeping the current image of medication {}: {}", medicationId, e.getMessage());
+            return null;
         } catch (Exception e) {
-            log.error("Error updating image for medication {}: {}", medication.getId(), e.getMessage());
+            log.error("Error updating image for medication {}: {}", medicationId, e.getMessage());
             throw new CloudinaryException("Failed to update medication image", e);
         }
     }
 
+    public void replaceImage(Medication medication, String imageUrl) {
+        String previousUrl = medication.getImgUrl();
+        medication.setImgUrl(imageUrl);
+        medication.setImageStatus(ImageStatus.UPLOADED);
+        if (previousUrl != null && !previousUrl.trim().isEmpty()) {
+            medicationImageStore.release(previousUrl);
+        }
+        log.info("Successfully updated image for medication {}", medication.getId());
+    }
+
+    public void releaseImage(String imageUrl) {
+        if (imageUrl == null) {
+            return;
+        }
+        try {
+            medicationImageStore.release(imageUrl);
+        } catch (Exception e) {
+            log.warn("Could not release image {}: {}", imageUrl, e.getMessage());
+        }
+    }
+
     public void deleteImageFromMedication(Medication medication) {
         if (medication.getImgUrl() == null || medication.getImgUrl().trim().isEmpty()) {
             log.debug("No image to delete for medication {}", medication.getId());
@@ -62,10 +108,9 @@ public class MedicationImageService {
 
         try {
             log.info("Deleting image for medication {}", medication.getId());
-            String publicId = cloudinaryService.extractPublicIdFromUrl(medication.getImgUrl());
-            if (publicId != null) {
-                cloudinaryService.deleteMedicationImage(publicId);
+            if (medicationImageStore.release(medication.getImgUrl())) {
                 medication.setImgUrl(null);
+                medication.setImageStatus(ImageStatus.NONE);
                 log.info("Successfully deleted image for medication {}", medication.getId());
             } else {
                 log.warn("Could not extract public ID from URL for medication {}", medication.getId());
@@ -0,0 +1,185 @@
+package com.project.pillpal.medication.service;
+
+import com.project.pillpal.cloudinary.CloudinaryService;
+import com.project.pillpal.medication.repository.MedicationImageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+
+@Component
+@Slf4j
+public class MedicationImageStore {
+
+    private final CloudinaryService cloudinaryService;
+    private final MedicationImageRepository medicationImageRepository;
+    private final MedicationImageDeletionOutbox medicationImageDeletionOutbox;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate referenceTransactionTemplate;
+    private final Counter hits;
+    private final Counter misses;
+
+    public MedicationImageStore(CloudinaryService cloudinaryService,
+            MedicationImageRepository medicationImageRepository,
+            MedicationImageDeletionOutbox medicationImageDeletionOutbox, TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry) {
+        this.cloudinaryService = cloudinaryService;
+        this.medicationImageRepository = medicationImageRepository;
+        this.medicationImageDeletionOutbox = medicationImageDeletionOutbox;
+        this.transactionTemplate = transactionTemplate;
+        this.referenceTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.referenceTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.hits = Counter.builder("medications.image-store.lookups").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("medications.image-store.lookups").tag("result", "miss")
+                .register(meterRegistry);
+    }
+
+    public String store(MultipartFile image) throws IOException {
+        if (image == null || image.isEmpty()) {
+            throw new IllegalArgumentException("File cannot be empty");
+        }
+
+        String contentType = image.getContentType();
+        if (contentType == null || !contentType.startsWith("image/")) {
+            throw new IllegalArgumentException("File must be an image");
+        }
+
+        Path spooled = cloudinaryService.spool(image);
+        try {
+            return store(spooled);
+        } finally {
+            Files.deleteIfExists(spooled);
+        }
+    }
+
+    public String store(Path image) throws IOException {
+        if (image == null || Files.size(image) == 0) {
+            throw new IllegalArgumentException("File cannot be empty");
+        }
+
+        Path normalized = cloudinaryService.normalizeMedicationImage(image);
+        try {
+            String contentHash = contentHash(normalized);
+            Optional<String> existing = referenceTransactionTemplate.execute(status -> acquire(contentHash));
+            if (existing != null && existing.isPresent()) {
+                hits.increment();
+                log.debug("Reusing stored image {} for content hash {}", existing.get(), contentHash);
+                return releaseOnRollback(existing.get());
+            }
+
+            misses.increment();
+            Map<String, Object> uploadResult = normalized.equals(image)
+                    ? cloudinaryService.uploadOriginalMedicationImage(image)
+                    : cloudinaryService.uploadNormalizedMedicationImage(normalized);
+            String secureUrl = (String) uploadResult.get("secure_url");
+            String publicId = (String) uploadResult.get("public_id");
+            String stored = referenceTransactionTemplate.execute(
+                    status -> addReference(contentHash, publicId, secureUrl));
+            return releaseOnRollback(stored != null ? stored : secureUrl);
+        } finally {
+            if (!normalized.equals(image)) {
+                Files.deleteIfExists(normalized);
+            }
+        }
+    }
+
+    public boolean release(String imageUrl) {
+        return release(imageUrl, transactionTemplate);
+    }
+
+    private String releaseOnRollback(String imageUrl) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_ROLLED_BACK) {
+                        return;
+                    }
+                    try {
+                        log.debug("Transaction rolled back, releasing stored image {}", imageUrl);
+                        release(imageUrl, referenceTransactionTemplate);
+                    } catch (RuntimeException e) {
+                        log.warn("Could not release image {} after rollback: {}", imageUrl, e.getMessage());
+                    }
+                }
+            });
+        }
+        return imageUrl;
+    }
+
+    private boolean release(String imageUrl, TransactionTemplate template) {
+        String publicId = cloudinaryService.extractPublicIdFromUrl(imageUrl);
+        if (publicId == null) {
+            return false;
+        }
+
+        template.executeWithoutResult(status -> {
+            String orphaned = removeReference(imageUrl, publicId);
+            if (orphaned != null) {
+                medicationImageDeletionOutbox.enqueue(orphaned);
+            } else {
+                log.debug("Image {} is still referenced, keeping it", imageUrl);
+            }
+        });
+        return true;
+    }
+
+    private Optional<String> acquire(String contentHash) {
+        if (medicationImageRepository.addReferenceByContentHash(contentHash) == 0) {
+            return Optional.empty();
+        }
+        return medicationImageRepository.findSecureUrlByContentHash(contentHash);
+    }
+
+    private String addReference(String contentHash, String publicId, String secureUrl) {
+        medicationImageRepository.addReference(contentHash, publicId, secureUrl);
+        String stored = medicationImageRepository.findSecureUrlByContentHash(contentHash).orElse(secureUrl);
+        if (!stored.equals(secureUrl)) {
+            log.debug("Image with content hash {} was stored concurrently, discarding {}", contentHash, publicId);
+            medicationImageDeletionOutbox.enqueue(publicId);
+        }
+        return stored;
+    }
+
+    private String removeReference(String imageUrl, String publicId) {
+        if (medicationImageRepository.removeReference(imageUrl) == 0) {
+            // Not in the index: uploaded before deduplication, so only this medication uses it
+            return publicId;
+        }
+        Optional<String> indexed = medicationImageRepository.findPublicIdBySecureUrl(imageUrl);
+        return medicationImageRepository.deleteUnreferenced(imageUrl) > 0 ? indexed.orElse(publicId) : null;
+    }
+
+    static String contentHash(Path image) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(image)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,280 @@
+package com.project.pillpal.medication.service;
+
+import com.project.pillpal.cloudinary.CloudinaryGuard;
+import com.project.pillpal.medication.entity.ImageStatus;
+import com.project.pillpal.medication.entity.Medication;
+import com.project.pillpal.medication.repository.MedicationRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+@Component
+@Slf4j
+public class MedicationImageUploadQueue {
+
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final MedicationImageStore medicationImageStore;
+    private final MedicationRepository medicationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService retryScheduler = Executors.newSingleThreadScheduledExecutor(
+            task -> new Thread(task, "image-upload-retry"));
+    private final int maxAttempts;
+    private final Duration retryDelay;
+    private final Set<UploadTask> scheduledRetries = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public MedicationImageUploadQueue(MedicationImageStore medicationImageStore,
+            MedicationRepository medicationRepository, TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${medications.image-upload.concurrency:4}") int concurrency,
+            @Value("${medications.image-upload.queue-capacity:100}") int queueCapacity,
+            @Value("${medications.image-upload.max-attempts:3}") int maxAttempts,
+            @Value("${medications.image-upload.retry-delay-ms:30000}") long retryDelayMs) {
+        this.medicationImageStore = medicationImageStore;
+        this.medicationRepository = medicationRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = Duration.ofMillis(retryDelayMs);
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> new Thread(task, "image-upload-" + threads.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+        Gauge.builder("medications.image-upload.queued", executor, e -> e.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("medications.image-upload.active", executor, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+    }
+
+    public void submit(Long medicationId, Path image) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        enqueue(medicationId, image, 1);
+                    } else {
+                        delete(image);
+                    }
+                }
+            });
+        } else {
+            enqueue(medicationId, image, 1);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        shutdown(SHUTDOWN_TIMEOUT);
+    }
+
+    void shutdown(Duration timeout) throws InterruptedException {
+        retryScheduler.shutdownNow();
+        List<UploadTask> retries = List.copyOf(scheduledRetries);
+        if (!retries.isEmpty()) {
+            log.warn("Failing {} pending image upload retries on shutdown", retries.size());
+        }
+        retries.stream().filter(scheduledRetries::remove).forEach(this::abandon);
+
+        executor.shutdown();
+        if (!executor.awaitTermination(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            List<Runnable> queued = executor.shutdownNow();
+            log.warn("Failing {} queued image uploads on shutdown", queued.size());
+            queued.forEach(task -> abandon((UploadTask) task));
+        }
+    }
+
+    boolean awaitIdle(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (inFlight.get() > 0) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+
+    private void enqueue(Long medicationId, Path image, int attempt) {
+        inFlight.incrementAndGet();
+        try {
+            executor.execute(new UploadTask(medicationId, image, attempt));
+            log.debug("Queued image upload for medication {}", medicationId);
+        } catch (RejectedExecutionException e) {
+            inFlight.decrementAndGet();
+            log.warn("Image upload queue is {}, failing upload for medication {}",
+                    executor.isShutdown() ? "shut down" : "full", medicationId);
+            delete(image);
+            markFailed(medicationId);
+        }
+    }
+
+    private boolean upload(Long medicationId, Path image, int attempt) {
+        String imageUrl;
+        try {
+            log.info("Uploading image for medication {}", medicationId);
+            imageUrl = medicationImageStore.store(image);
+        } catch (Exception e) {
+            if (!CloudinaryGuard.isOutage(e)) {
+                log.error("Error uploading image for medication {}: {}", medicationId, e.getMessage());
+                markFailed(medicationId);
+                return false;
+            }
+            if (attempt < maxAttempts) {
+                log.warn("Cloudinary unavailable, retrying image upload for medication {} in {}: {}", medicationId,
+                        retryDelay, e.getMessage());
+                return retry(medicationId, image, attempt + 1);
+            }
+            log.error("Cloudinary still unavailable after {} attempts, failing image upload for medication {}",
+                    attempt, medicationId);
+            markFailed(medicationId);
+            return false;
+        }
+
+        boolean completed;
+        try {
+            completed = updatePending(medicationId, medication -> {
+                medication.setImgUrl(imageUrl);
+                medication.setImageStatus(ImageStatus.UPLOADED);
+            });
+        } catch (Exception e) {
+            log.error("Could not attach image to medication {}: {}", medicationId, e.getMessage());
+            completed = false;
+        }
+        if (completed) {
+            log.info("Successfully uploaded image for medication {}", medicationId);
+            return false;
+        }
+
+        log.info("Medication {} was deleted or its image replaced during upload, releasing {}", medicationId,
+                imageUrl);
+        try {
+            medicationImageStore.release(imageUrl);
+        } catch (Exception e) {
+            log.warn("Could not delete orphaned image {}: {}", imageUrl, e.getMessage());
+        }
+        return false;
+    }
+
+    private boolean retry(Long medicationId, Path image, int attempt) {
+        UploadTask task = new UploadTask(medicationId, image, attempt);
+        inFlight.incrementAndGet();
+        scheduledRetries.add(task);
+        try {
+            retryScheduler.schedule(() -> {
+                if (!scheduledRetries.remove(task)) {
+                    return;
+                }
+                try {
+                    enqueue(medicationId, image, attempt);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }, retryDelay.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (RejectedExecutionException e) {
+            scheduledRetries.remove(task);
+            inFlight.decrementAndGet();
+            log.warn("Image upload retries are shut down, failing upload for medication {}", medicationId);
+            markFailed(medicationId);
+            return false;
+        }
+    }
+
+    private void abandon(UploadTask task) {
+        try {
+            delete(task.image);
+            markFailed(task.medicationId);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private static void delete(Path image) {
+        try {
+            Files.deleteIfExists(image);
+        } catch (IOException e) {
+            log.warn("Could not delete staged image {}: {}", image, e.getMessage());
+        }
+    }
+
+    private void markFailed(Long medicationId) {
+        try {
+            updatePending(medicationId, medication -> medication.setImageStatus(ImageStatus.FAILED));
+        } catch (Exception e) {
+            log.error("Could not mark image upload failed for medication {}: {}", medicationId, e.getMessage());
+        }
+    }
+
+    private boolean updatePending(Long medicationId, Consumer<Medication> update) {
+        for (int attempt = 1;; attempt++) {
+            try {
+                return Boolean.TRUE.equals(transactionTemplate.execute(status -> medicationRepository
+                        .findById(medicationId)
+                        .filter(medication -> medication.getImageStatus() == ImageStatus.PENDING)
+                        .map(medication -> {
+                            update.accept(medication);
+                            return true;
+                        })
+                        .orElse(false)));
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt == MAX_UPDATE_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Medication {} changed while recording its image upload, retrying", medicationId);
+            }
+        }
+    }
+
+    private final class UploadTask implements Runnable {
+
+        private final Long medicationId;
+        private final Path image;
+        private final int attempt;
+
+        private UploadTask(Long medicationId, Path image, int attempt) {
+            this.medicationId = medicationId;
+            this.image = image;
+            this.attempt = attempt;
+        }
+
+        @Override
+        public void run() {
+            boolean retrying = false;
+            try {
+                retrying = upload(medicationId, image, attempt);
+            } finally {
+                if (!retrying) {
+                    delete(image);
+                }
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
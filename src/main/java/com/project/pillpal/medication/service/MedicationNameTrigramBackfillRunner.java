@@ -0,0 +1,49 @@
+package com.project.pillpal.medication.service;
+
+import com.project.pillpal.medication.entity.Medication;
+import com.project.pillpal.medication.repository.MedicationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "medications.search.trigram-backfill-on-startup", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class MedicationNameTrigramBackfillRunner implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final MedicationRepository medicationRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        backfill();
+    }
+
+    public long backfill() {
+        long medications = 0;
+        Long afterId = 0L;
+        List<Long> ids;
+        while (!(ids = medicationRepository.findIdsMissingNameTrigramsAfter(afterId, PageRequest.ofSize(BATCH_SIZE)))
+                .isEmpty()) {
+            List<Long> batch = ids;
+            transactionTemplate.executeWithoutResult(status -> medicationRepository.findAllById(batch)
+                    .forEach(Medication::refreshNameTrigrams));
+            medications += ids.size();
+            afterId = ids.getLast();
+        }
+        if (medications > 0) {
+            log.info("Indexed name trigrams for {} medications", medications);
+        }
+        return medications;
+    }
+}
@@ -1,21 +1,38 @@
 package com.project.pillpal.medication.service;
 
 import com.project.pillpal.medication.dtos.CreateMedicationRequest;
+import com.project.pillpal.medication.dtos.CursorPageResponse;
+import com.project.pillpal.medication.dtos.MedicationCountResponse;
+import com.project.pillpal.medication.dtos.MedicationImageStatusResponse;
 import com.project.pillpal.medication.dtos.MedicationResponse;
 import com.project.pillpal.medication.dtos.MedicationStatusResponse;
+import com.project.pillpal.medication.dtos.MedicationSuggestionResponse;
+import com.project.pillpal.medication.dtos.NameMatch;
 import com.project.pillpal.medication.dtos.UpdateMedicationRequest;
 import com.project.pillpal.medication.entity.Medication;
 import com.project.pillpal.medication.mapper.MedicationMapper;
 import com.project.pillpal.medication.repository.MedicationRepository;
 import com.project.pillpal.user.entity.User;
 import com.project.pillpal.exceptions.ResourceNotFoundException;
+import com.project.pillpal.medicationintake.service.AdherenceService;
+import com.project.pillpal.medicationintake.service.DailyAdherenceService;
 import com.project.pillpal.reminder.service.ReminderService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.file.Path;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -27,35 +44,81 @@ public class MedicationService {
     private final MedicationImageService medicationImageService;
     private final MedicationStatusService medicationStatusService;
     private final ReminderService reminderService;
+    private final MedicationAutocompleteService medicationAutocompleteService;
+    private final AdherenceService adherenceService;
+    private final DailyAdherenceService dailyAdherenceService;
+    private final TransactionTemplate transactionTemplate;
 
     public List<MedicationResponse> getAllMedications() {
         log.info("Getting all medications");
-        List<Medication> medications = medicationRepository.findAll();
-        return medications.stream()
-                .map(medicationMapper::toResponse)
-                .collect(java.util.stream.Collectors.toList());
+        return medicationRepository.findAllResponses();
     }
 
     public List<MedicationResponse> getMedicationsByUserId(Long userId) {
         log.info("Getting medications for user {}", userId);
-        List<Medication> medications = medicationRepository.findByUserId(userId);
-        return medications.stream()
-                .map(medicationMapper::toResponse)
-                .collect(java.util.stream.Collectors.toList());
+        return medicationRepository.findResponsesByUserId(userId);
     }
 
     public List<MedicationResponse> getActiveMedications() {
         log.info("Getting active medications");
-        List<Medication> medications = medicationRepository.findByActiveTrue();
-        return medications.stream()
-                .map(medicationMapper::toResponse)
-                .collect(java.util.stream.Collectors.toList());
+        return medicationRepository.findActiveResponses();
+    }
+
+    public CursorPageResponse<MedicationResponse> getAllMedicationsPage(Long afterId, Integer size) {
+        log.info("Getting medications page after id {}", afterId);
+        int pageSize = CursorPageResponse.pageSize(size);
+        return toPage(medicationRepository.findResponsesAfter(
+                CursorPageResponse.afterId(afterId), fetchOneMore(pageSize)), pageSize);
+    }
+
+    public CursorPageResponse<MedicationResponse> getMedicationsByUserIdPage(Long userId, Long afterId,
+            Integer size) {
+        log.info("Getting medications page for user {} after id {}", userId, afterId);
+        int pageSize = CursorPageResponse.pageSize(size);
+        return toPage(medicationRepository.findResponsesByUserIdAfter(
+                userId, CursorPageResponse.afterId(afterId), fetchOneMore(pageSize)), pageSize);
+    }
+
+    public CursorPageResponse<MedicationResponse> getActiveMedicationsPage(Long afterId, Integer size) {
+        log.info("Getting active medications page after id {}", afterId);
+        int pageSize = CursorPageResponse.pageSize(size);
+        return toPage(medicationRepository.findActiveResponsesAfter(
+                CursorPageResponse.afterId(afterId), fetchOneMore(pageSize)), pageSize);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAllMedications(Consumer<MedicationResponse> consumer) {
+        log.info("Streaming all medications");
+        try (Stream<MedicationResponse> medications = medicationRepository.streamAllResponses()) {
+            medications.forEach(consumer);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void streamMedicationsByUserId(Long userId, Consumer<MedicationResponse> consumer) {
+        log.info("Streaming medications for user {}", userId);
+        try (Stream<MedicationResponse> medications = medicationRepository.streamResponsesByUserId(userId)) {
+            medications.forEach(consumer);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public void streamActiveMedications(Consumer<MedicationResponse> consumer) {
+        log.info("Streaming active medications");
+        try (Stream<MedicationResponse> medications = medicationRepository.streamActiveResponses()) {
+            medications.forEach(consumer);
+        }
+    }
+
+    public MedicationImageStatusResponse getMedicationImageStatus(Long id) {
+        log.debug("Getting image status for medication {}", id);
+        return medicationRepository.findImageStatusById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Medication not found with id: " + id));
     }
 
     public MedicationResponse getMedicationById(Long id) {
         log.info("Getting medication by id {}", id);
-        return medicationRepository.findById(id)
-                .map(medicationMapper::toResponse)
+        return medicationRepository.findResponseById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Medication not found with id: " + id));
     }
 
@@ -69,11 +132,19 @@ public class MedicationService {
             medication.setEndDate(null);
         }
 
-        if (image != null && !image.isEmpty()) {
-            medicationImageService.uploadImageForMedication(medication, image);
-        }
+        Path stagedImage = medicationImageService.stageImageForMedication(medication, image);
 
-        Medication savedMedication = medicationRepository.save(medication);
+        Medication savedMedication;
+        try {
+            savedMedication = medicationRepository.save(medication);
+        } catch (RuntimeException e) {
+            medicationImageService.discardStagedImage(stagedImage);
+            throw e;
+        }
+        medicationImageService.queueImageUpload(savedMedication.getId(), stagedImage);
+        Long userId = user.getId();
+        medicationAutocompleteService.invalidate(userId);
+        afterCommit(() -> adherenceService.invalidateUser(userId));
         log.info("Successfully created medication with id: {} for user: {}", savedMedication.getId(), user.getId());
 
         if (Boolean.TRUE.equals(request.createReminder())) {
@@ -97,33 +168,82 @@ public class MedicationService {
             User user) {
         log.info("Updating medication with id: {} for user: {}", id, user.getId());
 
-        Medication medication = medicationRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Medication not found with id: " + id));
+        boolean hasImage = image != null && !image.isEmpty();
+        String imageUrl = null;
+        if (hasImage) {
+            checkUpdatable(findMedication(id), request, user);
+            imageUrl = medicationImageService.storeImage(id, image);
+        }
 
-        if (medication.getUser() == null) {
-            medication.setUser(user);
+        String storedImageUrl = imageUrl;
+        try {
+            return transactionTemplate.execute(status -> applyUpdate(id, request, hasImage, storedImageUrl, user));
+        } catch (RuntimeException e) {
+            medicationImageService.releaseImage(storedImageUrl);
+            throw e;
         }
+    }
 
-        if (!medication.getUser().getId().equals(user.getId())) {
-            throw new com.project.pillpal.exceptions.UnauthorizedAccessException(
-                    "You are not authorized to update this medication");
+    private MedicationResponse applyUpdate(Long id, UpdateMedicationRequest request, boolean hasImage,
+            String imageUrl, User user) {
+        Medication medication = findMedication(id);
+
+        if (medication.getUser() == null) {
+            medication.setUser(user);
         }
+        checkUpdatable(medication, request, user);
 
         medicationMapper.updateEntity(medication, request);
 
-        if (image != null && !image.isEmpty()) {
-            medicationImageService.updateImageForMedication(medication, image);
+        if (imageUrl != null) {
+            medicationImageService.replaceImage(medication, imageUrl);
         }
 
-        medicationRepository.save(medication);
+        Medication savedMedication = medicationRepository.saveAndFlush(medication);
+        Long ownerId = savedMedication.getUser().getId();
+        medicationAutocompleteService.invalidate(ownerId);
+        afterCommit(() -> adherenceService.invalidateUser(ownerId));
+        reminderService.rescheduleForMedication(id);
         log.info("Successfully updated medication with id: {} for user: {}", id, user.getId());
 
-        Medication refreshedMedication = medicationRepository.findById(id)
+        MedicationResponse response = medicationMapper.toResponse(savedMedication);
+        if (hasImage && imageUrl == null) {
+            log.warn("Updated medication with id: {} without its new image, Cloudinary is unavailable", id);
+            return response.withImageUpdateSkipped();
+        }
+        return response;
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private Medication findMedication(Long id) {
+        return medicationRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Medication not found with id: " + id));
+    }
+
+    private static void checkUpdatable(Medication medication, UpdateMedicationRequest request, User user) {
+        if (medication.getUser() != null && !medication.getUser().getId().equals(user.getId())) {
+            throw new com.project.pillpal.exceptions.UnauthorizedAccessException(
+                    "You are not authorized to update this medication");
+        }
 
-        return medicationMapper.toResponse(refreshedMedication);
+        if (request.version() != null && !request.version().equals(medication.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Medication.class, medication.getId());
+        }
     }
 
+    @Transactional
     public void deleteMedication(Long id, User user) {
         log.info("Deleting medication with id: {} for user: {}", id, user.getId());
 
@@ -138,17 +258,19 @@ public class MedicationService {
         medicationImageService.deleteImageFromMedication(medication);
 
         medicationRepository.delete(medication);
+        dailyAdherenceService.deleteForMedication(id);
+        reminderService.rescheduleForMedication(id);
+        Long ownerId = medication.getUser().getId();
+        medicationAutocompleteService.invalidate(ownerId);
+        afterCommit(() -> adherenceService.forgetMedication(id, ownerId));
         log.info("Successfully deleted medication with id: {} for user: {}", id, user.getId());
     }
 
     public List<MedicationResponse> getMedicationsByUserAndActive(Long userId, boolean active) {
         log.info("Getting medications for user {} with active status: {}", userId, active);
-        List<Medication> medications = active
-                ? medicationRepository.findByUserIdAndActiveTrue(userId)
-                : medicationRepository.findByUserId(userId);
-        return medications.stream()
-                .map(medicationMapper::toResponse)
-                .collect(java.util.stream.Collectors.toList());
+        return active
+                ? medicationRepository.findActiveResponsesByUserId(userId)
+                : medicationRepository.findResponsesByUserId(userId);
     }
 
     public boolean existsById(Long id) {
@@ -163,23 +285,79 @@ public class MedicationService {
 
     public long countByUserId(Long userId) {
         log.debug("Counting medications for user: {}", userId);
-        return medicationRepository.findByUserId(userId).size();
+        return medicationRepository.countByUserId(userId);
     }
 
-    public List<MedicationResponse> searchMedicationsByName(String name) {
-        log.info("Searching medications by name: {}", name);
-        List<Medication> medications = medicationRepository.findByNameContainingIgnoreCase(name);
-        return medications.stream()
-                .map(medicationMapper::toResponse)
-                .collect(java.util.stream.Collectors.toList());
+    public long countActiveByUserId(Long userId) {
+        log.debug("Counting active medications for user: {}", userId);
+        return medicationRepository.countByUserIdAndActiveTrue(userId);
     }
 
-    public List<MedicationResponse> searchMedicationsByUserIdAndName(Long userId, String name) {
-        log.info("Searching medications for user {} by name: {}", userId, name);
-        List<Medication> medications = medicationRepository.findByUserIdAndNameContainingIgnoreCase(userId, name);
-        return medications.stream()
-                .map(medicationMapper::toResponse)
-                .collect(java.util.stream.Collectors.toList());
+    public MedicationCountResponse getMedicationCounts() {
+        log.info("Getting medication counts");
+        return MedicationCountResponse.from(medicationRepository.countGroupedByLifetimeAndActive());
+    }
+
+    public MedicationCountResponse getMedicationCountsByUserId(Long userId) {
+        log.info("Getting medication counts for user {}", userId);
+        return MedicationCountResponse.from(medicationRepository.countByUserIdGroupedByLifetimeAndActive(userId));
+    }
+
+    public List<MedicationResponse> searchMedicationsByName(String name, NameMatch match) {
+        log.info("Searching medications by name ({}): {}", match, name);
+        return findResponsesByName(null, name, match, 0L, Pageable.unpaged());
+    }
+
+    public List<MedicationResponse> searchMedicationsByUserIdAndName(Long userId, String name, NameMatch match) {
+        log.info("Searching medications for user {} by name ({}): {}", userId, match, name);
+        return findResponsesByName(userId, name, match, 0L, Pageable.unpaged());
+    }
+
+    public CursorPageResponse<MedicationResponse> searchMedicationsByNamePage(String name, NameMatch match,
+            Long afterId, Integer size) {
+        log.info("Searching medications page by name ({}): {} after id {}", match, name, afterId);
+        int pageSize = CursorPageResponse.pageSize(size);
+        return toPage(findResponsesByName(null, name, match, CursorPageResponse.afterId(afterId),
+                fetchOneMore(pageSize)), pageSize);
+    }
+
+    public CursorPageResponse<MedicationResponse> searchMedicationsByUserIdAndNamePage(Long userId, String name,
+            NameMatch match, Long afterId, Integer size) {
+        log.info("Searching medications page for user {} by name ({}): {} after id {}", userId, match, name,
+                afterId);
+        int pageSize = CursorPageResponse.pageSize(size);
+        return toPage(findResponsesByName(userId, name, match, CursorPageResponse.afterId(afterId),
+                fetchOneMore(pageSize)), pageSize);
+    }
+
+    private List<MedicationResponse> findResponsesByName(Long userId, String name, NameMatch match, Long afterId,
+            Pageable pageable) {
+        String term = Medication.normalizeName(name);
+        String escaped = escapeLike(term);
+        if (match == NameMatch.PREFIX || term.length() < Medication.TRIGRAM_LENGTH) {
+            String pattern = match == NameMatch.PREFIX ? escaped + "%" : "%" + escaped + "%";
+            return userId == null
+                    ? medicationRepository.findResponsesByNameLikeAfter(pattern, afterId, pageable)
+                    : medicationRepository.findResponsesByUserIdAndNameLikeAfter(userId, pattern, afterId,
+                            pageable);
+        }
+
+        String trigram = term.substring(0, Medication.TRIGRAM_LENGTH);
+        String pattern = "%" + escaped + "%";
+        return userId == null
+                ? medicationRepository.findResponsesByNameTrigramAndNameLikeAfter(trigram, pattern, afterId,
+                        pageable)
+                : medicationRepository.findResponsesByUserIdAndNameTrigramAndNameLikeAfter(userId, trigram,
+                        pattern, afterId, pageable);
+    }
+
+    static String escapeLike(String term) {
+        return term.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    public List<MedicationSuggestionResponse> autocompleteMedicationNames(Long userId, String prefix, Integer limit) {
+        log.debug("Autocompleting medication names for user {} with prefix: {}", userId, prefix);
+        return medicationAutocompleteService.suggest(userId, prefix, limit);
     }
 
     public List<MedicationStatusResponse> getMedicationsByTimeOfDay() {
@@ -187,9 +365,25 @@ public class MedicationService {
         return medicationStatusService.getMedicationsByTimeOfDay();
     }
 
+    public CursorPageResponse<MedicationStatusResponse> getMedicationsByTimeOfDayForUser(Long userId, Long afterId,
+            Integer size) {
+        log.info("Getting medications status by time of day for user {}", userId);
+        return medicationStatusService.getMedicationsByTimeOfDayForUser(userId, afterId, size);
+    }
+
     public MedicationStatusResponse getMedicationStatusById(Long medicationId) {
         log.info("Getting medication status by id {}", medicationId);
         return medicationStatusService.getMedicationStatusById(medicationId);
     }
 
-}
\ No newline at end of file
+    private Pageable fetchOneMore(int pageSize) {
+        return PageRequest.ofSize(pageSize + 1);
+    }
+
+    private CursorPageResponse<MedicationResponse> toPage(List<MedicationResponse> medications, int pageSize) {
+        boolean hasMore = medications.size() > pageSize;
+        List<MedicationResponse> items = hasMore ? medications.subList(0, pageSize) : medications;
+        return CursorPageResponse.of(items, hasMore, MedicationResponse::id);
+    }
+
+}
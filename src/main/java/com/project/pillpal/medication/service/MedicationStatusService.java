@@ -1,5 +1,6 @@
 package com.project.pillpal.medication.service;
 
+import com.project.pillpal.medication.dtos.CursorPageResponse;
 import com.project.pillpal.medication.dtos.MedicationStatusResponse;
 import com.project.pillpal.medication.entity.Medication;
 import com.project.pillpal.medication.repository.MedicationRepository;
@@ -9,13 +10,15 @@ import com.project.pillpal.medicationintake.entity.Status;
 import com.project.pillpal.medicationintake.service.MedicationIntakeService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -29,13 +32,21 @@ public class MedicationStatusService {
         log.info("Getting medications status by time of day");
 
         List<Medication> activeMedications = medicationRepository.findByActiveTrue();
-        LocalDate today = LocalDate.now();
-        LocalDateTime startOfDay = today.atStartOfDay();
-        LocalDateTime endOfDay = today.atTime(LocalTime.MAX);
+        return buildMedicationStatusResponses(activeMedications);
+    }
 
-        return activeMedications.stream()
-                .map(medication -> buildMedicationStatusResponse(medication, startOfDay, endOfDay))
-                .collect(java.util.stream.Collectors.toList());
+    public CursorPageResponse<MedicationStatusResponse> getMedicationsByTimeOfDayForUser(Long userId, Long afterId,
+            Integer size) {
+        log.info("Getting medications status by time of day for user {} after id {}", userId, afterId);
+
+        int pageSize = CursorPageResponse.pageSize(size);
+        List<Medication> medications = medicationRepository.findByUserIdAndActiveTrueAndIdGreaterThanOrderByIdAsc(
+                userId, CursorPageResponse.afterId(afterId), PageRequest.ofSize(pageSize + 1));
+
+        boolean hasMore = medications.size() > pageSize;
+        List<Medication> page = hasMore ? medications.subList(0, pageSize) : medications;
+        return CursorPageResponse.of(buildMedicationStatusResponses(page), hasMore,
+                MedicationStatusResponse::medicationId);
     }
 
     public MedicationStatusResponse getMedicationStatusById(Long medicationId) {
@@ -47,29 +58,51 @@ public class MedicationStatusService {
         LocalDate today = LocalDate.now();
         LocalDateTime startOfDay = today.atStartOfDay();
         LocalDateTime endOfDay = today.atTime(LocalTime.MAX);
-        return buildMedicationStatusResponse(medication, startOfDay, endOfDay);
+        List<MedicationIntake> todayIntakes = medicationIntakeService
+                .getIntakesByMedicationIdAndDateRange(medication.getId(), startOfDay, endOfDay);
+        return buildMedicationStatusResponse(medication, todayIntakes);
     }
 
-    private MedicationStatusResponse buildMedicationStatusResponse(Medication medication,
-            LocalDateTime startOfDay,
-            LocalDateTime endOfDay) {
-        log.debug("Building status response for medication {}", medication.getId());
+    private List<MedicationStatusResponse> buildMedicationStatusResponses(List<Medication> medications) {
+        if (medications.isEmpty()) {
+            return new ArrayList<>();
+        }
 
-        List<MedicationIntake> todayIntakes = medicationIntakeService
-                .getIntakesByMedicationIdAndDateRange(medication.getId(), startOfDay, endOfDay);
+        LocalDate today = LocalDate.now();
+        LocalDateTime startOfDay = today.atStartOfDay();
+        LocalDateTime endOfDay = today.atTime(LocalTime.MAX);
+
+        List<Long> medicationIds = medications.stream()
+                .map(Medication::getId)
+                .toList();
+        Map<Long, List<MedicationIntake>> intakesByMedication = medicationIntakeService
+                .getIntakesByMedicationIdsAndDateRange(medicationIds, startOfDay, endOfDay);
+
+        return medications.stream()
+                .map(medication -> buildMedicationStatusResponse(medication,
+                        intakesByMedication.getOrDefault(medication.getId(), List.of())))
+                .collect(java.util.stream.Collectors.toList());
+    }
 
-        String status = determineStatus(todayIntakes);
+    private MedicationStatusResponse buildMedicationStatusResponse(Medication medication,
+            List<MedicationIntake> todayIntakes) {
+        log.debug("Building status response for medication {}", medication.getId());
 
-        List<MedicationIntakeResponse> intakeResponses = todayIntakes.stream()
-                .map(this::mapToIntakeResponse)
-                .collect(Collectors.toList());
+        List<MedicationIntakeResponse> intakeResponses = new ArrayList<>(todayIntakes.size());
+        boolean hasTaken = false;
+        boolean hasSkipped = false;
+        for (MedicationIntake intake : todayIntakes) {
+            hasTaken |= intake.getStatus() == Status.TAKEN;
+            hasSkipped |= intake.getStatus() == Status.SKIPPED;
+            intakeResponses.add(mapToIntakeResponse(intake));
+        }
 
         return new MedicationStatusResponse(
                 medication.getId(),
                 medication.getName(),
                 medication.getDosage(),
                 null,
-                status,
+                determineStatus(hasTaken, hasSkipped),
                 intakeResponses,
                 medication.getActive());
     }
@@ -82,21 +115,11 @@ public class MedicationStatusService {
                 intake.getMedication().getId());
     }
 
-    private String determineStatus(List<MedicationIntake> todayIntakes) {
-        if (todayIntakes.isEmpty()) {
-            return "pending";
-        }
-
-        boolean hasTaken = todayIntakes.stream()
-                .anyMatch(intake -> intake.getStatus() == Status.TAKEN);
-
+    private String determineStatus(boolean hasTaken, boolean hasSkipped) {
         if (hasTaken) {
             return "taken";
         }
 
-        boolean hasSkipped = todayIntakes.stream()
-                .anyMatch(intake -> intake.getStatus() == Status.SKIPPED);
-
         if (hasSkipped) {
             return "skipped";
         }
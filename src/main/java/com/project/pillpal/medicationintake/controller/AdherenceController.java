@@ -0,0 +1,63 @@
+package com.project.pillpal.medicationintake.controller;
+
+import com.project.pillpal.medicationintake.dto.AdherenceResponse;
+import com.project.pillpal.medicationintake.dto.MedicationAdherenceResponse;
+import com.project.pillpal.medicationintake.service.AdherenceService;
+import com.project.pillpal.user.TestUserUtils;
+import com.project.pillpal.user.entity.User;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/intakes/adherence")
+@RequiredArgsConstructor
+@Tag(name = "Medication Adherence", description = "API for medication adherence analytics")
+@Slf4j
+public class AdherenceController {
+
+    private final AdherenceService adherenceService;
+    private final TestUserUtils testUserUtils;
+
+    @GetMapping("/me")
+    @Operation(summary = "Get adherence for current user", description = "Returns adherence rate, missed doses and streaks for the authenticated user and each of their medications over the inclusive [from, to] window. Defaults to the last 30 days; windows may span at most 366 days")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Adherence obtained", content = @Content(schema = @Schema(implementation = AdherenceResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid window")
+    })
+    public ResponseEntity<AdherenceResponse> getAdherenceForCurrentUser(
+            @Parameter(description = "First day of the window (ISO date)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day of the window (ISO date), defaults to today") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.info("Received request to get adherence for current user between {} and {}", from, to);
+        User authenticatedUser = testUserUtils.getTestUser();
+        return ResponseEntity.ok(adherenceService.getUserAdherence(authenticatedUser.getId(), from, to));
+    }
+
+    @GetMapping("/me/medication/{medicationId}")
+    @Operation(summary = "Get adherence for a medication", description = "Returns adherence rate, missed doses and streaks for one of the authenticated user's medications over the inclusive [from, to] window")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Adherence obtained", content = @Content(schema = @Schema(implementation = MedicationAdherenceResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid window"),
+            @ApiResponse(responseCode = "404", description = "Medication not found for the user")
+    })
+    public ResponseEntity<MedicationAdherenceResponse> getMedicationAdherenceForCurrentUser(
+            @PathVariable Long medicationId,
+            @Parameter(description = "First day of the window (ISO date)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Last day of the window (ISO date), defaults to today") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        log.info("Received request to get adherence for medication {} between {} and {}", medicationId, from, to);
+        User authenticatedUser = testUserUtils.getTestUser();
+        return ResponseEntity.ok(adherenceService.getMedicationAdherence(authenticatedUser.getId(), medicationId,
+                from, to));
+    }
+}
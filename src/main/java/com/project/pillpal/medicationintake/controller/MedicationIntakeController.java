@@ -1,15 +1,19 @@
 package com.project.pillpal.medicationintake.controller;
 
+import com.project.pillpal.medication.dtos.CursorPageResponse;
 import com.project.pillpal.medicationintake.dto.CreateMedicationIntakeRequest;
+import com.project.pillpal.medicationintake.dto.IntakeHistoryPageResponse;
 import com.project.pillpal.medicationintake.dto.MedicationIntakeResponse;
 import com.project.pillpal.medicationintake.entity.MedicationIntake;
 import com.project.pillpal.medicationintake.entity.Status;
 import com.project.pillpal.medicationintake.mapper.MedicationIntakeMapper;
+import com.project.pillpal.medicationintake.service.IdempotencyScope;
 import com.project.pillpal.medicationintake.service.MedicationIntakeService;
 import com.project.pillpal.user.TestUserUtils;
 import com.project.pillpal.user.entity.User;
 import com.project.pillpal.exceptions.ResourceNotFoundException;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -17,9 +21,12 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -30,34 +37,84 @@ import java.util.stream.Collectors;
 @Slf4j
 public class MedicationIntakeController {
 
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final String DEPRECATION_HEADER = "Deprecation";
+
     private final MedicationIntakeService medicationIntakeService;
     private final MedicationIntakeMapper medicationIntakeMapper;
     private final TestUserUtils testUserUtils;
 
     @PostMapping(consumes = "application/json")
-    @Operation(summary = "Create intake", description = "Creates a medication intake record with given status")
+    @Operation(summary = "Create intake", description = "Creates a medication intake record with given status. Retries sent with the same Idempotency-Key header return the original intake, a key reused with a different payload is rejected with 422")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Intake created", content = @Content(schema = @Schema(implementation = MedicationIntakeResponse.class)))
     })
-    public ResponseEntity<MedicationIntakeResponse> createIntake(@RequestBody CreateMedicationIntakeRequest request) {
+    public ResponseEntity<MedicationIntakeResponse> createIntake(@RequestBody CreateMedicationIntakeRequest request,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         log.info("Received request to create intake for medication {} with status {}", request.medicationId(),
                 request.status());
         Status status = Status.valueOf(request.status());
-        MedicationIntake intake = medicationIntakeService.createIntake(request.medicationId(), status);
+        User authenticatedUser = testUserUtils.getTestUser();
+        MedicationIntake intake = medicationIntakeService.createIntake(authenticatedUser.getId(),
+                IdempotencyScope.CREATE, request.medicationId(), status, request.dateTime(), idempotencyKey);
         return ResponseEntity.ok(medicationIntakeMapper.toResponse(intake));
     }
 
-    @GetMapping("/me")
-    @Operation(summary = "Get all intakes for current user", description = "Returns all intake records for the authenticated user, ordered by date descending")
-    public ResponseEntity<List<MedicationIntakeResponse>> getAllIntakesForCurrentUser() {
-        log.info("Received request to get all intake history for current user");
+    @PostMapping(value = "/batch", consumes = "application/json")
+    @Operation(summary = "Create intakes in bulk", description = "Records up to 500 intakes for the authenticated user's medications in one request, e.g. when an offline client syncs. Each item may carry the client-side dateTime. Retrying with the same Idempotency-Key header returns the already recorded intakes, a key reused with a different payload is rejected with 422")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Intakes created", content = @Content(schema = @Schema(implementation = MedicationIntakeResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Empty, oversized or invalid batch"),
+            @ApiResponse(responseCode = "404", description = "A medication does not exist or does not belong to the user")
+    })
+    public ResponseEntity<List<MedicationIntakeResponse>> createIntakes(
+            @RequestBody List<CreateMedicationIntakeRequest> requests,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        log.info("Received request to create {} intakes", requests.size());
         User authenticatedUser = testUserUtils.getTestUser();
-        List<MedicationIntake> intakes = medicationIntakeService.getAllIntakesForUser(authenticatedUser.getId());
+        List<MedicationIntake> intakes = medicationIntakeService.createIntakes(authenticatedUser.getId(), requests,
+                idempotencyKey);
         List<MedicationIntakeResponse> responses = intakes.stream().map(medicationIntakeMapper::toResponse)
                 .collect(Collectors.toList());
         return ResponseEntity.ok(responses);
     }
 
+    @GetMapping("/me")
+    @Operation(summary = "Get recent intakes for current user", deprecated = true, description = "Deprecated, use /me/history. Returns the authenticated user's most recent intakes, newest first, capped at limit. When older intakes exist, a Link header with rel=\"next\" points at the /me/history page that continues the list")
+    public ResponseEntity<List<MedicationIntakeResponse>> getAllIntakesForCurrentUser(
+            @Parameter(description = "Maximum number of intakes (default 100, max 100)") @RequestParam(required = false) Integer limit) {
+        log.info("Received request to get recent intakes for current user, limit {}", limit);
+        User authenticatedUser = testUserUtils.getTestUser();
+        IntakeHistoryPageResponse page = medicationIntakeService.getIntakeHistoryForUser(authenticatedUser.getId(),
+                null, null, null, null, limit != null ? limit : CursorPageResponse.MAX_PAGE_SIZE);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().header(DEPRECATION_HEADER, "true");
+        if (page.hasMore()) {
+            response.header(HttpHeaders.LINK, "</api/intakes/me/history?beforeDateTime=" + page.nextBeforeDateTime()
+                    + "&beforeId=" + page.nextBeforeId() + ">; rel=\"next\"");
+        }
+        return response.body(page.items());
+    }
+
+    @GetMapping("/me/history")
+    @Operation(summary = "Get intake history page for current user", description = "Returns a page of the authenticated user's intakes within [from, to), newest first. Pass the returned nextBeforeDateTime and nextBeforeId to fetch the next page")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Intake history page obtained", content = @Content(schema = @Schema(implementation = IntakeHistoryPageResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid range or cursor")
+    })
+    public ResponseEntity<IntakeHistoryPageResponse> getIntakeHistoryForCurrentUser(
+            @Parameter(description = "Inclusive start of the range (ISO date-time)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "Exclusive end of the range (ISO date-time)") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @Parameter(description = "Cursor: dateTime of the last intake of the previous page") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime beforeDateTime,
+            @Parameter(description = "Cursor: id of the last intake of the previous page") @RequestParam(required = false) Long beforeId,
+            @Parameter(description = "Page size (default 20, max 100)") @RequestParam(required = false) Integer size) {
+        log.info("Received request to get intake history page for current user before ({}, {})", beforeDateTime,
+                beforeId);
+        User authenticatedUser = testUserUtils.getTestUser();
+        IntakeHistoryPageResponse response = medicationIntakeService.getIntakeHistoryForUser(
+                authenticatedUser.getId(), from, to, beforeDateTime, beforeId, size);
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/medication/{medicationId}")
     @Operation(summary = "Get intakes by medication", description = "Returns intake history for a specific medication")
     public ResponseEntity<List<MedicationIntakeResponse>> getIntakesByMedication(@PathVariable Long medicationId) {
@@ -72,18 +129,24 @@ public class MedicationIntakeController {
     }
 
     @PostMapping("/{medicationId}/taken")
-    @Operation(summary = "Mark medication as taken", description = "Quick action to mark medication as taken")
-    public ResponseEntity<MedicationIntakeResponse> markAsTaken(@PathVariable Long medicationId) {
+    @Operation(summary = "Mark medication as taken", description = "Quick action to mark medication as taken. Retries sent with the same Idempotency-Key header return the original intake, a key reused with a different payload is rejected with 422")
+    public ResponseEntity<MedicationIntakeResponse> markAsTaken(@PathVariable Long medicationId,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         log.info("Received request to mark medication {} as taken", medicationId);
-        MedicationIntake intake = medicationIntakeService.createIntake(medicationId, Status.TAKEN);
+        User authenticatedUser = testUserUtils.getTestUser();
+        MedicationIntake intake = medicationIntakeService.createIntake(authenticatedUser.getId(),
+                IdempotencyScope.TAKEN, medicationId, Status.TAKEN, null, idempotencyKey);
         return ResponseEntity.ok(medicationIntakeMapper.toResponse(intake));
     }
 
     @PostMapping("/{medicationId}/skipped")
-    @Operation(summary = "Mark medication as skipped", description = "Quick action to mark medication as skipped")
-    public ResponseEntity<MedicationIntakeResponse> markAsSkipped(@PathVariable Long medicationId) {
+    @Operation(summary = "Mark medication as skipped", description = "Quick action to mark medication as skipped. Retries sent with the same Idempotency-Key header return the original intake, a key reused with a different payload is rejected with 422")
+    public ResponseEntity<MedicationIntakeResponse> markAsSkipped(@PathVariable Long medicationId,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
         log.info("Received request to mark medication {} as skipped", medicationId);
-        MedicationIntake intake = medicationIntakeService.createIntake(medicationId, Status.SKIPPED);
+        User authenticatedUser = testUserUtils.getTestUser();
+        MedicationIntake intake = medicationIntakeService.createIntake(authenticatedUser.getId(),
+                IdempotencyScope.SKIPPED, medicationId, Status.SKIPPED, null, idempotencyKey);
         return ResponseEntity.ok(medicationIntakeMapper.toResponse(intake));
     }
 }
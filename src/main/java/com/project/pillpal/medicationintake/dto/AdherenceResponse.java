@@ -0,0 +1,18 @@
+package com.project.pillpal.medicationintake.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public record AdherenceResponse(
+        Long userId,
+        LocalDate from,
+        LocalDate to,
+        long expectedDoses,
+        long takenDoses,
+        long skippedDoses,
+        long missedDoses,
+        Double adherenceRate,
+        int currentStreak,
+        int longestStreak,
+        List<MedicationAdherenceResponse> medications) {
+}
@@ -0,0 +1,16 @@
+package com.project.pillpal.medicationintake.dto;
+
+import com.project.pillpal.reminder.entity.Frequency;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+public record AdherenceScheduleRow(
+        Long userId,
+        Long medicationId,
+        String medicationName,
+        LocalDate startDate,
+        LocalDate endDate,
+        Frequency frequency,
+        LocalTime time) {
+}
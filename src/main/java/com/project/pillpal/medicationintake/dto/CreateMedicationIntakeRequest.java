@@ -2,7 +2,10 @@ package com.project.pillpal.medicationintake.dto;
 
 import jakarta.validation.constraints.NotNull;
 
+import java.time.LocalDateTime;
+
 public record CreateMedicationIntakeRequest(
         @NotNull Long medicationId,
-        @NotNull String status) {
+        @NotNull String status,
+        LocalDateTime dateTime) {
 }
@@ -0,0 +1,12 @@
+package com.project.pillpal.medicationintake.dto;
+
+import com.project.pillpal.medicationintake.entity.Status;
+
+import java.time.LocalDate;
+
+public record DailyIntakeCount(
+        Long medicationId,
+        LocalDate day,
+        Status status,
+        Long count) {
+}
@@ -0,0 +1,10 @@
+package com.project.pillpal.medicationintake.dto;
+
+import java.util.List;
+
+public record IntakeHistoryPageResponse(
+        List<MedicationIntakeResponse> items,
+        String nextBeforeDateTime,
+        Long nextBeforeId,
+        boolean hasMore) {
+}
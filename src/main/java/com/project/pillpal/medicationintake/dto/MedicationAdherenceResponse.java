@@ -0,0 +1,17 @@
+package com.project.pillpal.medicationintake.dto;
+
+import java.time.LocalDate;
+
+public record MedicationAdherenceResponse(
+        Long medicationId,
+        String medicationName,
+        LocalDate from,
+        LocalDate to,
+        long expectedDoses,
+        long takenDoses,
+        long skippedDoses,
+        long missedDoses,
+        Double adherenceRate,
+        int currentStreak,
+        int longestStreak) {
+}
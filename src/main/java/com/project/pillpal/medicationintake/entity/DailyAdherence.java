@@ -0,0 +1,40 @@
+package com.project.pillpal.medicationintake.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "daily_adherence", indexes = {
+        @Index(name = "uk_daily_adherence_medication_date", columnList = "medication_id, intake_date", unique = true),
+        @Index(name = "idx_daily_adherence_user_date", columnList = "user_id, intake_date")
+})
+public class DailyAdherence {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "medication_id", nullable = false)
+    private Long medicationId;
+
+    @Column(name = "intake_date", nullable = false)
+    private LocalDate intakeDate;
+
+    @Column(nullable = false)
+    private int taken;
+
+    @Column(nullable = false)
+    private int skipped;
+
+    @Column(nullable = false)
+    private int expected;
+}
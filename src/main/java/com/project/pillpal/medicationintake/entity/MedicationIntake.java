@@ -12,10 +12,14 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "medication_intakes")
+@Table(name = "medication_intakes", indexes = {
+        @Index(name = "uk_medication_intakes_idempotency_key", columnList = "idempotency_key", unique = true),
+        @Index(name = "idx_medication_intakes_medication_date_time", columnList = "medication_id, date_time")
+})
 public class MedicationIntake {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "medication_intakes_seq")
+    @SequenceGenerator(name = "medication_intakes_seq", sequenceName = "medication_intakes_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "date_time", nullable = false)
@@ -28,4 +32,7 @@ public class MedicationIntake {
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "medication_id", nullable = false)
     private Medication medication;
+
+    @Column(name = "idempotency_key", length = 128)
+    private String idempotencyKey;
 }
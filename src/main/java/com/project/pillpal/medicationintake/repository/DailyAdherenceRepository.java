@@ -0,0 +1,47 @@
+package com.project.pillpal.medicationintake.repository;
+
+import com.project.pillpal.medicationintake.entity.DailyAdherence;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface DailyAdherenceRepository extends JpaRepository<DailyAdherence, Long> {
+
+    String NATIVE_SPACES_HINT = "org.hibernate.query.native.spaces";
+
+    List<DailyAdherence> findByUserIdAndIntakeDateBetween(Long userId, LocalDate from, LocalDate to);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES_HINT, value = "daily_adherence"))
+    @Query(value = "INSERT INTO daily_adherence (user_id, medication_id, intake_date, taken, skipped, expected) "
+            + "VALUES (:userId, :medicationId, :intakeDate, :taken, :skipped, :expected) "
+            + "ON DUPLICATE KEY UPDATE taken = taken + VALUES(taken), skipped = skipped + VALUES(skipped), "
+            + "expected = VALUES(expected)", nativeQuery = true)
+    int addCounts(@Param("userId") Long userId, @Param("medicationId") Long medicationId,
+            @Param("intakeDate") LocalDate intakeDate, @Param("taken") int taken, @Param("skipped") int skipped,
+            @Param("expected") int expected);
+
+    @Modifying
+    @QueryHints(@QueryHint(name = NATIVE_SPACES_HINT, value = "daily_adherence"))
+    @Query(value = "INSERT INTO daily_adherence (user_id, medication_id, intake_date, taken, skipped, expected) "
+            + "VALUES (:userId, :medicationId, :intakeDate, :taken, :skipped, :expected) "
+            + "ON DUPLICATE KEY UPDATE taken = VALUES(taken), skipped = VALUES(skipped), "
+            + "expected = VALUES(expected)", nativeQuery = true)
+    int replaceCounts(@Param("userId") Long userId, @Param("medicationId") Long medicationId,
+            @Param("intakeDate") LocalDate intakeDate, @Param("taken") int taken, @Param("skipped") int skipped,
+            @Param("expected") int expected);
+
+    @Modifying
+    @Query("DELETE FROM DailyAdherence d WHERE d.medicationId = :medicationId")
+    int deleteByMedicationId(@Param("medicationId") Long medicationId);
+
+    @Query("SELECT DISTINCT m.user.id FROM Medication m WHERE m.user.id > :afterUserId ORDER BY m.user.id")
+    List<Long> findUserIdsWithMedicationsAfter(@Param("afterUserId") Long afterUserId, Pageable pageable);
+}
@@ -1,10 +1,17 @@
 package com.project.pillpal.medicationintake.repository;
 
+import com.project.pillpal.medicationintake.dto.AdherenceScheduleRow;
+import com.project.pillpal.medicationintake.dto.DailyIntakeCount;
 import com.project.pillpal.medicationintake.entity.MedicationIntake;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface MedicationIntakeRepository extends JpaRepository<MedicationIntake, Long> {
     List<MedicationIntake> findByMedicationId(Long medicationId);
@@ -12,5 +19,39 @@ public interface MedicationIntakeRepository extends JpaRepository<MedicationInta
     List<MedicationIntake> findByMedicationIdAndDateTimeBetween(Long medicationId, LocalDateTime start,
             LocalDateTime end);
 
-    List<MedicationIntake> findByMedicationUserIdOrderByDateTimeDesc(Long userId);
+    List<MedicationIntake> findByMedicationIdInAndDateTimeBetween(Collection<Long> medicationIds, LocalDateTime start,
+            LocalDateTime end);
+
+    @Query("SELECT i FROM MedicationIntake i WHERE i.medication.user.id = :userId AND i.dateTime >= :from "
+            + "AND (i.dateTime < :beforeDateTime OR (i.dateTime = :beforeDateTime AND i.id < :beforeId)) "
+            + "ORDER BY i.dateTime DESC, i.id DESC")
+    List<MedicationIntake> findHistoryPageByUserId(@Param("userId") Long userId, @Param("from") LocalDateTime from,
+            @Param("beforeDateTime") LocalDateTime beforeDateTime, @Param("beforeId") Long beforeId,
+            Pageable pageable);
+
+    @Query("SELECT new com.project.pillpal.medicationintake.dto.DailyIntakeCount("
+            + "i.medication.id, cast(i.dateTime as LocalDate), i.status, COUNT(i)) "
+            + "FROM MedicationIntake i WHERE i.medication.user.id = :userId "
+            + "AND i.dateTime >= :from AND i.dateTime < :to "
+            + "GROUP BY i.medication.id, cast(i.dateTime as LocalDate), i.status")
+    List<DailyIntakeCount> countDailyByUserId(@Param("userId") Long userId, @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to);
+
+    String SELECT_ADHERENCE_SCHEDULE = "SELECT new com.project.pillpal.medicationintake.dto.AdherenceScheduleRow("
+            + "m.user.id, m.id, m.name, m.startDate, m.endDate, r.frequency, r.time) "
+            + "FROM Medication m LEFT JOIN m.reminders r ON r.enabled = true ";
+
+    @Query(SELECT_ADHERENCE_SCHEDULE + "WHERE m.user.id = :userId ORDER BY m.id")
+    List<AdherenceScheduleRow> findAdherenceSchedulesByUserId(@Param("userId") Long userId);
+
+    @Query(SELECT_ADHERENCE_SCHEDULE + "WHERE m.id = :medicationId")
+    List<AdherenceScheduleRow> findAdherenceSchedulesByMedicationId(@Param("medicationId") Long medicationId);
+
+    @Query(SELECT_ADHERENCE_SCHEDULE + "WHERE m.id IN :medicationIds ORDER BY m.id")
+    List<AdherenceScheduleRow> findAdherenceSchedulesByMedicationIdIn(
+            @Param("medicationIds") Collection<Long> medicationIds);
+
+    Optional<MedicationIntake> findByIdempotencyKey(String idempotencyKey);
+
+    List<MedicationIntake> findByIdempotencyKeyIn(Collection<String> idempotencyKeys);
 }
@@ -0,0 +1,279 @@
+package com.project.pillpal.medicationintake.service;
+
+import com.project.pillpal.exceptions.ResourceNotFoundException;
+import com.project.pillpal.medicationintake.dto.AdherenceResponse;
+import com.project.pillpal.medicationintake.dto.MedicationAdherenceResponse;
+import com.project.pillpal.medicationintake.entity.DailyAdherence;
+import com.project.pillpal.medicationintake.repository.DailyAdherenceRepository;
+import com.project.pillpal.medicationintake.repository.MedicationIntakeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AdherenceService {
+
+    public static final int DEFAULT_WINDOW_DAYS = 30;
+    public static final int MAX_WINDOW_DAYS = 366;
+    static final int MAX_CACHED_RESULTS = 5000;
+    static final int MAX_TRACKED_MEDICATIONS = 50_000;
+    static final Duration OPEN_WINDOW_TTL = Duration.ofMinutes(15);
+
+    private static final byte NEUTRAL = 0;
+    private static final byte ADHERENT = 1;
+    private static final byte MISSED = 2;
+
+    private final MedicationIntakeRepository medicationIntakeRepository;
+    private final DailyAdherenceRepository dailyAdherenceRepository;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final Map<Long, Long> medicationOwners = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+            if (size() <= MAX_TRACKED_MEDICATIONS) {
+                return false;
+            }
+            invalidateUser(eldest.getValue());
+            return true;
+        }
+    };
+    private final Map<WindowKey, CachedAdherence> results = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<WindowKey, CachedAdherence> eldest) {
+            return size() > MAX_CACHED_RESULTS;
+        }
+    };
+
+    public AdherenceResponse getUserAdherence(Long userId, LocalDate from, LocalDate to) {
+        return getUserAdherence(userId, from, to, LocalDateTime.now());
+    }
+
+    public MedicationAdherenceResponse getMedicationAdherence(Long userId, Long medicationId, LocalDate from,
+            LocalDate to) {
+        return getMedicationAdherence(userId, medicationId, from, to, LocalDateTime.now());
+    }
+
+    public void invalidateUser(Long userId) {
+        generation.incrementAndGet();
+        synchronized (results) {
+            results.keySet().removeIf(key -> key.userId().equals(userId));
+        }
+        log.debug("Invalidated adherence results for user {}", userId);
+    }
+
+    public void invalidateMedication(Long medicationId) {
+        generation.incrementAndGet();
+        Long userId;
+        synchronized (medicationOwners) {
+            userId = medicationOwners.get(medicationId);
+        }
+        if (userId != null) {
+            invalidateUser(userId);
+        }
+    }
+
+    public void forgetMedication(Long medicationId, Long userId) {
+        synchronized (medicationOwners) {
+            medicationOwners.remove(medicationId);
+        }
+        invalidateUser(userId);
+    }
+
+    AdherenceResponse getUserAdherence(Long userId, LocalDate from, LocalDate to, LocalDateTime now) {
+        LocalDate end = to != null ? to : now.toLocalDate();
+        LocalDate start = from != null ? from : end.minusDays(DEFAULT_WINDOW_DAYS - 1);
+        if (start.isAfter(end)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(start, end) >= MAX_WINDOW_DAYS) {
+            throw new IllegalArgumentException("Adherence window must not exceed " + MAX_WINDOW_DAYS + " days");
+        }
+
+        WindowKey key = new WindowKey(userId, start, end);
+        synchronized (results) {
+            CachedAdherence cached = results.get(key);
+            if (cached != null && cached.isFresh(now)) {
+                return cached.response();
+            }
+        }
+
+        long loadedAt = generation.get();
+        log.info("Computing adherence for user {} between {} and {}", userId, start, end);
+        AdherenceResponse response = computeAdherence(userId, start, end, now);
+
+        synchronized (results) {
+            if (generation.get() == loadedAt) {
+                results.put(key, new CachedAdherence(response, now));
+            }
+        }
+        return response;
+    }
+
+    MedicationAdherenceResponse getMedicationAdherence(Long userId, Long medicationId, LocalDate from,
+            LocalDate to, LocalDateTime now) {
+        return getUserAdherence(userId, from, to, now).medications().stream()
+                .filter(medication -> medication.medicationId().equals(medicationId))
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Medication not found with id: " + medicationId));
+    }
+
+    private AdherenceResponse computeAdherence(Long userId, LocalDate from, LocalDate to, LocalDateTime now) {
+        int days = (int) ChronoUnit.DAYS.between(from, to) + 1;
+
+        Map<Long, DoseSchedule> schedules = DoseSchedule.byMedication(
+                medicationIntakeRepository.findAdherenceSchedulesByUserId(userId));
+        Map<Long, MedicationTally> tallies = new LinkedHashMap<>();
+        synchronized (medicationOwners) {
+            schedules.keySet().forEach(medicationId -> medicationOwners.put(medicationId, userId));
+        }
+        schedules.forEach((medicationId, schedule) -> tallies.put(medicationId,
+                new MedicationTally(medicationId, schedule, days)));
+
+        for (DailyAdherence row : dailyAdherenceRepository.findByUserIdAndIntakeDateBetween(userId, from, to)) {
+            MedicationTally tally = tallies.get(row.getMedicationId());
+            if (tally != null) {
+                tally.record((int) ChronoUnit.DAYS.between(from, row.getIntakeDate()), row);
+            }
+        }
+
+        byte[] userStates = new byte[days];
+        long expected = 0;
+        long taken = 0;
+        long skipped = 0;
+        long missed = 0;
+        long onSchedule = 0;
+        List<MedicationAdherenceResponse> medications = new ArrayList<>(tallies.size());
+        for (MedicationTally tally : tallies.values()) {
+            byte[] states = tally.evaluate(from, now);
+            for (int day = 0; day < days; day++) {
+                if (states[day] == MISSED) {
+                    userStates[day] = MISSED;
+                } else if (states[day] == ADHERENT && userStates[day] == NEUTRAL) {
+                    userStates[day] = ADHERENT;
+                }
+            }
+            int[] streaks = streaks(states);
+            medications.add(new MedicationAdherenceResponse(tally.medicationId, tally.schedule.medicationName(),
+                    from, to, tally.expectedTotal, tally.takenTotal, tally.skippedTotal, tally.missedTotal,
+                    rate(tally.onScheduleTotal, tally.expectedTotal), streaks[0], streaks[1]));
+            expected += tally.expectedTotal;
+            taken += tally.takenTotal;
+            skipped += tally.skippedTotal;
+            missed += tally.missedTotal;
+            onSchedule += tally.onScheduleTotal;
+        }
+
+        int[] streaks = streaks(userStates);
+        return new AdherenceResponse(userId, from, to, expected, taken, skipped, missed,
+                rate(onSchedule, expected), streaks[0], streaks[1], medications);
+    }
+
+    private static int[] streaks(byte[] states) {
+        int run = 0;
+        int longest = 0;
+        for (byte state : states) {
+            if (state == ADHERENT) {
+                run++;
+                longest = Math.max(longest, run);
+            } else if (state == MISSED) {
+                run = 0;
+            }
+        }
+        return new int[] { run, longest };
+    }
+
+    private static Double rate(long onSchedule, long expected) {
+        if (expected == 0) {
+            return null;
+        }
+        return Math.round(onSchedule * 1000.0 / expected) / 1000.0;
+    }
+
+    private static final class MedicationTally {
+        private final Long medicationId;
+        private final DoseSchedule schedule;
+        private final int[] taken;
+        private final int[] skipped;
+        private final int[] recordedExpected;
+        private long expectedTotal;
+        private long takenTotal;
+        private long skippedTotal;
+        private long missedTotal;
+        private long onScheduleTotal;
+
+        private MedicationTally(Long medicationId, DoseSchedule schedule, int days) {
+            this.medicationId = medicationId;
+            this.schedule = schedule;
+            this.taken = new int[days];
+            this.skipped = new int[days];
+            this.recordedExpected = new int[days];
+            Arrays.fill(recordedExpected, -1);
+        }
+
+        private void record(int day, DailyAdherence row) {
+            taken[day] = row.getTaken();
+            skipped[day] = row.getSkipped();
+            recordedExpected[day] = row.getExpected();
+            takenTotal += row.getTaken();
+            skippedTotal += row.getSkipped();
+        }
+
+        private byte[] evaluate(LocalDate from, LocalDateTime now) {
+            LocalDate today = now.toLocalDate();
+            byte[] states = new byte[taken.length];
+            for (int day = 0; day < taken.length; day++) {
+                LocalDate date = from.plusDays(day);
+                int expected = expectedOn(day, date, now);
+                if (expected == 0) {
+                    continue;
+                }
+                expectedTotal += expected;
+                onScheduleTotal += Math.min(taken[day], expected);
+                if (taken[day] >= expected) {
+                    states[day] = ADHERENT;
+                } else if (!date.equals(today)) {
+                    states[day] = MISSED;
+                    missedTotal += Math.max(0, expected - taken[day] - skipped[day]);
+                }
+            }
+            return states;
+        }
+
+        private int expectedOn(int day, LocalDate date, LocalDateTime now) {
+            LocalDate today = now.toLocalDate();
+            if (date.isAfter(today)) {
+                return 0;
+            }
+            if (date.equals(today)) {
+                return schedule.dueBy(now);
+            }
+            return recordedExpected[day] >= 0 ? recordedExpected[day] : schedule.expectedOn(date);
+        }
+    }
+
+    private record WindowKey(Long userId, LocalDate from, LocalDate to) {
+    }
+
+    private record CachedAdherence(AdherenceResponse response, LocalDateTime computedAt) {
+        private boolean isFresh(LocalDateTime now) {
+            if (!now.toLocalDate().equals(computedAt.toLocalDate())) {
+                return false;
+            }
+            return computedAt.toLocalDate().isAfter(response.to())
+                    || !now.isAfter(computedAt.plus(OPEN_WINDOW_TTL));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.project.pillpal.medicationintake.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "adherence.rollup.backfill-on-startup", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class DailyAdherenceBackfillRunner implements ApplicationRunner {
+
+    private static final int USER_BATCH_SIZE = 100;
+
+    private final DailyAdherenceService dailyAdherenceService;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        backfill();
+    }
+
+    public long backfill() {
+        log.info("Backfilling daily adherence rollup");
+        long users = 0;
+        long rows = 0;
+        Long afterUserId = 0L;
+        List<Long> userIds;
+        while (!(userIds = dailyAdherenceService.getUserIdsAfter(afterUserId, USER_BATCH_SIZE)).isEmpty()) {
+            for (Long userId : userIds) {
+                rows += dailyAdherenceService.rebuildForUser(userId);
+                users++;
+            }
+            afterUserId = userIds.getLast();
+        }
+        log.info("Backfilled {} daily adherence rows for {} users", rows, users);
+        return rows;
+    }
+}
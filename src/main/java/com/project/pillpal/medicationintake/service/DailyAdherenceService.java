@@ -0,0 +1,109 @@
+package com.project.pillpal.medicationintake.service;
+
+import com.project.pillpal.medicationintake.dto.DailyIntakeCount;
+import com.project.pillpal.medicationintake.entity.MedicationIntake;
+import com.project.pillpal.medicationintake.entity.Status;
+import com.project.pillpal.medicationintake.repository.DailyAdherenceRepository;
+import com.project.pillpal.medicationintake.repository.MedicationIntakeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class DailyAdherenceService {
+
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime HISTORY_END = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    private final DailyAdherenceRepository dailyAdherenceRepository;
+    private final MedicationIntakeRepository medicationIntakeRepository;
+
+    @Transactional
+    public void recordIntake(MedicationIntake intake) {
+        Long medicationId = intake.getMedication().getId();
+        addCounts(DoseSchedule.byMedication(
+                medicationIntakeRepository.findAdherenceSchedulesByMedicationId(medicationId)), List.of(intake));
+    }
+
+    public Map<Long, DoseSchedule> getSchedules(Collection<Long> medicationIds) {
+        return DoseSchedule.byMedication(medicationIntakeRepository.findAdherenceSchedulesByMedicationIdIn(
+                medicationIds));
+    }
+
+    @Transactional
+    public void recordIntakes(Map<Long, DoseSchedule> schedules, Collection<MedicationIntake> intakes) {
+        if (intakes.isEmpty()) {
+            return;
+        }
+        addCounts(schedules, intakes);
+    }
+
+    @Transactional
+    public int rebuildForUser(Long userId) {
+        Map<Long, DoseSchedule> schedules = DoseSchedule.byMedication(
+                medicationIntakeRepository.findAdherenceSchedulesByUserId(userId));
+        Map<DayKey, int[]> counts = new LinkedHashMap<>();
+        for (DailyIntakeCount count : medicationIntakeRepository.countDailyByUserId(userId, HISTORY_START,
+                HISTORY_END)) {
+            tally(counts, count.medicationId(), count.day(), count.status(), count.count().intValue());
+        }
+
+        counts.forEach((key, tally) -> {
+            DoseSchedule schedule = schedules.get(key.medicationId());
+            dailyAdherenceRepository.replaceCounts(userId, key.medicationId(), key.date(), tally[0], tally[1],
+                    schedule != null ? schedule.expectedOn(key.date()) : 0);
+        });
+        log.debug("Rebuilt {} daily adherence rows for user {}", counts.size(), userId);
+        return counts.size();
+    }
+
+    public List<Long> getUserIdsAfter(Long afterUserId, int limit) {
+        return dailyAdherenceRepository.findUserIdsWithMedicationsAfter(afterUserId, PageRequest.ofSize(limit));
+    }
+
+    @Transactional
+    public void deleteForMedication(Long medicationId) {
+        int deleted = dailyAdherenceRepository.deleteByMedicationId(medicationId);
+        log.debug("Deleted {} daily adherence rows for medication {}", deleted, medicationId);
+    }
+
+    private void addCounts(Map<Long, DoseSchedule> schedules, Collection<MedicationIntake> intakes) {
+        Map<DayKey, int[]> counts = new LinkedHashMap<>();
+        for (MedicationIntake intake : intakes) {
+            tally(counts, intake.getMedication().getId(), intake.getDateTime().toLocalDate(), intake.getStatus(), 1);
+        }
+
+        counts.forEach((key, tally) -> {
+            DoseSchedule schedule = schedules.get(key.medicationId());
+            if (schedule == null) {
+                log.warn("Skipping daily adherence update for unknown medication {}", key.medicationId());
+                return;
+            }
+            dailyAdherenceRepository.addCounts(schedule.userId(), key.medicationId(), key.date(), tally[0],
+                    tally[1], schedule.expectedOn(key.date()));
+        });
+    }
+
+    private static void tally(Map<DayKey, int[]> counts, Long medicationId, LocalDate date, Status status,
+            int count) {
+        if (status != Status.TAKEN && status != Status.SKIPPED) {
+            return;
+        }
+        int[] tally = counts.computeIfAbsent(new DayKey(medicationId, date), key -> new int[2]);
+        tally[status == Status.TAKEN ? 0 : 1] += count;
+    }
+
+    private record DayKey(Long medicationId, LocalDate date) {
+    }
+}
@@ -0,0 +1,77 @@
+package com.project.pillpal.medicationintake.service;
+
+import com.project.pillpal.medicationintake.dto.AdherenceScheduleRow;
+import com.project.pillpal.reminder.entity.Frequency;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+final class DoseSchedule {
+
+    private final Long userId;
+    private final String medicationName;
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final List<LocalTime> dailyTimes = new ArrayList<>();
+    private final List<LocalTime> weeklyTimes = new ArrayList<>();
+
+    private DoseSchedule(AdherenceScheduleRow row) {
+        this.userId = row.userId();
+        this.medicationName = row.medicationName();
+        this.startDate = row.startDate();
+        this.endDate = row.endDate();
+    }
+
+    static Map<Long, DoseSchedule> byMedication(List<AdherenceScheduleRow> rows) {
+        Map<Long, DoseSchedule> schedules = new LinkedHashMap<>();
+        for (AdherenceScheduleRow row : rows) {
+            DoseSchedule schedule = schedules.computeIfAbsent(row.medicationId(), id -> new DoseSchedule(row));
+            if (row.time() != null) {
+                (row.frequency() == Frequency.WEEKLY ? schedule.weeklyTimes : schedule.dailyTimes).add(row.time());
+            }
+        }
+        return schedules;
+    }
+
+    Long userId() {
+        return userId;
+    }
+
+    String medicationName() {
+        return medicationName;
+    }
+
+    int expectedOn(LocalDate date) {
+        return expectedBy(date, LocalTime.MAX);
+    }
+
+    int dueBy(LocalDateTime now) {
+        return expectedBy(now.toLocalDate(), now.toLocalTime());
+    }
+
+    private int expectedBy(LocalDate date, LocalTime cutoff) {
+        if (date.isBefore(startDate) || (endDate != null && date.isAfter(endDate))) {
+            return 0;
+        }
+        int expected = countUntil(dailyTimes, cutoff);
+        if (date.getDayOfWeek() == startDate.getDayOfWeek()) {
+            expected += countUntil(weeklyTimes, cutoff);
+        }
+        return expected;
+    }
+
+    private static int countUntil(List<LocalTime> times, LocalTime cutoff) {
+        int count = 0;
+        for (LocalTime time : times) {
+            if (!time.isAfter(cutoff)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
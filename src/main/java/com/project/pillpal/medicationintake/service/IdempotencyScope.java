@@ -0,0 +1,12 @@
+package com.project.pillpal.medicationintake.service;
+
+public enum IdempotencyScope {
+    CREATE,
+    TAKEN,
+    SKIPPED,
+    BATCH;
+
+    String key(Long userId, String idempotencyKey) {
+        return userId + ":" + name().toLowerCase() + ":" + idempotencyKey;
+    }
+}
@@ -1,38 +1,61 @@
 package com.project.pillpal.medicationintake.service;
 
-import com.project.pillpal.medication.entity.Medication;
 import com.project.pillpal.medication.repository.MedicationRepository;
+import com.project.pillpal.medication.dtos.CursorPageResponse;
+import com.project.pillpal.medicationintake.dto.CreateMedicationIntakeRequest;
+import com.project.pillpal.medicationintake.dto.IntakeHistoryPageResponse;
 import com.project.pillpal.medicationintake.entity.MedicationIntake;
 import com.project.pillpal.medicationintake.entity.Status;
+import com.project.pillpal.medicationintake.mapper.MedicationIntakeMapper;
 import com.project.pillpal.medicationintake.repository.MedicationIntakeRepository;
+import com.project.pillpal.exceptions.IdempotencyKeyReusedException;
 import com.project.pillpal.exceptions.ResourceNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class MedicationIntakeService {
 
+    private static final int IN_CLAUSE_BATCH_SIZE = 1000;
+    public static final int MAX_INTAKES_PER_BATCH = 500;
+    public static final int MAX_IDEMPOTENCY_KEY_LENGTH = 64;
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime HISTORY_END = LocalDateTime.of(9999, 12, 31, 0, 0);
+
     private final MedicationIntakeRepository medicationIntakeRepository;
     private final MedicationRepository medicationRepository;
+    private final RecentIdempotencyKeys recentIdempotencyKeys;
+    private final MedicationIntakeMapper medicationIntakeMapper;
+    private final AdherenceService adherenceService;
+    private final DailyAdherenceService dailyAdherenceService;
+    private final TransactionTemplate transactionTemplate;
 
     public MedicationIntake markAsTaken(Long medicationId) {
         log.info("Marking medication {} as taken", medicationId);
 
-        Medication medication = medicationRepository.findById(medicationId)
-                .orElseThrow(() -> new ResourceNotFoundException("Medication not found with id: " + medicationId));
-
-        MedicationIntake intake = new MedicationIntake();
-        intake.setDateTime(LocalDateTime.now());
-        intake.setStatus(Status.TAKEN);
-        intake.setMedication(medication);
-
-        MedicationIntake savedIntake = medicationIntakeRepository.save(intake);
+        MedicationIntake savedIntake = recordIntake(medicationId, Status.TAKEN, null, null);
         log.info("Successfully marked medication {} as taken", medicationId);
 
         return savedIntake;
@@ -41,15 +64,7 @@ public class MedicationIntakeService {
     public MedicationIntake markAsSkipped(Long medicationId) {
         log.info("Marking medication {} as skipped", medicationId);
 
-        Medication medication = medicationRepository.findById(medicationId)
-                .orElseThrow(() -> new ResourceNotFoundException("Medication not found with id: " + medicationId));
-
-        MedicationIntake intake = new MedicationIntake();
-        intake.setDateTime(LocalDateTime.now());
-        intake.setStatus(Status.SKIPPED);
-        intake.setMedication(medication);
-
-        MedicationIntake savedIntake = medicationIntakeRepository.save(intake);
+        MedicationIntake savedIntake = recordIntake(medicationId, Status.SKIPPED, null, null);
         log.info("Successfully marked medication {} as skipped", medicationId);
 
         return savedIntake;
@@ -66,21 +81,250 @@ public class MedicationIntakeService {
         return medicationIntakeRepository.findByMedicationIdAndDateTimeBetween(medicationId, startDate, endDate);
     }
 
-    public List<MedicationIntake> getAllIntakesForUser(Long userId) {
-        log.debug("Getting all intakes for user {} ordered by date desc", userId);
-        return medicationIntakeRepository.findByMedicationUserIdOrderByDateTimeDesc(userId);
+    public Map<Long, List<MedicationIntake>> getIntakesByMedicationIdsAndDateRange(Collection<Long> medicationIds,
+            LocalDateTime startDate, LocalDateTime endDate) {
+        log.debug("Getting intakes for {} medications between {} and {}", medicationIds.size(), startDate, endDate);
+        if (medicationIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        List<Long> ids = new ArrayList<>(medicationIds);
+        List<MedicationIntake> intakes = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + IN_CLAUSE_BATCH_SIZE, ids.size()));
+            intakes.addAll(medicationIntakeRepository.findByMedicationIdInAndDateTimeBetween(batch, startDate, endDate));
+        }
+
+        return intakes.stream()
+                .collect(Collectors.groupingBy(intake -> intake.getMedication().getId()));
+    }
+
+    public IntakeHistoryPageResponse getIntakeHistoryForUser(Long userId, LocalDateTime from, LocalDateTime to,
+            LocalDateTime beforeDateTime, Long beforeId, Integer size) {
+        log.debug("Getting intake history page for user {} between {} and {} before ({}, {})", userId, from, to,
+                beforeDateTime, beforeId);
+        if ((beforeDateTime == null) != (beforeId == null)) {
+            throw new IllegalArgumentException("beforeDateTime and beforeId must be provided together");
+        }
+        LocalDateTime start = from != null ? from : HISTORY_START;
+        LocalDateTime end = to != null ? to : HISTORY_END;
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+
+        LocalDateTime cursorDateTime = end;
+        long cursorId = 0L;
+        if (beforeDateTime != null && beforeDateTime.isBefore(end)) {
+            cursorDateTime = beforeDateTime;
+            cursorId = beforeId;
+        }
+
+        int pageSize = CursorPageResponse.pageSize(size);
+        List<MedicationIntake> intakes = medicationIntakeRepository.findHistoryPageByUserId(userId, start,
+                cursorDateTime, cursorId, PageRequest.ofSize(pageSize + 1));
+
+        boolean hasMore = intakes.size() > pageSize;
+        List<MedicationIntake> page = hasMore ? intakes.subList(0, pageSize) : intakes;
+        MedicationIntake last = hasMore ? page.getLast() : null;
+        return new IntakeHistoryPageResponse(
+                page.stream().map(medicationIntakeMapper::toResponse).toList(),
+                last != null ? last.getDateTime().toString() : null,
+                last != null ? last.getId() : null,
+                hasMore);
     }
 
     public MedicationIntake createIntake(Long medicationId, Status status) {
         log.info("Creating intake for medication {} with status {}", medicationId, status);
-        Medication medication = medicationRepository.findById(medicationId)
-                .orElseThrow(() -> new ResourceNotFoundException("Medication not found with id: " + medicationId));
+        return recordIntake(medicationId, status, null, null);
+    }
+
+    public MedicationIntake createIntake(Long userId, IdempotencyScope scope, Long medicationId, Status status,
+            LocalDateTime dateTime, String idempotencyKey) {
+        log.info("Creating intake for medication {} with status {}", medicationId, status);
+        validateIdempotencyKey(idempotencyKey);
+        return recordIntake(medicationId, status, dateTime,
+                idempotencyKey != null ? scope.key(userId, idempotencyKey) : null);
+    }
+
+    public List<MedicationIntake> createIntakes(Long userId, List<CreateMedicationIntakeRequest> requests) {
+        return createIntakes(userId, requests, null);
+    }
+
+    @Transactional
+    public List<MedicationIntake> createIntakes(Long userId, List<CreateMedicationIntakeRequest> requests,
+            String idempotencyKey) {
+        log.info("Creating {} intakes for user {}", requests == null ? 0 : requests.size(), userId);
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("At least one intake is required");
+        }
+        if (requests.size() > MAX_INTAKES_PER_BATCH) {
+            throw new IllegalArgumentException("At most " + MAX_INTAKES_PER_BATCH + " intakes can be recorded at once");
+        }
+
+        Set<Long> medicationIds = new HashSet<>();
+        for (CreateMedicationIntakeRequest request : requests) {
+            if (request.medicationId() == null || request.status() == null) {
+                throw new IllegalArgumentException("Each intake requires medicationId and status");
+            }
+            medicationIds.add(request.medicationId());
+        }
 
+        Set<Long> ownedIds = new HashSet<>(medicationRepository.findIdsByUserIdAndIdIn(userId, medicationIds));
+        if (!ownedIds.containsAll(medicationIds)) {
+            medicationIds.removeAll(ownedIds);
+            throw new ResourceNotFoundException("Medication not found with id: " + medicationIds);
+        }
+
+        validateIdempotencyKey(idempotencyKey);
+        String batchKey = idempotencyKey != null ? IdempotencyScope.BATCH.key(userId, idempotencyKey) : null;
+        List<String> keys = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            keys.add(batchKey != null ? batchKey + ":" + i : null);
+        }
+        Map<String, MedicationIntake> replayed = findReplayedIntakes(keys);
+
+        List<MedicationIntake> results = new ArrayList<>(requests.size());
+        List<MedicationIntake> newIntakes = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            CreateMedicationIntakeRequest request = requests.get(i);
+            MedicationIntake existing = keys.get(i) != null ? replayed.get(keys.get(i)) : null;
+            Status status = Status.valueOf(request.status());
+            if (existing != null) {
+                requireSamePayload(existing, request.medicationId(), status, request.dateTime());
+                results.add(existing);
+                continue;
+            }
+            MedicationIntake intake = newIntake(request.medicationId(), status, request.dateTime(), keys.get(i));
+            newIntakes.add(intake);
+            results.add(intake);
+        }
+
+        medicationIntakeRepository.saveAll(newIntakes);
+        medicationIntakeRepository.flush();
+        if (!newIntakes.isEmpty()) {
+            dailyAdherenceService.recordIntakes(dailyAdherenceService.getSchedules(medicationIds), newIntakes);
+        }
+        rememberAfterCommit(newIntakes);
+        if (!newIntakes.isEmpty()) {
+            afterCommit(() -> adherenceService.invalidateUser(userId));
+        }
+
+        log.info("Successfully created {} intakes for user {} ({} replayed)", newIntakes.size(), userId,
+                results.size() - newIntakes.size());
+        return results;
+    }
+
+    private MedicationIntake recordIntake(Long medicationId, Status status, LocalDateTime dateTime,
+            String idempotencyKey) {
+        if (idempotencyKey != null) {
+            MedicationIntake cached = recentIdempotencyKeys.get(idempotencyKey);
+            if (cached != null) {
+                log.debug("Replaying intake {} for idempotency key {}", cached.getId(), idempotencyKey);
+                requireSamePayload(cached, medicationId, status, dateTime);
+                return cached;
+            }
+        }
+
+        MedicationIntake intake = newIntake(medicationId, status, dateTime, idempotencyKey);
+
+        try {
+            MedicationIntake savedIntake = transactionTemplate.execute(tx -> {
+                MedicationIntake saved = medicationIntakeRepository.saveAndFlush(intake);
+                dailyAdherenceService.recordIntake(saved);
+                return saved;
+            });
+            if (idempotencyKey != null) {
+                recentIdempotencyKeys.put(idempotencyKey, savedIntake);
+            }
+            adherenceService.invalidateMedication(medicationId);
+            return savedIntake;
+        } catch (DataIntegrityViolationException ex) {
+            if (idempotencyKey != null) {
+                Optional<MedicationIntake> existing = medicationIntakeRepository.findByIdempotencyKey(idempotencyKey);
+                if (existing.isPresent()) {
+                    log.debug("Replaying stored intake {} for idempotency key {}", existing.get().getId(),
+                            idempotencyKey);
+                    requireSamePayload(existing.get(), medicationId, status, dateTime);
+                    recentIdempotencyKeys.put(idempotencyKey, existing.get());
+                    return existing.get();
+                }
+            }
+            if (!medicationRepository.existsById(medicationId)) {
+                log.debug("Intake insert rejected for missing medication {}: {}", medicationId, ex.getMessage());
+                throw new ResourceNotFoundException("Medication not found with id: " + medicationId);
+            }
+            throw ex;
+        }
+    }
+
+    private Map<String, MedicationIntake> findReplayedIntakes(List<String> keys) {
+        Map<String, MedicationIntake> replayed = new HashMap<>();
+        List<String> uncachedKeys = new ArrayList<>();
+        for (String key : keys) {
+            if (key == null) {
+                continue;
+            }
+            MedicationIntake cached = recentIdempotencyKeys.get(key);
+            if (cached != null) {
+                replayed.put(key, cached);
+            } else {
+                uncachedKeys.add(key);
+            }
+        }
+        if (!uncachedKeys.isEmpty()) {
+            for (MedicationIntake stored : medicationIntakeRepository.findByIdempotencyKeyIn(uncachedKeys)) {
+                replayed.put(stored.getIdempotencyKey(), stored);
+            }
+        }
+        return replayed;
+    }
+
+    private void rememberAfterCommit(List<MedicationIntake> intakes) {
+        List<MedicationIntake> keyed = intakes.stream()
+                .filter(intake -> intake.getIdempotencyKey() != null)
+                .toList();
+        if (keyed.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> keyed.forEach(intake -> recentIdempotencyKeys.put(intake.getIdempotencyKey(), intake)));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void validateIdempotencyKey(String idempotencyKey) {
+        if (idempotencyKey != null && (idempotencyKey.isBlank()
+                || idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH)) {
+            throw new IllegalArgumentException(
+                    "Idempotency key must be 1 to " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
+    }
+
+    private void requireSamePayload(MedicationIntake intake, Long medicationId, Status status,
+            LocalDateTime dateTime) {
+        if (!intake.getMedication().getId().equals(medicationId) || intake.getStatus() != status
+                || (dateTime != null && !Objects.equals(intake.getDateTime(), dateTime))) {
+            throw new IdempotencyKeyReusedException("Idempotency key was already used for a different intake");
+        }
+    }
+
+    private MedicationIntake newIntake(Long medicationId, Status status, LocalDateTime dateTime,
+            String idempotencyKey) {
         MedicationIntake intake = new MedicationIntake();
-        intake.setDateTime(LocalDateTime.now());
+        intake.setDateTime(dateTime != null ? dateTime : LocalDateTime.now());
         intake.setStatus(status);
-        intake.setMedication(medication);
-
-        return medicationIntakeRepository.save(intake);
+        intake.setMedication(medicationRepository.getReferenceById(medicationId));
+        intake.setIdempotencyKey(idempotencyKey);
+        return intake;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,28 @@
+package com.project.pillpal.medicationintake.service;
+
+import com.project.pillpal.medicationintake.entity.MedicationIntake;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Component
+public class RecentIdempotencyKeys {
+
+    static final int MAX_KEYS = 10_000;
+
+    private final Map<String, MedicationIntake> intakesByKey = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, MedicationIntake> eldest) {
+            return size() > MAX_KEYS;
+        }
+    };
+
+    public synchronized MedicationIntake get(String key) {
+        return intakesByKey.get(key);
+    }
+
+    public synchronized void put(String key, MedicationIntake intake) {
+        intakesByKey.put(key, intake);
+    }
+}
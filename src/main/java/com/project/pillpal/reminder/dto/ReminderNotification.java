@@ -0,0 +1,11 @@
+package com.project.pillpal.reminder.dto;
+
+import java.time.LocalDateTime;
+
+public record ReminderNotification(
+        Long reminderId,
+        Long medicationId,
+        String medicationName,
+        Long userId,
+        LocalDateTime scheduledAt) {
+}
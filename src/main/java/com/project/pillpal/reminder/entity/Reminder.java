@@ -2,17 +2,24 @@ package com.project.pillpal.reminder.entity;
 
 import com.project.pillpal.medication.entity.Medication;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "reminders")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "reminders")
+@Table(name = "reminders", indexes = {
+        @Index(name = "idx_reminders_enabled_next_fire_at", columnList = "enabled, next_fire_at")
+})
 public class Reminder {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -28,6 +35,9 @@ public class Reminder {
     @Column(nullable = false)
     private boolean enabled = true;
 
+    @Column(name = "next_fire_at")
+    private LocalDateTime nextFireAt;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "medication_id", nullable = false)
     private Medication medication;
@@ -1,10 +1,22 @@
 package com.project.pillpal.reminder.repository;
 
 import com.project.pillpal.reminder.entity.Reminder;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface ReminderRepository extends JpaRepository<Reminder, Long> {
     List<Reminder> findByMedicationId(Long medicationId);
+
+    @Query(value = "SELECT r.id FROM reminders r WHERE r.enabled = true AND r.next_fire_at <= :now "
+            + "ORDER BY r.next_fire_at LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockDueReminderIds(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Query("SELECT r.id FROM Reminder r WHERE r.enabled = true AND r.nextFireAt IS NULL AND r.id > :afterId "
+            + "ORDER BY r.id")
+    List<Long> findUnscheduledIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
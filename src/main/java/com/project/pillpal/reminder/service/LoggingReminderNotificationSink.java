@@ -0,0 +1,22 @@
+package com.project.pillpal.reminder.service;
+
+import com.project.pillpal.reminder.dto.ReminderNotification;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+@Component
+@Slf4j
+public class LoggingReminderNotificationSink implements ReminderNotificationSink {
+
+    @Override
+    public String name() {
+        return "log";
+    }
+
+    @Override
+    public void send(ReminderNotification notification) {
+        log.info("Reminder {} due at {}: user {} should take {} (medication {})", notification.reminderId(),
+                notification.scheduledAt(), notification.userId(), notification.medicationName(),
+                notification.medicationId());
+    }
+}
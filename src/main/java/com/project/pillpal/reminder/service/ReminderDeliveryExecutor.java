@@ -0,0 +1,168 @@
+package com.project.pillpal.reminder.service;
+
+import com.project.pillpal.reminder.dto.ReminderNotification;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@Slf4j
+public class ReminderDeliveryExecutor {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Map<String, SinkLane> lanes = new LinkedHashMap<>();
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+
+    public ReminderDeliveryExecutor(List<ReminderNotificationSink> sinks, MeterRegistry meterRegistry,
+            @Value("${reminders.delivery.max-concurrency-per-sink:64}") int maxConcurrencyPerSink,
+            @Value("${reminders.delivery.queue-capacity:10000}") int queueCapacity,
+            @Value("${reminders.delivery.max-attempts:3}") int maxAttempts,
+            @Value("${reminders.delivery.initial-backoff-ms:200}") long initialBackoffMs) {
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        for (ReminderNotificationSink sink : sinks) {
+            if (lanes.containsKey(sink.name())) {
+                executor.shutdown();
+                throw new IllegalStateException("Duplicate reminder notification sink name: " + sink.name());
+            }
+            lanes.put(sink.name(), new SinkLane(sink, maxConcurrencyPerSink, queueCapacity, meterRegistry));
+        }
+    }
+
+    public void submit(ReminderNotification notification) {
+        for (SinkLane lane : lanes.values()) {
+            if (!lane.queueSlots.tryAcquire()) {
+                lane.rejected.increment();
+                log.warn("Delivery queue for sink {} is full, dropping reminder {}", lane.sink.name(),
+                        notification.reminderId());
+                continue;
+            }
+            try {
+                executor.execute(() -> deliver(lane, notification));
+            } catch (RejectedExecutionException ex) {
+                lane.queueSlots.release();
+                lane.rejected.increment();
+                log.warn("Delivery executor is shut down, dropping reminder {}", notification.reminderId());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (!executor.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Reminder deliveries still running after shutdown timeout");
+            executor.shutdownNow();
+        }
+    }
+
+    int queued(String sinkName) {
+        return lanes.get(sinkName).queued();
+    }
+
+    boolean awaitIdle(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (lanes.values().stream().anyMatch(lane -> lane.queued() > 0)) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            Thread.sleep(5);
+        }
+        return true;
+    }
+
+    private void deliver(SinkLane lane, ReminderNotification notification) {
+        try {
+            long backoffMs = initialBackoffMs;
+            for (int attempt = 1;; attempt++) {
+                if (attemptDelivery(lane, notification)) {
+                    lane.delivered.increment();
+                    return;
+                }
+                if (attempt >= maxAttempts) {
+                    lane.failed.increment();
+                    log.warn("Giving up on reminder {} for sink {} after {} attempts", notification.reminderId(),
+                            lane.sink.name(), attempt);
+                    return;
+                }
+                lane.retried.increment();
+                Thread.sleep(backoffMs);
+                backoffMs *= 2;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            lane.failed.increment();
+        } finally {
+            lane.queueSlots.release();
+        }
+    }
+
+    private boolean attemptDelivery(SinkLane lane, ReminderNotification notification) throws InterruptedException {
+        lane.concurrency.acquire();
+        long start = System.nanoTime();
+        try {
+            lane.sink.send(notification);
+            return true;
+        } catch (RuntimeException ex) {
+            log.debug("Sink {} failed to deliver reminder {}: {}", lane.sink.name(), notification.reminderId(),
+                    ex.getMessage());
+            return false;
+        } finally {
+            lane.latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            lane.concurrency.release();
+        }
+    }
+
+    private static final class SinkLane {
+        private final ReminderNotificationSink sink;
+        private final int queueCapacity;
+        private final Semaphore queueSlots;
+        private final Semaphore concurrency;
+        private final Counter delivered;
+        private final Counter retried;
+        private final Counter failed;
+        private final Counter rejected;
+        private final Timer latency;
+
+        private SinkLane(ReminderNotificationSink sink, int maxConcurrency, int queueCapacity,
+                MeterRegistry meterRegistry) {
+            this.sink = sink;
+            this.queueCapacity = queueCapacity;
+            this.queueSlots = new Semaphore(queueCapacity);
+            this.concurrency = new Semaphore(maxConcurrency);
+            this.delivered = outcome(meterRegistry, sink, "delivered");
+            this.retried = outcome(meterRegistry, sink, "retried");
+            this.failed = outcome(meterRegistry, sink, "failed");
+            this.rejected = outcome(meterRegistry, sink, "rejected");
+            this.latency = Timer.builder("reminders.delivery.duration").tag("sink", sink.name())
+                    .register(meterRegistry);
+            Gauge.builder("reminders.delivery.queued", this, SinkLane::queued).tag("sink", sink.name())
+                    .register(meterRegistry);
+        }
+
+        private int queued() {
+            return queueCapacity - queueSlots.availablePermits();
+        }
+
+        private static Counter outcome(MeterRegistry meterRegistry, ReminderNotificationSink sink, String outcome) {
+            return Counter.builder("reminders.delivery").tag("sink", sink.name()).tag("outcome", outcome)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.project.pillpal.reminder.service;
+
+import com.project.pillpal.reminder.entity.Frequency;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+public final class ReminderFireTimes {
+
+    private ReminderFireTimes() {
+    }
+
+    public static LocalDateTime nextFireAt(LocalTime time, Frequency frequency, LocalDate startDate,
+            LocalDate endDate, LocalDateTime after) {
+        LocalDate date = after.toLocalDate();
+        if (startDate != null && date.isBefore(startDate)) {
+            date = startDate;
+        }
+
+        LocalDateTime candidate = date.atTime(time);
+        if (!candidate.isAfter(after)) {
+            candidate = candidate.plusDays(1);
+        }
+        if (frequency == Frequency.WEEKLY && startDate != null) {
+            int daysUntilWeekday = (startDate.getDayOfWeek().getValue()
+                    - candidate.getDayOfWeek().getValue() + 7) % 7;
+            candidate = candidate.plusDays(daysUntilWeekday);
+        }
+
+        if (endDate != null && candidate.toLocalDate().isAfter(endDate)) {
+            return null;
+        }
+        return candidate;
+    }
+}
@@ -0,0 +1,9 @@
+package com.project.pillpal.reminder.service;
+
+import com.project.pillpal.reminder.dto.ReminderNotification;
+
+public interface ReminderNotificationSink {
+    String name();
+
+    void send(ReminderNotification notification);
+}
@@ -0,0 +1,121 @@
+package com.project.pillpal.reminder.service;
+
+import com.project.pillpal.medication.entity.Medication;
+import com.project.pillpal.reminder.dto.ReminderNotification;
+import com.project.pillpal.reminder.entity.Reminder;
+import com.project.pillpal.reminder.repository.ReminderRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReminderScheduler {
+
+    private final ReminderRepository reminderRepository;
+    private final ReminderDeliveryExecutor reminderDeliveryExecutor;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${reminders.dispatch.enabled:true}")
+    private boolean dispatchEnabled;
+
+    @Value("${reminders.dispatch.batch-size:100}")
+    private int batchSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleUnscheduled() {
+        LocalDateTime now = LocalDateTime.now();
+        long scheduled = 0;
+        Long afterId = 0L;
+        List<Long> ids;
+        while (!(ids = reminderRepository.findUnscheduledIdsAfter(afterId, PageRequest.ofSize(batchSize)))
+                .isEmpty()) {
+            List<Long> batch = ids;
+            transactionTemplate.executeWithoutResult(status -> reminderRepository.findAllById(batch)
+                    .forEach(reminder -> reschedule(reminder, now)));
+            scheduled += ids.size();
+            afterId = ids.getLast();
+        }
+        log.info("Computed next fire time for {} unscheduled reminders", scheduled);
+    }
+
+    @Scheduled(fixedDelayString = "${reminders.dispatch.interval-ms:30000}")
+    public void dispatchDue() {
+        if (!dispatchEnabled) {
+            return;
+        }
+        dispatchDue(LocalDateTime.now());
+    }
+
+    @Transactional
+    public void schedule(Long reminderId) {
+        reminderRepository.findById(reminderId).ifPresent(reminder -> reschedule(reminder, LocalDateTime.now()));
+    }
+
+    @Transactional
+    public void scheduleForMedication(Long medicationId) {
+        LocalDateTime now = LocalDateTime.now();
+        reminderRepository.findByMedicationId(medicationId).forEach(reminder -> reschedule(reminder, now));
+    }
+
+    int dispatchDue(LocalDateTime now) {
+        int dispatched = 0;
+        ClaimedReminders batch;
+        do {
+            batch = transactionTemplate.execute(status -> claimDue(now));
+            batch.notifications().forEach(reminderDeliveryExecutor::submit);
+            dispatched += batch.notifications().size();
+        } while (batch.claimed() == batchSize);
+
+        if (dispatched > 0) {
+            log.debug("Dispatched {} due reminders", dispatched);
+        }
+        return dispatched;
+    }
+
+    private ClaimedReminders claimDue(LocalDateTime now) {
+        List<Long> ids = reminderRepository.lockDueReminderIds(now, batchSize);
+        if (ids.isEmpty()) {
+            return new ClaimedReminders(0, List.of());
+        }
+
+        List<ReminderNotification> notifications = new ArrayList<>(ids.size());
+        for (Reminder reminder : reminderRepository.findAllById(ids)) {
+            Medication medication = reminder.getMedication();
+            if (Boolean.TRUE.equals(medication.getActive())) {
+                notifications.add(new ReminderNotification(reminder.getId(), medication.getId(),
+                        medication.getName(), medication.getUser().getId(), reminder.getNextFireAt()));
+            }
+            reschedule(reminder, now);
+        }
+        return new ClaimedReminders(ids.size(), notifications);
+    }
+
+    private static void reschedule(Reminder reminder, LocalDateTime after) {
+        reminder.setNextFireAt(nextFireAt(reminder, after));
+    }
+
+    static LocalDateTime nextFireAt(Reminder reminder, LocalDateTime after) {
+        Medication medication = reminder.getMedication();
+        if (!reminder.isEnabled() || !Boolean.TRUE.equals(medication.getActive())) {
+            return null;
+        }
+        return ReminderFireTimes.nextFireAt(reminder.getTime(), reminder.getFrequency(),
+                medication.getStartDate(), medication.getEndDate(), after);
+    }
+
+    private record ClaimedReminders(int claimed, List<ReminderNotification> notifications) {
+    }
+}
@@ -10,6 +10,7 @@ import com.project.pillpal.reminder.repository.ReminderRepository;
 import com.project.pillpal.medication.entity.Medication;
 import com.project.pillpal.medication.repository.MedicationRepository;
 import com.project.pillpal.exceptions.ResourceNotFoundException;
+import com.project.pillpal.medicationintake.service.AdherenceService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -24,6 +25,8 @@ public class ReminderService {
     private final ReminderRepository reminderRepository;
     private final ReminderMapperImpl reminderMapperImpl;
     private final MedicationRepository medicationRepository;
+    private final AdherenceService adherenceService;
+    private final ReminderScheduler reminderScheduler;
 
     public List<ReminderResponse> getAllReminders() {
         List<Reminder> reminders = reminderRepository.findAll();
@@ -52,7 +55,10 @@ public class ReminderService {
         reminder.setFrequency(frequency);
         reminder.setEnabled(enabled != null ? enabled : true);
 
-        return reminderRepository.save(reminder);
+        Reminder savedReminder = reminderRepository.save(reminder);
+        adherenceService.invalidateMedication(medication.getId());
+        reminderScheduler.schedule(savedReminder.getId());
+        return savedReminder;
     }
 
     public ReminderResponse createReminder(CreateReminderRequest request) {
@@ -69,6 +75,8 @@ public class ReminderService {
         reminder.setEnabled(request.enabled());
 
         Reminder savedReminder = reminderRepository.save(reminder);
+        adherenceService.invalidateMedication(request.medicationId());
+        reminderScheduler.schedule(savedReminder.getId());
         log.info("Successfully created reminder with id: {} for medication: {}", savedReminder.getId(),
                 request.medicationId());
 
@@ -107,6 +115,8 @@ public class ReminderService {
         }
 
         Reminder savedReminder = reminderRepository.save(reminder);
+        adherenceService.invalidateMedication(reminder.getMedication().getId());
+        reminderScheduler.schedule(id);
         log.info("Successfully updated reminder with id: {}", id);
 
         return reminderMapperImpl.toResponse(savedReminder);
@@ -115,11 +125,11 @@ public class ReminderService {
     public void deleteReminder(Long id) {
         log.info("Deleting reminder with id: {}", id);
 
-        if (!reminderRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Reminder not found with id: " + id);
-        }
+        Reminder reminder = reminderRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Reminder not found with id: " + id));
 
-        reminderRepository.deleteById(id);
+        reminderRepository.delete(reminder);
+        adherenceService.invalidateMedication(reminder.getMedication().getId());
         log.info("Successfully deleted reminder with id: {}", id);
     }
 
@@ -131,9 +141,15 @@ public class ReminderService {
 
         reminder.setEnabled(!reminder.isEnabled());
         Reminder savedReminder = reminderRepository.save(reminder);
+        adherenceService.invalidateMedication(reminder.getMedication().getId());
+        reminderScheduler.schedule(id);
 
         log.info("Successfully toggled reminder enabled status to {} for id: {}", savedReminder.isEnabled(), id);
         return reminderMapperImpl.toResponse(savedReminder);
     }
 
+    public void rescheduleForMedication(Long medicationId) {
+        log.debug("Rescheduling reminders for medication id: {}", medicationId);
+        reminderScheduler.scheduleForMedication(medicationId);
+    }
 }
@@ -0,0 +1,4 @@
+-- Move the intake id sequence past the highest seeded id (runs after data-local.sql).
+-- With allocationSize = 50 Hibernate hands out nextval - 49 .. nextval, so the
+-- sequence has to restart at MAX(id) + 50 or above.
+ALTER SEQUENCE medication_intakes_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 50 FROM medication_intakes);
@@ -11,6 +11,9 @@ INSERT INTO medications (id, name, description, img_url, dosage, active, start_d
 (2, 'Vitamin D', 'Daily vitamin supplement', 'https://res.cloudinary.com/pillpal/image/upload/v1758126315/es-vitamins-d3-tablets-4k-1_llkk9r.jpg', '1000 IU', true, '2024-01-01', NULL, true, 1),
 (3, 'Metformin', 'Diabetes medication', 'https://res.cloudinary.com/pillpal/image/upload/v1758126599/metformin_ddx4hr.jpg', '500mg', true, '2024-01-01', '2024-06-30', false, 1);
 
+-- Backfill normalized names used by the search indexes
+UPDATE medications SET name_normalized = LOWER(TRIM(REGEXP_REPLACE(name, '\s+', ' ')));
+
 -- Reminders
 INSERT INTO reminders (id, time, frequency, enabled, medication_id) VALUES
 (1, '08:00:00', 'DAILY', true, 1),
@@ -0,0 +1,6 @@
+-- Move the intake id sequence past the highest seeded id (runs after data.sql).
+-- With allocationSize = 50 Hibernate hands out next_val - 49 .. next_val, so the
+-- stored value has to be at least MAX(id) + 50.
+UPDATE medication_intakes_seq
+SET next_val = (SELECT COALESCE(MAX(id), 0) + 50 FROM medication_intakes)
+WHERE next_val < (SELECT COALESCE(MAX(id), 0) + 50 FROM medication_intakes);
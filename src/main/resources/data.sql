@@ -35,6 +35,9 @@ end_date=VALUES(end_date),
 lifetime=VALUES(lifetime),
 user_id=VALUES(user_id);
 
+-- Backfill normalized names used by the search indexes
+UPDATE medications SET name_normalized = LOWER(TRIM(REGEXP_REPLACE(name, '[[:space:]]+', ' ')));
+
 -- Reminders
 INSERT INTO reminders (id, time, frequency, enabled, medication_id) VALUES
 (1, '08:00:00', 'DAILY', true, 1),
@@ -73,4 +76,4 @@ INSERT INTO medication_intakes (id, date_time, status, medication_id) VALUES
 ON DUPLICATE KEY UPDATE
 date_time=VALUES(date_time),
 status=VALUES(status),
-medication_id=VALUES(medication_id);
\ No newline at end of file
+medication_id=VALUES(medication_id);
@@ -0,0 +1,227 @@
+package com.project.pillpal.cloudinary;
+
+import com.cloudinary.api.exceptions.BadRequest;
+import com.project.pillpal.exceptions.CloudinaryRequestException;
+import com.project.pillpal.exceptions.CloudinaryUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CloudinaryGuardTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final StubCloudinary cloudinary = new StubCloudinary();
+    private CloudinaryGuard cloudinaryGuard;
+
+    @TempDir
+    private Path dir;
+
+    private Path image;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        image = Files.write(dir.resolve("aspirin.jpg"), new byte[] { 1, 2, 3 });
+    }
+
+    @AfterEach
+    void tearDown() {
+        cloudinaryGuard.shutdown();
+    }
+
+    @Test
+    void testSlowUploadTimesOut() {
+        cloudinary.withLatency(Duration.ofSeconds(5));
+        CloudinaryService cloudinaryService = service(100, 8, 5, 30_000);
+
+        long started = System.nanoTime();
+        assertThrows(CloudinaryUnavailableException.class,
+                () -> cloudinaryService.uploadNormalizedMedicationImage(image));
+
+        assertTrue(Duration.ofNanos(System.nanoTime() - started).compareTo(Duration.ofSeconds(2)) < 0);
+        assertEquals(1, count("upload", "timeout"));
+    }
+
+    @Test
+    void testCircuitOpensAfterConsecutiveFailures() {
+        cloudinary.failing();
+        CloudinaryService cloudinaryService = service(5_000, 8, 3, 30_000);
+
+        for (int i = 0; i < 3; i++) {
+            IOException e = assertThrows(IOException.class,
+                    () -> cloudinaryService.uploadNormalizedMedicationImage(image));
+            assertFalse(e instanceof CloudinaryUnavailableException);
+        }
+        long uploadedBytes = cloudinary.uploadedBytes();
+
+        assertEquals(CloudinaryGuard.State.OPEN, cloudinaryGuard.state());
+        assertThrows(CloudinaryUnavailableException.class,
+                () -> cloudinaryService.uploadNormalizedMedicationImage(image));
+        assertEquals(uploadedBytes, cloudinary.uploadedBytes());
+        assertEquals(1, count("upload", "rejected"));
+        assertEquals(1, state("open"));
+        assertEquals(0, state("closed"));
+    }
+
+    @Test
+    void testClientErrorsDoNotOpenCircuit() {
+        cloudinary.rejecting(400);
+        CloudinaryService cloudinaryService = service(5_000, 8, 2, 30_000);
+
+        for (int i = 0; i < 3; i++) {
+            CloudinaryRequestException e = assertThrows(CloudinaryRequestException.class,
+                    () -> cloudinaryService.uploadNormalizedMedicationImage(image));
+            assertEquals(400, e.getStatusCode());
+        }
+
+        assertEquals(CloudinaryGuard.State.CLOSED, cloudinaryGuard.state());
+        assertEquals(3, count("upload", "client-error"));
+    }
+
+    @Test
+    void testServerErrorsOpenCircuit() {
+        cloudinary.rejecting(503);
+        CloudinaryService cloudinaryService = service(5_000, 8, 2, 30_000);
+
+        for (int i = 0; i < 2; i++) {
+            assertThrows(CloudinaryRequestException.class,
+                    () -> cloudinaryService.uploadNormalizedMedicationImage(image));
+        }
+
+        assertEquals(CloudinaryGuard.State.OPEN, cloudinaryGuard.state());
+        assertEquals(2, count("upload", "failure"));
+    }
+
+    @Test
+    void testOutageClassification() {
+        assertTrue(CloudinaryGuard.isOutage(new CloudinaryUnavailableException("timed out")));
+        assertTrue(CloudinaryGuard.isOutage(new IOException("Connection reset")));
+        assertTrue(CloudinaryGuard.isOutage(new CloudinaryRequestException(500, "Internal error")));
+        assertTrue(CloudinaryGuard.isOutage(new RuntimeException(
+                "Server returned unexpected status code - 502 - Bad Gateway")));
+        assertFalse(CloudinaryGuard.isOutage(new CloudinaryRequestException(404, "Not found")));
+        assertFalse(CloudinaryGuard.isOutage(new IOException("Cloudinary delete-resources failed",
+                new BadRequest("Invalid public id"))));
+        assertFalse(CloudinaryGuard.isOutage(new IllegalStateException("Unexpected")));
+    }
+
+    @Test
+    void testSuccessResetsFailureCount() throws IOException {
+        cloudinary.failing();
+        CloudinaryService cloudinaryService = service(5_000, 8, 2, 30_000);
+
+        assertThrows(IOException.class, () -> cloudinaryService.uploadNormalizedMedicationImage(image));
+        cloudinary.healthy();
+        cloudinaryService.uploadNormalizedMedicationImage(image);
+        cloudinary.failing();
+        assertThrows(IOException.class, () -> cloudinaryService.uploadNormalizedMedicationImage(image));
+
+        assertEquals(CloudinaryGuard.State.CLOSED, cloudinaryGuard.state());
+    }
+
+    @Test
+    void testSuccessfulProbeClosesCircuit() throws Exception {
+        cloudinary.failing();
+        CloudinaryService cloudinaryService = service(5_000, 8, 1, 100);
+        assertThrows(IOException.class, () -> cloudinaryService.uploadNormalizedMedicationImage(image));
+        assertEquals(CloudinaryGuard.State.OPEN, cloudinaryGuard.state());
+
+        Thread.sleep(150);
+        assertEquals(CloudinaryGuard.State.HALF_OPEN, cloudinaryGuard.state());
+        cloudinary.healthy();
+        cloudinaryService.uploadNormalizedMedicationImage(image);
+
+        assertEquals(CloudinaryGuard.State.CLOSED, cloudinaryGuard.state());
+        assertEquals(1, cloudinary.uploads());
+    }
+
+    @Test
+    void testFailedProbeReopensCircuit() throws Exception {
+        cloudinary.failing();
+        CloudinaryService cloudinaryService = service(5_000, 8, 1, 100);
+        assertThrows(IOException.class, () -> cloudinaryService.uploadNormalizedMedicationImage(image));
+
+        Thread.sleep(150);
+        assertThrows(IOException.class, () -> cloudinaryService.uploadNormalizedMedicationImage(image));
+
+        assertEquals(CloudinaryGuard.State.OPEN, cloudinaryGuard.state());
+        assertThrows(CloudinaryUnavailableException.class,
+                () -> cloudinaryService.uploadNormalizedMedicationImage(image));
+    }
+
+    @Test
+    void testHalfOpenAdmitsOnlyOneProbe() throws Exception {
+        cloudinary.failing();
+        CloudinaryService cloudinaryService = service(5_000, 8, 1, 100);
+        assertThrows(IOException.class, () -> cloudinaryService.uploadNormalizedMedicationImage(image));
+
+        Thread.sleep(150);
+        cloudinary.healthy().withLatency(Duration.ofMillis(500));
+        CompletableFuture<Void> probe = CompletableFuture.runAsync(() -> upload(cloudinaryService));
+        awaitAvailableSlots(7);
+
+        assertThrows(CloudinaryUnavailableException.class,
+                () -> cloudinaryService.uploadNormalizedMedicationImage(image));
+        probe.join();
+        assertEquals(CloudinaryGuard.State.CLOSED, cloudinaryGuard.state());
+    }
+
+    @Test
+    void testBulkheadRejectsWhenAllSlotsAreBusy() throws Exception {
+        cloudinary.withLatency(Duration.ofMillis(500));
+        CloudinaryService cloudinaryService = service(5_000, 1, 5, 30_000);
+
+        CompletableFuture<Void> slow = CompletableFuture.runAsync(() -> upload(cloudinaryService));
+        awaitAvailableSlots(0);
+
+        assertThrows(CloudinaryUnavailableException.class,
+                () -> cloudinaryService.uploadNormalizedMedicationImage(image));
+        slow.join();
+        assertEquals(1, count("upload", "bulkhead-full"));
+        assertEquals(CloudinaryGuard.State.CLOSED, cloudinaryGuard.state());
+        assertEquals(1, meterRegistry.get("cloudinary.bulkhead.available").gauge().value());
+    }
+
+    private CloudinaryService service(long timeoutMs, int maxConcurrentCalls, int failureThreshold,
+            long openDurationMs) {
+        cloudinaryGuard = new CloudinaryGuard(meterRegistry, timeoutMs, maxConcurrentCalls, 0, failureThreshold,
+                openDurationMs, 1);
+        return new CloudinaryService(cloudinary, new ImageNormalizer(new SimpleMeterRegistry(), false, 1, 1,
+                0.85f, 1_000), cloudinaryGuard);
+    }
+
+    private void upload(CloudinaryService cloudinaryService) {
+        try {
+            cloudinaryService.uploadNormalizedMedicationImage(image);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void awaitAvailableSlots(int slots) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (meterRegistry.get("cloudinary.bulkhead.available").gauge().value() > slots
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private double count(String operation, String outcome) {
+        return meterRegistry.get("cloudinary.calls").tag("operation", operation).tag("outcome", outcome)
+                .counter().count();
+    }
+
+    private double state(String state) {
+        return meterRegistry.get("cloudinary.circuit.state").tag("state", state).gauge().value();
+    }
+}
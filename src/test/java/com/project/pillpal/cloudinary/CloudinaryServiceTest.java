@@ -3,17 +3,28 @@ package com.project.pillpal.cloudinary;
 import com.cloudinary.Cloudinary;
 import com.cloudinary.Uploader;
 import com.cloudinary.Url;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -32,11 +43,17 @@ class CloudinaryServiceTest {
     @Mock
     private Url url;
 
+    private final ImageNormalizer imageNormalizer = new ImageNormalizer(new SimpleMeterRegistry(), false, 1, 1,
+            0.85f, 1_000);
+
+    private final CloudinaryGuard cloudinaryGuard = new CloudinaryGuard(new SimpleMeterRegistry(), 5_000, 8, 0, 5,
+            30_000, 1);
+
     private CloudinaryService cloudinaryService;
 
     @BeforeEach
     void setUp() {
-        cloudinaryService = new CloudinaryService(cloudinary);
+        cloudinaryService = new CloudinaryService(cloudinary, imageNormalizer, cloudinaryGuard);
     }
 
     @Test
@@ -47,13 +64,13 @@ class CloudinaryServiceTest {
         expectedResult.put("public_id", "test123");
         expectedResult.put("url", "https://example.com/test123.jpg");
 
-        when(uploader.upload(any(byte[].class), anyMap())).thenReturn(expectedResult);
+        when(uploader.upload(any(File.class), anyMap())).thenReturn(expectedResult);
 
         Map<String, Object> result = cloudinaryService.uploadFile(file);
 
         assertNotNull(result);
         assertEquals("test123", result.get("public_id"));
-        verify(uploader).upload(any(byte[].class), anyMap());
+        verify(uploader).upload(any(File.class), anyMap());
     }
 
     @Test
@@ -77,13 +94,27 @@ class CloudinaryServiceTest {
         expectedResult.put("public_id", "pillpal/medications/test123");
         expectedResult.put("url", "https://example.com/test123.jpg");
 
-        when(uploader.upload(any(byte[].class), anyMap())).thenReturn(expectedResult);
+        when(uploader.upload(any(File.class), anyMap())).thenReturn(expectedResult);
 
         Map<String, Object> result = cloudinaryService.uploadMedicationImage(file);
 
         assertNotNull(result);
         assertEquals("pillpal/medications/test123", result.get("public_id"));
-        verify(uploader).upload(any(byte[].class), anyMap());
+        verify(uploader).upload(any(File.class), anyMap());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testUploadMedicationImageLetsCloudinaryStripUnnormalizedImages() throws IOException {
+        when(cloudinary.uploader()).thenReturn(uploader);
+        MultipartFile file = new MockMultipartFile("file", "medication.webp", "image/webp", "RIFF....WEBP".getBytes());
+        when(uploader.upload(any(File.class), anyMap())).thenReturn(Map.of("public_id", "pillpal/medications/webp"));
+
+        cloudinaryService.uploadMedicationImage(file);
+
+        ArgumentCaptor<Map<String, Object>> options = ArgumentCaptor.forClass(Map.class);
+        verify(uploader).upload(any(File.class), options.capture());
+        assertEquals("w_800,h_600,c_limit,q_auto,f_auto,fl_strip_profile", options.getValue().get("transformation"));
     }
 
     @Test
@@ -232,4 +263,84 @@ class CloudinaryServiceTest {
         String result = cloudinaryService.extractPublicIdFromUrl(imageUrl);
         assertEquals("", result);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testUploadMedicationImageStreamsFromDiskWithoutHeapCopy(@TempDir Path dir) throws IOException {
+        int size = 10 * 1024 * 1024;
+        Path photo = dir.resolve("photo.jpg");
+        byte[] chunk = new byte[64 * 1024];
+        new Random(42).nextBytes(chunk);
+        try (OutputStream out = Files.newOutputStream(photo)) {
+            for (int written = 0; written < size; written += chunk.length) {
+                out.write(chunk);
+            }
+        }
+        StubCloudinary stubCloudinary = new StubCloudinary();
+        CloudinaryService streamingService = new CloudinaryService(stubCloudinary, imageNormalizer,
+                cloudinaryGuard);
+        MultipartFile file = new DiskMultipartFile(photo, "image/jpeg");
+        streamingService.uploadMedicationImage(file);
+
+        long streamed = allocatedBytes(() -> streamingService.uploadMedicationImage(file));
+        long buffered = allocatedBytes(file::getBytes);
+
+        assertEquals(2L * size, stubCloudinary.uploadedBytes());
+        assertTrue(buffered >= size, "getBytes() allocated " + buffered + " bytes");
+        assertTrue(streamed < size / 10, "streaming upload allocated " + streamed + " bytes");
+    }
+
+    private static long allocatedBytes(IOAction action) throws IOException {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+                .getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        action.run();
+        return threads.getCurrentThreadAllocatedBytes() - before;
+    }
+
+    private interface IOAction {
+        void run() throws IOException;
+    }
+
+    private record DiskMultipartFile(Path path, String contentType) implements MultipartFile {
+
+        @Override
+        public String getName() {
+            return "image";
+        }
+
+        @Override
+        public String getOriginalFilename() {
+            return path.getFileName().toString();
+        }
+
+        @Override
+        public String getContentType() {
+            return contentType;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return getSize() == 0;
+        }
+
+        @Override
+        public long getSize() {
+            return path.toFile().length();
+        }
+
+        @Override
+        public byte[] getBytes() throws IOException {
+            return Files.readAllBytes(path);
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return Files.newInputStream(path);
+        }
+
+        @Override
+        public void transferTo(File dest) throws IOException {
+            Files.copy(path, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
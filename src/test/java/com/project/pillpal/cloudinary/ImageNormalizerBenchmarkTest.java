@@ -0,0 +1,110 @@
+package com.project.pillpal.cloudinary;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Tag("benchmark")
+@Slf4j
+class ImageNormalizerBenchmarkTest {
+
+    private static final int PHOTOS = 12;
+    private static final int CONCURRENCY = 2;
+
+    @TempDir
+    private Path dir;
+
+    private final ImageNormalizer imageNormalizer = new ImageNormalizer(new SimpleMeterRegistry(), true,
+            CONCURRENCY, PHOTOS, 0.85f, 60_000);
+
+    @AfterEach
+    void tearDown() {
+        imageNormalizer.shutdown();
+    }
+
+    @Test
+    void benchmarkNormalizePhonePhotos() throws Exception {
+        Path photo = phonePhoto(dir.resolve("photo.jpg"));
+        long originalSize = Files.size(photo);
+        Files.delete(imageNormalizer.normalize(photo));
+
+        List<Future<Path>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < PHOTOS; i++) {
+                results.add(clients.submit(() -> imageNormalizer.normalize(photo)));
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long normalizedSize = 0;
+        for (Future<Path> result : results) {
+            Path normalized = result.get();
+            assertNotEquals(photo, normalized);
+            BufferedImage image = ImageIO.read(normalized.toFile());
+            assertTrue(image.getWidth() <= ImageNormalizer.MAX_WIDTH);
+            assertTrue(image.getHeight() <= ImageNormalizer.MAX_HEIGHT);
+            normalizedSize += Files.size(normalized);
+            Files.delete(normalized);
+        }
+
+        long uploadedBefore = originalSize * PHOTOS;
+        double saved = 1.0 - (double) normalizedSize / uploadedBefore;
+        log.info(String.format("Normalized %d 4032x3024 photos on %d workers in %.2fs (%.1f images/s): "
+                + "%d KB -> %d KB per photo, %.1f%% upload bytes saved",
+                PHOTOS, CONCURRENCY, seconds, PHOTOS / seconds, originalSize / 1024,
+                normalizedSize / PHOTOS / 1024, saved * 100));
+        assertTrue(saved > 0.8, "expected normalization to save most upload bytes, saved " + saved);
+    }
+
+    private static Path phonePhoto(Path target) throws IOException {
+        int width = 4032;
+        int height = 3024;
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(7);
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int noise = random.nextInt(24);
+                int r = (x * 255 / width + noise) & 0xFF;
+                int g = (y * 255 / height + noise) & 0xFF;
+                int b = ((x + y) * 127 / (width + height) + noise) & 0xFF;
+                row[x] = r << 16 | g << 8 | b;
+            }
+            image.setRGB(0, y, width, 1, row, 0, width);
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(0.95f);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return target;
+    }
+}
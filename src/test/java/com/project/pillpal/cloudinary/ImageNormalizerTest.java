@@ -0,0 +1,247 @@
+package com.project.pillpal.cloudinary;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageNormalizerTest {
+
+    @TempDir
+    private Path dir;
+
+    private final ImageNormalizer imageNormalizer = new ImageNormalizer(new SimpleMeterRegistry(), true, 2, 4,
+            0.85f, 10_000);
+
+    @AfterEach
+    void tearDown() {
+        imageNormalizer.shutdown();
+    }
+
+    @Test
+    void testNormalizeDownsizesLargeJpegWithinBounds() throws IOException {
+        Path source = jpeg("large.jpg", solid(4000, 3000, Color.ORANGE), 0);
+
+        Path normalized = imageNormalizer.normalize(source);
+
+        assertNotEquals(source, normalized);
+        BufferedImage result = ImageIO.read(normalized.toFile());
+        assertEquals(800, result.getWidth());
+        assertEquals(600, result.getHeight());
+        assertTrue(Files.size(normalized) < Files.size(source));
+    }
+
+    @Test
+    void testNormalizeKeepsSmallImageSize() throws IOException {
+        Path source = jpeg("small.jpg", solid(300, 200, Color.ORANGE), 0);
+
+        BufferedImage result = ImageIO.read(imageNormalizer.normalize(source).toFile());
+
+        assertEquals(300, result.getWidth());
+        assertEquals(200, result.getHeight());
+    }
+
+    @Test
+    void testNormalizeAppliesExifOrientationAndStripsExif() throws IOException {
+        BufferedImage image = new BufferedImage(400, 200, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(0, 0, 200, 200);
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(200, 0, 200, 200);
+        graphics.dispose();
+        Path source = jpeg("rotated.jpg", image, 6);
+        assertEquals(6, ExifOrientation.read(source));
+
+        Path normalized = imageNormalizer.normalize(source);
+
+        BufferedImage result = ImageIO.read(normalized.toFile());
+        assertEquals(200, result.getWidth());
+        assertEquals(400, result.getHeight());
+        assertTrue(isRed(result.getRGB(100, 100)));
+        assertTrue(isBlue(result.getRGB(100, 300)));
+        assertEquals(ExifOrientation.NORMAL, ExifOrientation.read(normalized));
+        assertFalse(new String(Files.readAllBytes(normalized), StandardCharsets.ISO_8859_1).contains("Exif"));
+    }
+
+    @Test
+    void testNormalizeKeepsTransparencyAsPng() throws IOException {
+        BufferedImage image = new BufferedImage(1000, 1000, BufferedImage.TYPE_INT_ARGB);
+        Path source = dir.resolve("transparent.png");
+        ImageIO.write(image, "png", source.toFile());
+
+        Path normalized = imageNormalizer.normalize(source);
+
+        assertTrue(normalized.toString().endsWith(".png"));
+        BufferedImage result = ImageIO.read(normalized.toFile());
+        assertEquals(600, result.getWidth());
+        assertEquals(600, result.getHeight());
+        assertTrue(result.getColorModel().hasAlpha());
+    }
+
+    @Test
+    void testNormalizePassesUnsupportedFileThroughForCloudinaryToStrip() throws IOException {
+        Path source = Files.writeString(dir.resolve("photo.heic"), "not an image");
+
+        assertEquals(source, imageNormalizer.normalize(source));
+    }
+
+    @Test
+    void testNormalizePassesWebpThroughWhenPoolIsBusy() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ImageNormalizer busy = new ImageNormalizer(meterRegistry, true, 1, 1, 0.85f, 10_000);
+        Path source = Files.write(dir.resolve("photo.webp"), webp());
+        CountDownLatch release = saturate(busy);
+        try {
+            assertEquals(source, busy.normalize(source));
+            assertEquals(1, meterRegistry.get("images.normalize").tag("outcome", "passthrough").counter().count());
+        } finally {
+            release.countDown();
+            busy.shutdown();
+        }
+    }
+
+    @Test
+    void testNormalizePassesGifThroughWhenPoolIsBusy() throws Exception {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ImageNormalizer busy = new ImageNormalizer(meterRegistry, true, 1, 1, 0.85f, 10_000);
+        Path source = dir.resolve("animated.gif");
+        ImageIO.write(solid(1000, 1000, Color.ORANGE), "gif", source.toFile());
+        CountDownLatch release = saturate(busy);
+        try {
+            assertEquals(source, busy.normalize(source));
+            assertEquals(1, meterRegistry.get("images.normalize").tag("outcome", "busy").counter().count());
+            assertEquals(1, meterRegistry.get("images.normalize").tag("outcome", "passthrough").counter().count());
+        } finally {
+            release.countDown();
+            busy.shutdown();
+        }
+    }
+
+    @Test
+    void testNormalizeStripsExifWhenNormalizationTimesOut() throws IOException {
+        ImageNormalizer impatient = new ImageNormalizer(new SimpleMeterRegistry(), true, 1, 1, 0.85f, 0);
+        Path source = jpeg("slow.jpg", solid(4000, 3000, Color.ORANGE), 6);
+        try {
+            Path stripped = impatient.normalize(source);
+
+            assertNotEquals(source, stripped);
+            assertFalse(new String(Files.readAllBytes(stripped), StandardCharsets.ISO_8859_1).contains("Exif"));
+            BufferedImage result = ImageIO.read(stripped.toFile());
+            assertEquals(4000, result.getWidth());
+            assertEquals(3000, result.getHeight());
+        } finally {
+            impatient.shutdown();
+        }
+    }
+
+    @Test
+    void testStripRemovesPngTextChunks() throws IOException {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        ImageIO.write(solid(10, 10, Color.ORANGE), "png", encoded);
+        byte[] png = encoded.toByteArray();
+        byte[] text = "Location\0Home".getBytes(StandardCharsets.ISO_8859_1);
+        ByteBuffer chunk = ByteBuffer.allocate(12 + text.length);
+        chunk.putInt(text.length).put("tEXt".getBytes(StandardCharsets.US_ASCII)).put(text).putInt(0);
+        ByteArrayOutputStream withText = new ByteArrayOutputStream();
+        withText.write(png, 0, 33);
+        withText.write(chunk.array());
+        withText.write(png, 33, png.length - 33);
+        Path source = Files.write(dir.resolve("tagged.png"), withText.toByteArray());
+
+        Path stripped = ImageMetadata.strip(source);
+
+        assertFalse(new String(Files.readAllBytes(stripped), StandardCharsets.ISO_8859_1).contains("tEXt"));
+        assertEquals(10, ImageIO.read(stripped.toFile()).getWidth());
+        Files.delete(stripped);
+    }
+
+    @Test
+    void testNormalizeReturnsSourceWhenDisabled() throws IOException {
+        ImageNormalizer disabled = new ImageNormalizer(new SimpleMeterRegistry(), false, 1, 1, 0.85f, 1_000);
+        Path source = jpeg("large.jpg", solid(4000, 3000, Color.ORANGE), 0);
+
+        assertEquals(source, disabled.normalize(source));
+    }
+
+    private static CountDownLatch saturate(ImageNormalizer normalizer) {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(normalizer, "executor");
+        CountDownLatch release = new CountDownLatch(1);
+        for (int i = 0; i < executor.getMaximumPoolSize() + executor.getQueue().remainingCapacity(); i++) {
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        return release;
+    }
+
+    private static byte[] webp() {
+        ByteBuffer webp = ByteBuffer.allocate(30);
+        webp.put("RIFF".getBytes(StandardCharsets.US_ASCII)).putInt(Integer.reverseBytes(22));
+        webp.put("WEBPVP8 ".getBytes(StandardCharsets.US_ASCII)).putInt(Integer.reverseBytes(10));
+        return webp.array();
+    }
+
+    private Path jpeg(String name, BufferedImage image, int orientation) throws IOException {
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", encoded);
+        byte[] bytes = encoded.toByteArray();
+        if (orientation == 0) {
+            return Files.write(dir.resolve(name), bytes);
+        }
+
+        ByteBuffer exif = ByteBuffer.allocate(36);
+        exif.putShort((short) 0xFFE1).putShort((short) 34);
+        exif.put("Exif".getBytes(StandardCharsets.US_ASCII)).putShort((short) 0);
+        exif.put("MM".getBytes(StandardCharsets.US_ASCII)).putShort((short) 42).putInt(8);
+        exif.putShort((short) 1);
+        exif.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        exif.putInt(0);
+
+        ByteArrayOutputStream withExif = new ByteArrayOutputStream();
+        withExif.write(bytes, 0, 2);
+        withExif.write(exif.array());
+        withExif.write(bytes, 2, bytes.length - 2);
+        return Files.write(dir.resolve(name), withExif.toByteArray());
+    }
+
+    private static BufferedImage solid(int width, int height, Color color) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(color);
+        graphics.fillRect(0, 0, width, height);
+        graphics.dispose();
+        return image;
+    }
+
+    private static boolean isRed(int rgb) {
+        Color color = new Color(rgb);
+        return color.getRed() > 200 && color.getBlue() < 60;
+    }
+
+    private static boolean isBlue(int rgb) {
+        Color color = new Color(rgb);
+        return color.getBlue() > 200 && color.getRed() < 60;
+    }
+}
@@ -0,0 +1,97 @@
+package com.project.pillpal.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConnectionLimitingDataSourceTest {
+
+    @Mock
+    private DataSource dataSource;
+
+    @Test
+    void testCloseReleasesPermitOnce() throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        ConnectionLimitingDataSource limiter = new ConnectionLimitingDataSource(dataSource, 2, Duration.ofMillis(10));
+
+        Connection first = limiter.getConnection();
+        limiter.getConnection();
+        assertEquals(2, limiter.getActive());
+
+        first.close();
+        first.close();
+        assertEquals(1, limiter.getActive());
+        verify(connection, times(2)).close();
+    }
+
+    @Test
+    void testGetConnectionTimesOutWhenAllPermitsAreTaken() throws SQLException {
+        when(dataSource.getConnection()).thenReturn(mock(Connection.class));
+        ConnectionLimitingDataSource limiter = new ConnectionLimitingDataSource(dataSource, 1, Duration.ofMillis(10));
+
+        limiter.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, limiter::getConnection);
+        verify(dataSource, times(1)).getConnection();
+    }
+
+    @Test
+    void testGetConnectionReleasesPermitWhenTargetFails() throws SQLException {
+        when(dataSource.getConnection()).thenThrow(new SQLException("pool exhausted"));
+        ConnectionLimitingDataSource limiter = new ConnectionLimitingDataSource(dataSource, 1, Duration.ofMillis(10));
+
+        assertThrows(SQLException.class, limiter::getConnection);
+        assertEquals(0, limiter.getActive());
+    }
+
+    @Test
+    void testVirtualThreadsNeverExceedLimit() throws Exception {
+        AtomicInteger open = new AtomicInteger();
+        AtomicInteger maxOpen = new AtomicInteger();
+        when(dataSource.getConnection()).thenAnswer(invocation -> {
+            maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+            Connection connection = mock(Connection.class);
+            doAnswer(close -> open.decrementAndGet()).when(connection).close();
+            return connection;
+        });
+        ConnectionLimitingDataSource limiter = new ConnectionLimitingDataSource(dataSource, 5, Duration.ofSeconds(10));
+
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 500; i++) {
+                futures.add(executor.submit(() -> {
+                    try (Connection connection = limiter.getConnection()) {
+                        Thread.sleep(1);
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        }
+
+        assertTrue(maxOpen.get() <= 5);
+        assertEquals(0, limiter.getActive());
+        assertEquals(0, limiter.getWaiting());
+    }
+}
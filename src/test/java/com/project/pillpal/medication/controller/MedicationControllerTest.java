@@ -80,6 +80,24 @@ class MedicationControllerTest {
                                 .andExpect(jsonPath("$[0].name").value("Test Medication"));
         }
 
+        @Test
+        void testGetMedicationsByUserIdPage() throws Exception {
+                mockMvc.perform(get("/api/medications/user/{userId}/page", user.getId())
+                                .param("size", "10"))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                                .andExpect(jsonPath("$.items").isArray())
+                                .andExpect(jsonPath("$.items[0].name").value("Test Medication"))
+                                .andExpect(jsonPath("$.hasMore").value(false));
+        }
+
+        @Test
+        void testSearchMedicationsByNamePageEmpty() throws Exception {
+                mockMvc.perform(get("/api/medications/search/page")
+                                .param("name", " "))
+                                .andExpect(status().isBadRequest());
+        }
+
         @Test
         void testGetMedicationById() throws Exception {
                 mockMvc.perform(get("/api/medications/{id}", medication.getId()))
@@ -89,6 +107,14 @@ class MedicationControllerTest {
                                 .andExpect(jsonPath("$.name").value("Test Medication"));
         }
 
+        @Test
+        void testGetMedicationImageStatus() throws Exception {
+                mockMvc.perform(get("/api/medications/{id}/image", medication.getId()))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$.medicationId").value(medication.getId()))
+                                .andExpect(jsonPath("$.imageStatus").value("NONE"));
+        }
+
         @Test
         void testGetMedicationByIdNotFound() throws Exception {
                 mockMvc.perform(get("/api/medications/{id}", 999L))
@@ -99,7 +125,7 @@ class MedicationControllerTest {
         void testUpdateMedicationNotFound() throws Exception {
                 UpdateMedicationRequest request = new UpdateMedicationRequest(
                                 "Updated Medication", "Updated Description", null, "300mg", true,
-                                LocalDate.now().plusDays(1), LocalDate.now().plusDays(90), true);
+                                LocalDate.now().plusDays(1), LocalDate.now().plusDays(90), true, null);
 
                 mockMvc.perform(put("/api/medications/{id}", 999L)
                                 .contentType(MediaType.APPLICATION_JSON)
@@ -131,6 +157,17 @@ class MedicationControllerTest {
                                 .andExpect(jsonPath("$[0].name").value("Test Medication"));
         }
 
+        @Test
+        void testGetMedicationCountsByUserId() throws Exception {
+                mockMvc.perform(get("/api/medications/user/{userId}/count", user.getId()))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                                .andExpect(jsonPath("$.total").isNumber())
+                                .andExpect(jsonPath("$.active").isNumber())
+                                .andExpect(jsonPath("$.lifetime").isNumber())
+                                .andExpect(jsonPath("$.dated").isNumber());
+        }
+
         @Test
         void testGetMedicationsByTimeOfDay() throws Exception {
                 mockMvc.perform(get("/api/medications/status"))
@@ -139,6 +176,17 @@ class MedicationControllerTest {
                                 .andExpect(jsonPath("$").isArray());
         }
 
+        @Test
+        void testGetMedicationsByTimeOfDayForUser() throws Exception {
+                mockMvc.perform(get("/api/medications/user/{userId}/status", user.getId())
+                                .param("size", "1"))
+                                .andExpect(status().isOk())
+                                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                                .andExpect(jsonPath("$.items").isArray())
+                                .andExpect(jsonPath("$.items.length()").value(1))
+                                .andExpect(jsonPath("$.items[0].status").value("pending"));
+        }
+
         @Test
         void testGetMedicationStatusById() throws Exception {
                 mockMvc.perform(get("/api/medications/{id}/status", medication.getId()))
@@ -157,6 +205,14 @@ class MedicationControllerTest {
                                 .andExpect(jsonPath("$[0].name").value("Test Medication"));
         }
 
+        @Test
+        void testSearchMedicationsByUserIdAndNameNormalizesTerm() throws Exception {
+                mockMvc.perform(get("/api/medications/user/{userId}/search", user.getId())
+                                .param("name", "TEST   medication"))
+                                .andExpect(status().isOk())
+                                .andExpect(jsonPath("$[0].name").value("Test Medication"));
+        }
+
         @Test
         void testSearchMedicationsByNameEmpty() throws Exception {
                 mockMvc.perform(get("/api/medications/search")
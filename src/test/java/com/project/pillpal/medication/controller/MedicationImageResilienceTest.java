@@ -0,0 +1,121 @@
+package com.project.pillpal.medication.controller;
+
+import com.cloudinary.Cloudinary;
+import com.project.pillpal.cloudinary.CloudinaryGuard;
+import com.project.pillpal.cloudinary.StubCloudinary;
+import com.project.pillpal.medication.entity.ImageStatus;
+import com.project.pillpal.medication.entity.Medication;
+import com.project.pillpal.medication.repository.MedicationRepository;
+import com.project.pillpal.user.entity.Role;
+import com.project.pillpal.user.entity.User;
+import com.project.pillpal.user.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureWebMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+                "cloudinary.resilience.timeout-ms=200",
+                "cloudinary.resilience.failure-threshold=2",
+                "cloudinary.resilience.open-duration-ms=60000",
+                "cloudinary.normalize.enabled=false"
+})
+@AutoConfigureWebMvc
+@ActiveProfiles("test")
+@Transactional
+class MedicationImageResilienceTest {
+
+        private static final String CURRENT_IMAGE = "https://res.cloudinary.com/stub/image/upload/v1/"
+                        + "pillpal/medications/current.png";
+
+        @TestConfiguration
+        static class SlowCloudinaryConfig {
+
+                @Bean
+                @Primary
+                Cloudinary slowCloudinary() {
+                        return new StubCloudinary().withLatency(Duration.ofSeconds(5));
+                }
+        }
+
+        @Autowired
+        private WebApplicationContext webApplicationContext;
+
+        @Autowired
+        private MedicationRepository medicationRepository;
+
+        @Autowired
+        private UserRepository userRepository;
+
+        @Autowired
+        private CloudinaryGuard cloudinaryGuard;
+
+        private MockMvc mockMvc;
+        private Medication medication;
+
+        @BeforeEach
+        void setUp() {
+                mockMvc = MockMvcBuilders.webAppContextSetup(webApplicationContext).build();
+
+                User user = userRepository.findByUsernameIgnoreCase("testuser").orElseGet(() -> {
+                        User newUser = new User();
+                        newUser.setUsername("testuser");
+                        newUser.setEmail("test@example.com");
+                        newUser.setPassword("password123");
+                        newUser.setRole(Role.ROLE_USER);
+                        return userRepository.save(newUser);
+                });
+
+                medication = new Medication();
+                medication.setName("Test Medication");
+                medication.setDosage("100mg");
+                medication.setActive(true);
+                medication.setStartDate(LocalDate.now());
+                medication.setLifetime(true);
+                medication.setImgUrl(CURRENT_IMAGE);
+                medication.setImageStatus(ImageStatus.UPLOADED);
+                medication.setUser(user);
+                medication = medicationRepository.save(medication);
+        }
+
+        @Test
+        void testUpdateWithImageKeepsCurrentImageWhenCloudinaryHangs() throws Exception {
+                for (int i = 0; i < 3; i++) {
+                        long started = System.nanoTime();
+
+                        mockMvc.perform(multipart(HttpMethod.PUT, "/api/medications/{id}/with-image",
+                                        medication.getId())
+                                        .file(new MockMultipartFile("image", "photo.jpg", "image/jpeg",
+                                                        new byte[] { 1, 2, (byte) i }))
+                                        .param("name", "Renamed Medication " + i))
+                                        .andExpect(status().isOk())
+                                        .andExpect(jsonPath("$.name").value("Renamed Medication " + i))
+                                        .andExpect(jsonPath("$.imgUrl").value(CURRENT_IMAGE))
+                                        .andExpect(jsonPath("$.imageStatus").value("UPLOADED"))
+                                        .andExpect(jsonPath("$.imageUpdateSkipped").value(true));
+
+                        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+                        assertTrue(elapsed.compareTo(Duration.ofSeconds(2)) < 0, "request took " + elapsed);
+                }
+
+                assertEquals(CloudinaryGuard.State.OPEN, cloudinaryGuard.state());
+        }
+}
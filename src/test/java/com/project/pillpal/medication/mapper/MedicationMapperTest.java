@@ -66,7 +66,8 @@ class MedicationMapperTest {
                 false,
                 LocalDate.now().plusDays(1),
                 LocalDate.now().plusDays(90),
-                true);
+                true,
+                null);
     }
 
     @Test
@@ -220,7 +221,8 @@ class MedicationMapperTest {
                 false,
                 LocalDate.now().plusDays(1),
                 LocalDate.now().plusDays(90),
-                true);
+                true,
+                null);
         medicationMapper.updateEntity(medication, requestWithEmptyName);
         assertThat(medication.getName()).isEqualTo("Test Medication");
         assertThat(medication.getDescription()).isEqualTo("Updated Description");
@@ -236,7 +238,8 @@ class MedicationMapperTest {
                 false,
                 LocalDate.now().plusDays(1),
                 LocalDate.now().plusDays(90),
-                true);
+                true,
+                null);
 
         medicationMapper.updateEntity(medication, requestWithBlankName);
 
@@ -254,7 +257,8 @@ class MedicationMapperTest {
                 false,
                 LocalDate.now().plusDays(1),
                 LocalDate.now().plusDays(90),
-                true);
+                true,
+                null);
 
         medicationMapper.updateEntity(medication, requestWithPlaceholders);
 
@@ -274,7 +278,8 @@ class MedicationMapperTest {
                 false,
                 LocalDate.now().plusDays(1),
                 LocalDate.now().plusDays(90),
-                true);
+                true,
+                null);
 
         medicationMapper.updateEntity(medication, requestWithEmptyStrings);
 
@@ -294,6 +299,7 @@ class MedicationMapperTest {
                 null,
                 null,
                 null,
+                null,
                 null);
 
         medicationMapper.updateEntity(medication, requestWithNulls);
@@ -0,0 +1,52 @@
+package com.project.pillpal.medication.repository;
+
+import com.project.pillpal.medication.entity.ImageDeletion;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class ImageDeletionRepositoryTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    @Autowired
+    private ImageDeletionRepository imageDeletionRepository;
+
+    @Test
+    void testLockDueIdsReturnsDueDeletionsOldestFirst() {
+        ImageDeletion late = deletion("pillpal/medications/late", NOW.minusMinutes(1));
+        ImageDeletion oldest = deletion("pillpal/medications/oldest", NOW.minusHours(1));
+        ImageDeletion exact = deletion("pillpal/medications/exact", NOW);
+        deletion("pillpal/medications/future", NOW.plusMinutes(1));
+
+        List<Long> ids = imageDeletionRepository.lockDueIds(NOW, 10);
+
+        assertEquals(List.of(oldest.getId(), late.getId(), exact.getId()), ids);
+    }
+
+    @Test
+    void testLockDueIdsHonoursLimit() {
+        ImageDeletion oldest = deletion("pillpal/medications/a", NOW.minusHours(2));
+        deletion("pillpal/medications/b", NOW.minusHours(1));
+
+        assertEquals(List.of(oldest.getId()), imageDeletionRepository.lockDueIds(NOW, 1));
+    }
+
+    private ImageDeletion deletion(String publicId, LocalDateTime nextAttemptAt) {
+        ImageDeletion deletion = new ImageDeletion();
+        deletion.setPublicId(publicId);
+        deletion.setNextAttemptAt(nextAttemptAt);
+        deletion.setCreatedAt(NOW.minusDays(1));
+        return imageDeletionRepository.saveAndFlush(deletion);
+    }
+}
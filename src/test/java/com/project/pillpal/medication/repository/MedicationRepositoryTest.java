@@ -0,0 +1,156 @@
+package com.project.pillpal.medication.repository;
+
+import com.project.pillpal.medication.dtos.MedicationResponse;
+import com.project.pillpal.medication.entity.Medication;
+import com.project.pillpal.user.entity.Role;
+import com.project.pillpal.user.entity.User;
+import com.project.pillpal.user.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class MedicationRepositoryTest {
+
+    @Autowired
+    private MedicationRepository medicationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private User user;
+    private User otherUser;
+
+    @BeforeEach
+    void setUp() {
+        user = user("repo-user");
+        otherUser = user("repo-other");
+    }
+
+    @Test
+    void testNameIsNormalizedOnSave() {
+        Medication saved = medication("  Vitamin   D3 ", user);
+
+        assertEquals("vitamin d3", saved.getNameNormalized());
+    }
+
+    @Test
+    void testNameTrigramsFollowRenames() {
+        Medication saved = medication("Aspirin", user);
+        assertEquals(Set.of("asp", "spi", "pir", "iri", "rin"), saved.getNameTrigrams());
+
+        saved.setName("Aspro");
+        medicationRepository.saveAndFlush(saved);
+
+        assertEquals(Set.of("asp", "spr", "pro"), saved.getNameTrigrams());
+    }
+
+    @Test
+    void testSearchMatchesSubstringThroughTrigram() {
+        medication("Amoxicillin", user);
+        medication("Penicillin V", user);
+        medication("Aspirin", user);
+
+        assertEquals(Set.of("Amoxicillin", "Penicillin V"), Set.copyOf(names(medicationRepository
+                .findResponsesByNameTrigramAndNameLikeAfter("cil", "%cillin%", 0L, Pageable.unpaged()))));
+    }
+
+    @Test
+    void testSearchMatchesNormalizedPrefix() {
+        medication("Vitamin D3", user);
+        medication("VITAMIN  C", user);
+        medication("Multi Vitamin", user);
+
+        assertEquals(Set.of("Vitamin D3", "VITAMIN  C"), Set.copyOf(names(medicationRepository
+                .findResponsesByNameLikeAfter("vitamin%", 0L, Pageable.unpaged()))));
+        assertEquals(Set.of("Vitamin D3", "VITAMIN  C", "Multi Vitamin"), Set.copyOf(names(medicationRepository
+                .findResponsesByNameLikeAfter("%vitamin%", 0L, Pageable.unpaged()))));
+    }
+
+    @Test
+    void testSearchTreatsEscapedWildcardsLiterally() {
+        medication("Zinc 50%", user);
+        medication("Zinc 500", user);
+        medication("Zinc_A", user);
+        medication("ZincBA", user);
+
+        assertEquals(List.of("Zinc 50%"), names(medicationRepository
+                .findResponsesByNameLikeAfter("%50!%%", 0L, Pageable.unpaged())));
+        assertEquals(List.of("Zinc_A"), names(medicationRepository
+                .findResponsesByNameLikeAfter("%c!_a%", 0L, Pageable.unpaged())));
+    }
+
+    @Test
+    void testSearchIsScopedToUser() {
+        medication("Aspirin", user);
+        medication("Aspirin Plus", otherUser);
+
+        assertEquals(List.of("Aspirin"), names(medicationRepository
+                .findResponsesByUserIdAndNameTrigramAndNameLikeAfter(user.getId(), "spi", "%spi%", 0L,
+                        Pageable.unpaged())));
+        assertEquals(List.of("Aspirin Plus"), names(medicationRepository
+                .findResponsesByUserIdAndNameLikeAfter(otherUser.getId(), "asp%", 0L, Pageable.unpaged())));
+    }
+
+    @Test
+    void testSearchPagesContinueAfterCursor() {
+        Medication first = medication("Ibuprofen 200", user);
+        medication("Ibuprofen 400", user);
+        medication("Paracetamol", user);
+
+        List<MedicationResponse> page = medicationRepository.findResponsesByUserIdAndNameLikeAfter(
+                user.getId(), "ibuprofen%", first.getId(), PageRequest.ofSize(10));
+
+        assertEquals(List.of("Ibuprofen 400"), names(page));
+    }
+
+    @Test
+    void testFindIdsMissingNameTrigrams() {
+        Medication indexed = medication("Aspirin", user);
+        medication("D3", user);
+        Medication missing = medication("Metformin", user);
+        missing.getNameTrigrams().clear();
+        medicationRepository.saveAndFlush(missing);
+
+        assertEquals(List.of(missing.getId()), medicationRepository.findIdsMissingNameTrigramsAfter(0L,
+                PageRequest.ofSize(10)));
+        assertEquals(List.of(), medicationRepository.findIdsMissingNameTrigramsAfter(missing.getId(),
+                PageRequest.ofSize(10)));
+        assertTrue(indexed.getNameTrigrams().contains("asp"));
+    }
+
+    private User user(String username) {
+        User newUser = new User();
+        newUser.setUsername(username);
+        newUser.setEmail(username + "@example.com");
+        newUser.setPassword("password123");
+        newUser.setRole(Role.ROLE_USER);
+        return userRepository.save(newUser);
+    }
+
+    private Medication medication(String name, User owner) {
+        Medication medication = new Medication();
+        medication.setName(name);
+        medication.setDosage("100mg");
+        medication.setStartDate(LocalDate.of(2024, 1, 1));
+        medication.setUser(owner);
+        return medicationRepository.saveAndFlush(medication);
+    }
+
+    private static List<String> names(List<MedicationResponse> medications) {
+        return medications.stream().map(MedicationResponse::name).toList();
+    }
+}
@@ -0,0 +1,131 @@
+package com.project.pillpal.medication.repository;
+
+import com.project.pillpal.medication.entity.Medication;
+import com.project.pillpal.medicationintake.repository.DailyAdherenceRepository;
+import com.project.pillpal.user.entity.Role;
+import com.project.pillpal.user.entity.User;
+import com.project.pillpal.user.repository.UserRepository;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class MedicationSecondLevelCacheTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MedicationRepository medicationRepository;
+
+    @Autowired
+    private MedicationImageRepository medicationImageRepository;
+
+    @Autowired
+    private DailyAdherenceRepository dailyAdherenceRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User user;
+    private Long medicationId;
+
+    @BeforeEach
+    void setUp() {
+        User newUser = new User();
+        newUser.setUsername("cache-user");
+        newUser.setEmail("cache-user@example.com");
+        newUser.setPassword("password123");
+        newUser.setRole(Role.ROLE_USER);
+        user = userRepository.save(newUser);
+
+        Medication medication = new Medication();
+        medication.setName("Cached Medication");
+        medication.setDosage("100mg");
+        medication.setStartDate(LocalDate.of(2024, 1, 1));
+        medication.setUser(user);
+        medicationId = medicationRepository.save(medication).getId();
+        cache().evictAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        transactionTemplate.executeWithoutResult(status -> dailyAdherenceRepository
+                .deleteByMedicationId(medicationId));
+        medicationRepository.deleteById(medicationId);
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void testFindByIdIsServedFromCacheAfterFirstLoad() {
+        long hits = medicationRegion().getHitCount();
+
+        load();
+        assertTrue(cache().contains(Medication.class, medicationId));
+        load();
+
+        assertEquals(hits + 1, medicationRegion().getHitCount());
+    }
+
+    @Test
+    void testUpdateThroughEntityRefreshesCachedEntry() {
+        load();
+
+        transactionTemplate.executeWithoutResult(status -> medicationRepository.findById(medicationId)
+                .orElseThrow().setName("Renamed Medication"));
+
+        assertTrue(cache().contains(Medication.class, medicationId));
+        assertEquals("Renamed Medication", load().getName());
+    }
+
+    @Test
+    void testDeleteEvictsCachedEntry() {
+        load();
+
+        medicationRepository.deleteById(medicationId);
+
+        assertFalse(cache().contains(Medication.class, medicationId));
+        assertTrue(medicationRepository.findById(medicationId).isEmpty());
+    }
+
+    @Test
+    void testNativeAndBulkWritesOnOtherTablesKeepMedicationsCached() {
+        load();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            dailyAdherenceRepository.addCounts(user.getId(), medicationId, LocalDate.of(2024, 1, 1), 1, 0, 1);
+            medicationImageRepository.removeReference("https://res.cloudinary.com/stub/image/upload/v1/none.png");
+        });
+
+        assertTrue(cache().contains(Medication.class, medicationId));
+    }
+
+    private Medication load() {
+        return transactionTemplate.execute(status -> medicationRepository.findById(medicationId).orElseThrow());
+    }
+
+    private Cache cache() {
+        return entityManagerFactory.getCache();
+    }
+
+    private CacheRegionStatistics medicationRegion() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics()
+                .getCacheRegionStatistics("medications");
+    }
+}
@@ -0,0 +1,120 @@
+package com.project.pillpal.medication.service;
+
+import com.project.pillpal.medication.dtos.MedicationSuggestionResponse;
+import com.project.pillpal.medication.repository.MedicationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class MedicationAutocompleteServiceTest {
+
+    @Mock
+    private MedicationRepository medicationRepository;
+
+    @InjectMocks
+    private MedicationAutocompleteService medicationAutocompleteService;
+
+    private MedicationSuggestionResponse aspirin;
+    private MedicationSuggestionResponse vitaminD;
+    private MedicationSuggestionResponse vitaminC;
+
+    @BeforeEach
+    void setUp() {
+        aspirin = new MedicationSuggestionResponse(1L, "Aspirin");
+        vitaminD = new MedicationSuggestionResponse(2L, "Vitamin D");
+        vitaminC = new MedicationSuggestionResponse(3L, "Vitamin C");
+    }
+
+    @Test
+    void testSuggestMatchesPrefixCaseInsensitive() {
+        when(medicationRepository.findSuggestionsByUserId(1L)).thenReturn(Arrays.asList(aspirin, vitaminD, vitaminC));
+
+        List<MedicationSuggestionResponse> result = medicationAutocompleteService.suggest(1L, "VIT", null);
+
+        assertEquals(List.of(vitaminC, vitaminD), result);
+    }
+
+    @Test
+    void testSuggestMatchesLaterWord() {
+        when(medicationRepository.findSuggestionsByUserId(1L)).thenReturn(Arrays.asList(aspirin, vitaminD, vitaminC));
+
+        List<MedicationSuggestionResponse> result = medicationAutocompleteService.suggest(1L, "d", null);
+
+        assertEquals(List.of(vitaminD), result);
+    }
+
+    @Test
+    void testSuggestHonoursLimit() {
+        when(medicationRepository.findSuggestionsByUserId(1L)).thenReturn(Arrays.asList(aspirin, vitaminD, vitaminC));
+
+        List<MedicationSuggestionResponse> result = medicationAutocompleteService.suggest(1L, "vitamin", 1);
+
+        assertEquals(List.of(vitaminC), result);
+    }
+
+    @Test
+    void testSuggestUsesCachedIndex() {
+        when(medicationRepository.findSuggestionsByUserId(1L)).thenReturn(Arrays.asList(aspirin, vitaminD));
+
+        medicationAutocompleteService.suggest(1L, "a", null);
+        List<MedicationSuggestionResponse> result = medicationAutocompleteService.suggest(1L, "vit", null);
+
+        assertEquals(List.of(vitaminD), result);
+        verify(medicationRepository, times(1)).findSuggestionsByUserId(1L);
+    }
+
+    @Test
+    void testInvalidateReloadsIndex() {
+        when(medicationRepository.findSuggestionsByUserId(1L))
+                .thenReturn(List.of(aspirin))
+                .thenReturn(Arrays.asList(aspirin, vitaminC));
+
+        assertTrue(medicationAutocompleteService.suggest(1L, "vit", null).isEmpty());
+        medicationAutocompleteService.invalidate(1L);
+        List<MedicationSuggestionResponse> result = medicationAutocompleteService.suggest(1L, "vit", null);
+
+        assertEquals(List.of(vitaminC), result);
+        verify(medicationRepository, times(2)).findSuggestionsByUserId(1L);
+    }
+
+    @Test
+    void testInvalidateInsideTransactionWaitsForCommit() {
+        when(medicationRepository.findSuggestionsByUserId(1L))
+                .thenReturn(List.of(aspirin))
+                .thenReturn(Arrays.asList(aspirin, vitaminC));
+        medicationAutocompleteService.suggest(1L, "a", null);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            medicationAutocompleteService.invalidate(1L);
+            assertTrue(medicationAutocompleteService.suggest(1L, "vit", null).isEmpty());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(List.of(vitaminC), medicationAutocompleteService.suggest(1L, "vit", null));
+        verify(medicationRepository, times(2)).findSuggestionsByUserId(1L);
+    }
+
+    @Test
+    void testSuggestBlankPrefix() {
+        List<MedicationSuggestionResponse> result = medicationAutocompleteService.suggest(1L, "  ", null);
+
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(medicationRepository);
+    }
+}
@@ -0,0 +1,138 @@
+package com.project.pillpal.medication.service;
+
+import com.project.pillpal.cloudinary.CloudinaryGuard;
+import com.project.pillpal.cloudinary.CloudinaryService;
+import com.project.pillpal.cloudinary.ImageNormalizer;
+import com.project.pillpal.cloudinary.StubCloudinary;
+import com.project.pillpal.medication.entity.ImageDeletion;
+import com.project.pillpal.medication.repository.ImageDeletionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class MedicationImageDeletionOutboxTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    private final ImageDeletionRepository imageDeletionRepository = mock(ImageDeletionRepository.class);
+    private StubCloudinary cloudinary;
+    private CloudinaryService cloudinaryService;
+
+    @BeforeEach
+    void setUp() {
+        cloudinary = new StubCloudinary();
+        cloudinaryService = new CloudinaryService(cloudinary, new ImageNormalizer(new SimpleMeterRegistry(), false,
+                1, 1, 0.85f, 1_000), new CloudinaryGuard(new SimpleMeterRegistry(), 5_000, 8, 0, 5, 30_000, 1));
+    }
+
+    @Test
+    void testEnqueueWritesOutboxRow() {
+        outbox(100).enqueue("pillpal/medications/aspirin");
+
+        ArgumentCaptor<ImageDeletion> saved = ArgumentCaptor.forClass(ImageDeletion.class);
+        verify(imageDeletionRepository).save(saved.capture());
+        assertEquals("pillpal/medications/aspirin", saved.getValue().getPublicId());
+        assertEquals(0, saved.getValue().getAttempts());
+        assertNotNull(saved.getValue().getNextAttemptAt());
+        assertTrue(cloudinary.destroyed().isEmpty());
+    }
+
+    @Test
+    void testDrainDeletesClaimedImagesInOneBulkCall() {
+        claim(List.of(1L, 2L, 3L), deletion(1L, "a", 0), deletion(2L, "b", 0), deletion(3L, "c", 0));
+
+        assertEquals(3, outbox(100).drain(NOW));
+
+        assertEquals(1, cloudinary.bulkDeletes());
+        assertEquals(List.of("a", "b", "c"), cloudinary.destroyed());
+        verify(imageDeletionRepository).deleteAllByIdInBatch(List.of(1L, 2L, 3L));
+        verify(imageDeletionRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void testDrainClaimsAnotherBatchWhenBatchIsFull() {
+        when(imageDeletionRepository.lockDueIds(NOW, 2)).thenReturn(List.of(1L, 2L), List.of(3L));
+        when(imageDeletionRepository.findAllById(List.of(1L, 2L)))
+                .thenReturn(List.of(deletion(1L, "a", 0), deletion(2L, "b", 0)));
+        when(imageDeletionRepository.findAllById(List.of(3L))).thenReturn(List.of(deletion(3L, "c", 0)));
+
+        assertEquals(3, outbox(2).drain(NOW));
+
+        assertEquals(2, cloudinary.bulkDeletes());
+        assertEquals(List.of("a", "b", "c"), cloudinary.destroyed());
+    }
+
+    @Test
+    void testDrainReschedulesWithBackoffWhenCloudinaryFails() {
+        cloudinary.failingBulkDeletes(1);
+        claim(List.of(1L, 2L), deletion(1L, "a", 0), deletion(2L, "b", 2));
+
+        assertEquals(0, outbox(100).drain(NOW));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ImageDeletion>> retried = ArgumentCaptor.forClass(List.class);
+        verify(imageDeletionRepository).saveAll(retried.capture());
+        assertEquals(List.of(1, 3), retried.getValue().stream().map(ImageDeletion::getAttempts).toList());
+        assertEquals(List.of(NOW.plusSeconds(30), NOW.plusMinutes(2)),
+                retried.getValue().stream().map(ImageDeletion::getNextAttemptAt).toList());
+        verify(imageDeletionRepository, never()).deleteAllByIdInBatch(any());
+    }
+
+    @Test
+    void testDrainGivesUpAfterMaxAttempts() {
+        cloudinary.failingBulkDeletes(1);
+        claim(List.of(1L), deletion(1L, "a", 9));
+
+        assertEquals(0, outbox(100).drain(NOW));
+
+        verify(imageDeletionRepository).deleteAllByIdInBatch(List.of(1L));
+        verify(imageDeletionRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void testDrainWithNothingDueDoesNotCallCloudinary() {
+        when(imageDeletionRepository.lockDueIds(NOW, 100)).thenReturn(List.of());
+
+        assertEquals(0, outbox(100).drain(NOW));
+
+        assertEquals(0, cloudinary.bulkDeletes());
+    }
+
+    @Test
+    void testScheduledDrainIsSkippedWhenDisabled() {
+        outbox(false, 100).drain();
+
+        verifyNoInteractions(imageDeletionRepository);
+        assertEquals(0, cloudinary.bulkDeletes());
+    }
+
+    private void claim(List<Long> ids, ImageDeletion... deletions) {
+        when(imageDeletionRepository.lockDueIds(NOW, 100)).thenReturn(ids, List.of());
+        when(imageDeletionRepository.findAllById(ids)).thenReturn(List.of(deletions));
+    }
+
+    private MedicationImageDeletionOutbox outbox(int batchSize) {
+        return outbox(true, batchSize);
+    }
+
+    private MedicationImageDeletionOutbox outbox(boolean drainEnabled, int batchSize) {
+        return new MedicationImageDeletionOutbox(imageDeletionRepository, cloudinaryService,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), new SimpleMeterRegistry(),
+                drainEnabled, batchSize, 10, 30_000, 60_000);
+    }
+
+    private static ImageDeletion deletion(Long id, String publicId, int attempts) {
+        return new ImageDeletion(id, publicId, attempts, NOW.minusMinutes(1), NOW.minusMinutes(5));
+    }
+}
@@ -2,6 +2,8 @@ package com.project.pillpal.medication.service;
 
 import com.project.pillpal.cloudinary.CloudinaryService;
 import com.project.pillpal.exceptions.CloudinaryException;
+import com.project.pillpal.exceptions.CloudinaryUnavailableException;
+import com.project.pillpal.medication.entity.ImageStatus;
 import com.project.pillpal.medication.entity.Medication;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,8 +14,7 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.file.Path;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -27,6 +28,12 @@ class MedicationImageServiceTest {
     @Mock
     private CloudinaryService cloudinaryService;
 
+    @Mock
+    private MedicationImageUploadQueue medicationImageUploadQueue;
+
+    @Mock
+    private MedicationImageStore medicationImageStore;
+
     @Mock
     private MultipartFile mockMultipartFile;
 
@@ -44,112 +51,88 @@ class MedicationImageServiceTest {
     }
 
     @Test
-    void testUploadImageForMedicationSuccess() throws IOException {
-        Map<String, Object> uploadResult = new HashMap<>();
-        uploadResult.put("secure_url", "http://example.com/image.jpg");
+    void testStoreImageUploadsThroughStore() throws IOException {
+        when(medicationImageStore.store(any(MultipartFile.class))).thenReturn("http://example.com/new-image.jpg");
 
-        when(cloudinaryService.uploadMedicationImage(any(MultipartFile.class))).thenReturn(uploadResult);
+        String url = medicationImageService.storeImage(1L, mockMultipartFile);
 
-        medicationImageService.uploadImageForMedication(medication, mockMultipartFile);
-
-        assertThat(medication.getImgUrl()).isEqualTo("http://example.com/image.jpg");
-        verify(cloudinaryService).uploadMedicationImage(mockMultipartFile);
+        assertThat(url).isEqualTo("http://example.com/new-image.jpg");
+        verify(medicationImageStore).store(mockMultipartFile);
+        verify(medicationImageStore, never()).release(anyString());
     }
 
     @Test
-    void testUploadImageForMedicationWithNullImage() throws IOException {
-        medicationImageService.uploadImageForMedication(medication, null);
+    void testStoreImageReturnsNullWhenCloudinaryUnavailable() throws IOException {
+        when(medicationImageStore.store(any(MultipartFile.class)))
+                .thenThrow(new CloudinaryUnavailableException("Cloudinary upload timed out after PT10S"));
 
-        verify(cloudinaryService, never()).uploadMedicationImage(any(MultipartFile.class));
-    }
-
-    @Test
-    void testUploadImageForMedicationWithEmptyImage() throws IOException {
-        when(mockMultipartFile.isEmpty()).thenReturn(true);
-
-        medicationImageService.uploadImageForMedication(medication, mockMultipartFile);
-
-        verify(cloudinaryService, never()).uploadMedicationImage(any(MultipartFile.class));
+        assertThat(medicationImageService.storeImage(1L, mockMultipartFile)).isNull();
     }
 
     @Test
-    void testUploadImageForMedicationThrowsException() throws IOException {
-        when(cloudinaryService.uploadMedicationImage(any(MultipartFile.class)))
-                .thenThrow(new IOException("Cloudinary error"));
+    void testStoreImageWithNullImage() throws IOException {
+        assertThat(medicationImageService.storeImage(1L, null)).isNull();
 
-        assertThatThrownBy(() -> medicationImageService.uploadImageForMedication(medication, mockMultipartFile))
-                .isInstanceOf(CloudinaryException.class)
-                .hasMessage("Failed to upload medication image");
+        verify(medicationImageStore, never()).store(any(MultipartFile.class));
     }
 
     @Test
-    void testUpdateImageForMedicationSuccess() throws IOException {
-        Map<String, Object> uploadResult = new HashMap<>();
-        uploadResult.put("secure_url", "http://example.com/new-image.jpg");
-
-        when(cloudinaryService.uploadMedicationImage(any(MultipartFile.class))).thenReturn(uploadResult);
-        when(cloudinaryService.extractPublicIdFromUrl(anyString())).thenReturn("old-image-id");
-        doNothing().when(cloudinaryService).deleteMedicationImage(anyString());
+    void testStoreImageWithEmptyImage() throws IOException {
+        when(mockMultipartFile.isEmpty()).thenReturn(true);
 
-        medicationImageService.updateImageForMedication(medication, mockMultipartFile);
+        assertThat(medicationImageService.storeImage(1L, mockMultipartFile)).isNull();
 
-        assertThat(medication.getImgUrl()).isEqualTo("http://example.com/new-image.jpg");
-        verify(cloudinaryService).deleteMedicationImage("old-image-id");
-        verify(cloudinaryService).uploadMedicationImage(mockMultipartFile);
+        verify(medicationImageStore, never()).store(any(MultipartFile.class));
     }
 
     @Test
-    void testUpdateImageForMedicationWithNullImage() throws IOException {
-        medicationImageService.updateImageForMedication(medication, null);
+    void testStoreImageThrowsException() throws IOException {
+        when(medicationImageStore.store(any(MultipartFile.class))).thenThrow(new IOException("Cloudinary error"));
 
-        verify(cloudinaryService, never()).uploadMedicationImage(any(MultipartFile.class));
-        verify(cloudinaryService, never()).deleteMedicationImage(anyString());
+        assertThatThrownBy(() -> medicationImageService.storeImage(1L, mockMultipartFile))
+                .isInstanceOf(CloudinaryException.class)
+                .hasMessage("Failed to update medication image");
     }
 
     @Test
-    void testUpdateImageForMedicationWithEmptyImage() throws IOException {
-        when(mockMultipartFile.isEmpty()).thenReturn(true);
-
-        medicationImageService.updateImageForMedication(medication, mockMultipartFile);
+    void testReplaceImageReleasesPreviousImage() {
+        medicationImageService.replaceImage(medication, "http://example.com/new-image.jpg");
 
-        verify(cloudinaryService, never()).uploadMedicationImage(any(MultipartFile.class));
-        verify(cloudinaryService, never()).deleteMedicationImage(anyString());
+        assertThat(medication.getImgUrl()).isEqualTo("http://example.com/new-image.jpg");
+        assertThat(medication.getImageStatus()).isEqualTo(ImageStatus.UPLOADED);
+        verify(medicationImageStore).release("http://example.com/old-image.jpg");
     }
 
     @Test
-    void testUpdateImageForMedicationWithNoExistingImage() throws IOException {
+    void testReplaceImageWithNoExistingImage() {
         medication.setImgUrl(null);
-        Map<String, Object> uploadResult = new HashMap<>();
-        uploadResult.put("secure_url", "http://example.com/new-image.jpg");
 
-        when(cloudinaryService.uploadMedicationImage(any(MultipartFile.class))).thenReturn(uploadResult);
-
-        medicationImageService.updateImageForMedication(medication, mockMultipartFile);
+        medicationImageService.replaceImage(medication, "http://example.com/new-image.jpg");
 
         assertThat(medication.getImgUrl()).isEqualTo("http://example.com/new-image.jpg");
-        verify(cloudinaryService).uploadMedicationImage(mockMultipartFile);
-        verify(cloudinaryService, never()).deleteMedicationImage(anyString());
+        verify(medicationImageStore, never()).release(anyString());
     }
 
     @Test
-    void testUpdateImageForMedicationThrowsException() throws IOException {
-        when(cloudinaryService.uploadMedicationImage(any(MultipartFile.class)))
-                .thenThrow(new IOException("Cloudinary error"));
+    void testReleaseImageSwallowsFailures() {
+        when(medicationImageStore.release(anyString())).thenThrow(new IllegalStateException("Database error"));
 
-        assertThatThrownBy(() -> medicationImageService.updateImageForMedication(medication, mockMultipartFile))
-                .isInstanceOf(CloudinaryException.class)
-                .hasMessage("Failed to update medication image");
+        medicationImageService.releaseImage("http://example.com/new-image.jpg");
+        medicationImageService.releaseImage(null);
+
+        verify(medicationImageStore).release("http://example.com/new-image.jpg");
     }
 
     @Test
     void testDeleteImageFromMedicationSuccess() throws IOException {
-        when(cloudinaryService.extractPublicIdFromUrl(anyString())).thenReturn("old-image-id");
+        when(medicationImageStore.release(anyString())).thenReturn(true);
 
         medicationImageService.deleteImageFromMedication(medication);
 
         assertThat(medication.getImgUrl()).isNull();
-        verify(cloudinaryService).extractPublicIdFromUrl("http://example.com/old-image.jpg");
-        verify(cloudinaryService).deleteMedicationImage("old-image-id");
+        assertThat(medication.getImageStatus()).isEqualTo(ImageStatus.NONE);
+        verify(medicationImageStore).release("http://example.com/old-image.jpg");
+        verify(cloudinaryService, never()).deleteMedicationImage(anyString());
     }
 
     @Test
@@ -158,8 +141,7 @@ class MedicationImageServiceTest {
 
         medicationImageService.deleteImageFromMedication(medication);
 
-        verify(cloudinaryService, never()).extractPublicIdFromUrl(anyString());
-        verify(cloudinaryService, never()).deleteMedicationImage(anyString());
+        verify(medicationImageStore, never()).release(any());
     }
 
     @Test
@@ -168,8 +150,7 @@ class MedicationImageServiceTest {
 
         medicationImageService.deleteImageFromMedication(medication);
 
-        verify(cloudinaryService, never()).extractPublicIdFromUrl(anyString());
-        verify(cloudinaryService, never()).deleteMedicationImage(anyString());
+        verify(medicationImageStore, never()).release(any());
     }
 
     @Test
@@ -178,27 +159,59 @@ class MedicationImageServiceTest {
 
         medicationImageService.deleteImageFromMedication(medication);
 
-        verify(cloudinaryService, never()).extractPublicIdFromUrl(anyString());
-        verify(cloudinaryService, never()).deleteMedicationImage(anyString());
+        verify(medicationImageStore, never()).release(any());
     }
 
     @Test
     void testDeleteImageFromMedicationWithNullPublicId() throws IOException {
-        when(cloudinaryService.extractPublicIdFromUrl(anyString())).thenReturn(null);
+        when(medicationImageStore.release(anyString())).thenReturn(false);
 
         medicationImageService.deleteImageFromMedication(medication);
 
-        verify(cloudinaryService).extractPublicIdFromUrl("http://example.com/old-image.jpg");
-        verify(cloudinaryService, never()).deleteMedicationImage(anyString());
+        assertThat(medication.getImgUrl()).isEqualTo("http://example.com/old-image.jpg");
+        verify(medicationImageStore).release("http://example.com/old-image.jpg");
     }
 
     @Test
     void testDeleteImageFromMedicationThrowsException() throws IOException {
-        when(cloudinaryService.extractPublicIdFromUrl(anyString())).thenReturn("old-image-id");
-        doThrow(new IOException("Cloudinary error")).when(cloudinaryService).deleteMedicationImage("old-image-id");
+        when(medicationImageStore.release(anyString())).thenThrow(new IllegalStateException("Database error"));
 
         assertThatThrownBy(() -> medicationImageService.deleteImageFromMedication(medication))
                 .isInstanceOf(CloudinaryException.class)
                 .hasMessage("Failed to delete medication image");
     }
-}
\ No newline at end of file
+
+    @Test
+    void testStageImageForMedicationMarksUploadPending() throws IOException {
+        Path spooled = Path.of("/tmp/pillpal-upload-1.tmp");
+        when(mockMultipartFile.getContentType()).thenReturn("image/png");
+        when(cloudinaryService.spool(mockMultipartFile)).thenReturn(spooled);
+
+        Path staged = medicationImageService.stageImageForMedication(medication, mockMultipartFile);
+
+        assertThat(staged).isEqualTo(spooled);
+        assertThat(medication.getImageStatus()).isEqualTo(ImageStatus.PENDING);
+        verify(mockMultipartFile, never()).getBytes();
+        verify(cloudinaryService, never()).uploadMedicationImage(any(MultipartFile.class));
+    }
+
+    @Test
+    void testStageImageForMedicationRejectsNonImage() {
+        when(mockMultipartFile.getContentType()).thenReturn("application/pdf");
+
+        assertThatThrownBy(() -> medicationImageService.stageImageForMedication(medication, mockMultipartFile))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(medication.getImageStatus()).isEqualTo(ImageStatus.NONE);
+    }
+
+    @Test
+    void testQueueImageUploadSubmitsStagedImage() {
+        Path image = Path.of("/tmp/pillpal-upload-1.tmp");
+
+        medicationImageService.queueImageUpload(1L, image);
+        medicationImageService.queueImageUpload(2L, null);
+
+        verify(medicationImageUploadQueue).submit(1L, image);
+        verifyNoMoreInteractions(medicationImageUploadQueue);
+    }
+}
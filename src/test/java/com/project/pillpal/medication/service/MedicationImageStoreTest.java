@@ -0,0 +1,186 @@
+package com.project.pillpal.medication.service;
+
+import com.project.pillpal.cloudinary.CloudinaryGuard;
+import com.project.pillpal.cloudinary.CloudinaryService;
+import com.project.pillpal.cloudinary.ImageNormalizer;
+import com.project.pillpal.cloudinary.StubCloudinary;
+import com.project.pillpal.medication.repository.MedicationImageRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+class MedicationImageStoreTest {
+
+    private static final String UPLOAD_URL = "https://res.cloudinary.com/stub/image/upload/v1/";
+    private static final String STUB_URL = UPLOAD_URL + "pillpal/medications/stub-1.png";
+    private static final String SHARED_URL = UPLOAD_URL + "pillpal/medications/aspirin.png";
+
+    private final MedicationImageRepository medicationImageRepository = mock(MedicationImageRepository.class);
+    private final MedicationImageDeletionOutbox medicationImageDeletionOutbox = mock(
+            MedicationImageDeletionOutbox.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private StubCloudinary cloudinary;
+    private MedicationImageStore medicationImageStore;
+
+    @TempDir
+    private Path dir;
+
+    @BeforeEach
+    void setUp() {
+        cloudinary = new StubCloudinary();
+        CloudinaryService cloudinaryService = new CloudinaryService(cloudinary, new ImageNormalizer(
+                new SimpleMeterRegistry(), false, 1, 1, 0.85f, 1_000),
+                new CloudinaryGuard(new SimpleMeterRegistry(), 5_000, 8, 0, 5, 30_000, 1));
+        medicationImageStore = new MedicationImageStore(cloudinaryService, medicationImageRepository,
+                medicationImageDeletionOutbox, new TransactionTemplate(transactionManager), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testStoreUploadsAndIndexesNewImage() throws IOException {
+        Path image = image("aspirin.png", 1, 2, 3);
+
+        String url = medicationImageStore.store(image);
+
+        assertEquals(STUB_URL, url);
+        assertEquals(1, cloudinary.uploads());
+        verify(medicationImageRepository).addReference(MedicationImageStore.contentHash(image),
+                "pillpal/medications/stub-1", STUB_URL);
+    }
+
+    @Test
+    void testStoreReusesImageWithSameContent() throws IOException {
+        Path image = image("aspirin.png", 1, 2, 3);
+        String contentHash = MedicationImageStore.contentHash(image);
+        when(medicationImageRepository.addReferenceByContentHash(contentHash)).thenReturn(1);
+        when(medicationImageRepository.findSecureUrlByContentHash(contentHash)).thenReturn(Optional.of(SHARED_URL));
+
+        String url = medicationImageStore.store(image);
+
+        assertEquals(SHARED_URL, url);
+        assertEquals(0, cloudinary.uploads());
+        verify(medicationImageRepository, never()).addReference(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void testStoreDiscardsUploadWhenSameContentWasStoredConcurrently() throws IOException {
+        when(medicationImageRepository.findSecureUrlByContentHash(anyString())).thenReturn(Optional.of(SHARED_URL));
+
+        String url = medicationImageStore.store(image("aspirin.png", 1, 2, 3));
+
+        assertEquals(SHARED_URL, url);
+        verify(medicationImageDeletionOutbox).enqueue("pillpal/medications/stub-1");
+    }
+
+    @Test
+    void testStoreCommitsReferenceIndependentlyOfCallerTransaction() throws IOException {
+        medicationImageStore.store(image("aspirin.png", 1, 2, 3));
+
+        verify(transactionManager, times(2)).getTransaction(argThat(definition -> definition
+                .getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW));
+    }
+
+    @Test
+    void testStoreReleasesImageWhenCallerTransactionRollsBack() throws IOException {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            String url = medicationImageStore.store(image("aspirin.png", 1, 2, 3));
+            verifyNoInteractions(medicationImageDeletionOutbox);
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(
+                            TransactionSynchronization.STATUS_ROLLED_BACK));
+
+            verify(medicationImageRepository).removeReference(url);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testStoreKeepsImageWhenCallerTransactionCommits() throws IOException {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            medicationImageStore.store(image("aspirin.png", 1, 2, 3));
+
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(
+                            TransactionSynchronization.STATUS_COMMITTED));
+
+            verify(medicationImageRepository, never()).removeReference(anyString());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testContentHashDependsOnlyOnContent() throws IOException {
+        String first = MedicationImageStore.contentHash(image("a.png", 1, 2, 3));
+
+        assertEquals(first, MedicationImageStore.contentHash(image("b.png", 1, 2, 3)));
+        assertNotEquals(first, MedicationImageStore.contentHash(image("c.png", 3, 2, 1)));
+        assertEquals(64, first.length());
+    }
+
+    @Test
+    void testReleaseKeepsImageStillReferencedElsewhere() {
+        when(medicationImageRepository.removeReference(SHARED_URL)).thenReturn(1);
+        when(medicationImageRepository.deleteUnreferenced(SHARED_URL)).thenReturn(0);
+
+        assertTrue(medicationImageStore.release(SHARED_URL));
+
+        verifyNoInteractions(medicationImageDeletionOutbox);
+    }
+
+    @Test
+    void testReleaseDestroysImageOnLastReference() {
+        when(medicationImageRepository.removeReference(SHARED_URL)).thenReturn(1);
+        when(medicationImageRepository.findPublicIdBySecureUrl(SHARED_URL))
+                .thenReturn(Optional.of("pillpal/medications/aspirin"));
+        when(medicationImageRepository.deleteUnreferenced(SHARED_URL)).thenReturn(1);
+
+        assertTrue(medicationImageStore.release(SHARED_URL));
+
+        verify(medicationImageDeletionOutbox).enqueue("pillpal/medications/aspirin");
+    }
+
+    @Test
+    void testReleaseDestroysImageUploadedBeforeIndexing() {
+        when(medicationImageRepository.removeReference(SHARED_URL)).thenReturn(0);
+
+        assertTrue(medicationImageStore.release(SHARED_URL));
+
+        verify(medicationImageDeletionOutbox).enqueue("pillpal/medications/aspirin");
+        verify(medicationImageRepository, never()).deleteUnreferenced(anyString());
+    }
+
+    @Test
+    void testReleaseIgnoresUrlWithoutPublicId() {
+        assertFalse(medicationImageStore.release("http://example.com/image.jpg"));
+
+        verifyNoInteractions(medicationImageRepository, medicationImageDeletionOutbox);
+    }
+
+    private Path image(String name, int... content) throws IOException {
+        byte[] bytes = new byte[content.length];
+        for (int i = 0; i < content.length; i++) {
+            bytes[i] = (byte) content[i];
+        }
+        return Files.write(dir.resolve(name), bytes);
+    }
+}
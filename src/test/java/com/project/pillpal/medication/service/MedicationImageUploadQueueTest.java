@@ -0,0 +1,253 @@
+package com.project.pillpal.medication.service;
+
+import com.project.pillpal.cloudinary.CloudinaryGuard;
+import com.project.pillpal.cloudinary.CloudinaryService;
+import com.project.pillpal.cloudinary.ImageNormalizer;
+import com.project.pillpal.cloudinary.StubCloudinary;
+import com.project.pillpal.medication.entity.ImageStatus;
+import com.project.pillpal.medication.entity.Medication;
+import com.project.pillpal.medication.repository.MedicationImageRepository;
+import com.project.pillpal.medication.repository.MedicationRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MedicationImageUploadQueueTest {
+
+    private final MedicationRepository medicationRepository = mock(MedicationRepository.class);
+    private final MedicationImageRepository medicationImageRepository = mock(MedicationImageRepository.class);
+    private final MedicationImageDeletionOutbox medicationImageDeletionOutbox = mock(
+            MedicationImageDeletionOutbox.class);
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(
+            mock(PlatformTransactionManager.class));
+    private StubCloudinary cloudinary;
+    private MedicationImageUploadQueue queue;
+
+    @TempDir
+    private Path dir;
+
+    @BeforeEach
+    void setUp() {
+        cloudinary = new StubCloudinary();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        queue.shutdown();
+    }
+
+    @Test
+    void testSubmitUploadsInBackgroundAndCompletesMedication() throws Exception {
+        cloudinary.withLatency(Duration.ofMillis(200));
+        Medication medication = pending(1L);
+        queue = queue(2, 10);
+
+        Path image = stage("1.png");
+        long start = System.nanoTime();
+        queue.submit(1L, image);
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 100);
+
+        assertTrue(queue.awaitIdle(Duration.ofSeconds(5)));
+        assertEquals(1, cloudinary.uploads());
+        assertEquals("https://res.cloudinary.com/stub/image/upload/v1/pillpal/medications/stub-1.png",
+                medication.getImgUrl());
+        assertEquals(ImageStatus.UPLOADED, medication.getImageStatus());
+        assertFalse(Files.exists(image));
+    }
+
+    @Test
+    void testSubmitMarksUploadFailedWhenCloudinaryFails() throws Exception {
+        cloudinary.failing();
+        Medication medication = pending(1L);
+        queue = queue(1, 10);
+        Path image = stage("1.png");
+
+        queue.submit(1L, image);
+
+        assertTrue(queue.awaitIdle(Duration.ofSeconds(5)));
+        assertFalse(Files.exists(image));
+        assertEquals(ImageStatus.FAILED, medication.getImageStatus());
+        assertNull(medication.getImgUrl());
+        assertEquals(9, cloudinary.uploadedBytes());
+    }
+
+    @Test
+    void testSubmitRetriesUploadWhileCloudinaryIsUnavailable() throws Exception {
+        cloudinary.failingUploads(2);
+        Medication medication = pending(1L);
+        queue = queue(1, 10);
+        Path image = stage("1.png");
+
+        queue.submit(1L, image);
+
+        assertTrue(queue.awaitIdle(Duration.ofSeconds(5)));
+        assertFalse(Files.exists(image));
+        assertEquals(ImageStatus.UPLOADED, medication.getImageStatus());
+        assertEquals("https://res.cloudinary.com/stub/image/upload/v1/pillpal/medications/stub-1.png",
+                medication.getImgUrl());
+    }
+
+    @Test
+    void testSubmitDoesNotRetryImagesRejectedByCloudinary() throws Exception {
+        cloudinary.rejecting(400);
+        Medication medication = pending(1L);
+        queue = queue(1, 10);
+        Path image = stage("1.png");
+
+        queue.submit(1L, image);
+
+        assertTrue(queue.awaitIdle(Duration.ofSeconds(5)));
+        assertFalse(Files.exists(image));
+        assertEquals(ImageStatus.FAILED, medication.getImageStatus());
+        assertEquals(3, cloudinary.uploadedBytes());
+    }
+
+    @Test
+    void testSubmitDeletesImageWhenMedicationIsGone() throws Exception {
+        when(medicationRepository.findById(1L)).thenReturn(Optional.empty());
+        queue = queue(1, 10);
+
+        queue.submit(1L, stage("1.png"));
+
+        assertTrue(queue.awaitIdle(Duration.ofSeconds(5)));
+        verify(medicationImageDeletionOutbox).enqueue("pillpal/medications/stub-1");
+        assertTrue(cloudinary.destroyed().isEmpty());
+    }
+
+    @Test
+    void testSubmitKeepsImageOfMedicationNoLongerPending() throws Exception {
+        Medication medication = pending(1L);
+        medication.setImageStatus(ImageStatus.UPLOADED);
+        medication.setImgUrl("https://res.cloudinary.com/stub/image/upload/v1/pillpal/medications/newer.png");
+        queue = queue(1, 10);
+
+        queue.submit(1L, stage("1.png"));
+
+        assertTrue(queue.awaitIdle(Duration.ofSeconds(5)));
+        assertEquals("https://res.cloudinary.com/stub/image/upload/v1/pillpal/medications/newer.png",
+                medication.getImgUrl());
+        verify(medicationImageDeletionOutbox).enqueue("pillpal/medications/stub-1");
+    }
+
+    @Test
+    void testSubmitRetriesCompletionAfterConcurrentUpdate() throws Exception {
+        Medication medication = pending(1L);
+        when(medicationRepository.findById(1L))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Medication.class, 1L))
+                .thenReturn(Optional.of(medication));
+        queue = queue(1, 10);
+
+        queue.submit(1L, stage("1.png"));
+
+        assertTrue(queue.awaitIdle(Duration.ofSeconds(5)));
+        assertEquals(ImageStatus.UPLOADED, medication.getImageStatus());
+        verify(medicationRepository, times(2)).findById(1L);
+        verifyNoInteractions(medicationImageDeletionOutbox);
+    }
+
+    @Test
+    void testSubmitFailsUploadsBeyondQueueCapacity() throws Exception {
+        cloudinary.withLatency(Duration.ofMillis(200));
+        Medication[] medications = new Medication[5];
+        for (long id = 1; id <= 4; id++) {
+            medications[(int) id] = pending(id);
+        }
+        queue = queue(1, 1);
+
+        for (long id = 1; id <= 4; id++) {
+            queue.submit(id, stage(id + ".png"));
+        }
+
+        assertTrue(queue.awaitIdle(Duration.ofSeconds(5)));
+        try (Stream<Path> staged = Files.list(dir)) {
+            assertEquals(0, staged.count());
+        }
+        assertEquals(2, cloudinary.uploads());
+        assertEquals(ImageStatus.UPLOADED, medications[1].getImageStatus());
+        assertEquals(ImageStatus.UPLOADED, medications[2].getImageStatus());
+        assertEquals(ImageStatus.FAILED, medications[3].getImageStatus());
+        assertEquals(ImageStatus.FAILED, medications[4].getImageStatus());
+    }
+
+    @Test
+    void testShutdownFailsQueuedUploadsAndDeletesTheirImages() throws Exception {
+        cloudinary.withLatency(Duration.ofMillis(500));
+        pending(1L);
+        Medication queued = pending(2L);
+        queue = queue(1, 10);
+        queue.submit(1L, stage("1.png"));
+        Path queuedImage = stage("2.png");
+        queue.submit(2L, queuedImage);
+
+        queue.shutdown(Duration.ZERO);
+
+        assertEquals(ImageStatus.FAILED, queued.getImageStatus());
+        assertFalse(Files.exists(queuedImage));
+        assertTrue(queue.awaitIdle(Duration.ofSeconds(5)));
+        try (Stream<Path> staged = Files.list(dir)) {
+            assertEquals(0, staged.count());
+        }
+    }
+
+    @Test
+    void testShutdownFailsPendingRetries() throws Exception {
+        cloudinary.failingUploads(1);
+        Medication medication = pending(1L);
+        queue = queue(1, 10, 60_000);
+        Path image = stage("1.png");
+        queue.submit(1L, image);
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (cloudinary.uploadedBytes() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+
+        queue.shutdown(Duration.ofSeconds(5));
+
+        assertTrue(queue.awaitIdle(Duration.ofSeconds(5)));
+        assertEquals(ImageStatus.FAILED, medication.getImageStatus());
+        assertFalse(Files.exists(image));
+        assertEquals(3, cloudinary.uploadedBytes());
+    }
+
+    private Medication pending(Long id) {
+        Medication medication = new Medication();
+        medication.setId(id);
+        medication.setImageStatus(ImageStatus.PENDING);
+        when(medicationRepository.findById(id)).thenReturn(Optional.of(medication));
+        return medication;
+    }
+
+    private Path stage(String name) throws IOException {
+        return Files.write(dir.resolve(name), new byte[] { 1, 2, 3 });
+    }
+
+    private MedicationImageUploadQueue queue(int concurrency, int queueCapacity) {
+        return queue(concurrency, queueCapacity, 10);
+    }
+
+    private MedicationImageUploadQueue queue(int concurrency, int queueCapacity, long retryDelayMs) {
+        CloudinaryService cloudinaryService = new CloudinaryService(cloudinary, new ImageNormalizer(
+                new SimpleMeterRegistry(), false, 1, 1, 0.85f, 1_000),
+                new CloudinaryGuard(new SimpleMeterRegistry(), 5_000, 8, 0, 5, 30_000, 1));
+        MedicationImageStore medicationImageStore = new MedicationImageStore(cloudinaryService,
+                medicationImageRepository, medicationImageDeletionOutbox, transactionTemplate,
+                new SimpleMeterRegistry());
+        return new MedicationImageUploadQueue(medicationImageStore, medicationRepository, transactionTemplate,
+                new SimpleMeterRegistry(), concurrency, queueCapacity, 3, retryDelayMs);
+    }
+}
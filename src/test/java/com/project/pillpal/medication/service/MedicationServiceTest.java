@@ -1,29 +1,60 @@
 package com.project.pillpal.medication.service;
 
 import com.project.pillpal.medication.dtos.CreateMedicationRequest;
+import com.project.pillpal.medication.dtos.CursorPageResponse;
+import com.project.pillpal.medication.dtos.MedicationCountResponse;
+import com.project.pillpal.medication.dtos.MedicationCountRow;
 import com.project.pillpal.medication.dtos.MedicationResponse;
+import com.project.pillpal.medication.dtos.NameMatch;
 import com.project.pillpal.medication.dtos.UpdateMedicationRequest;
+import com.project.pillpal.medication.entity.ImageStatus;
 import com.project.pillpal.medication.entity.Medication;
 import com.project.pillpal.medication.mapper.MedicationMapper;
 import com.project.pillpal.medication.repository.MedicationRepository;
+import com.project.pillpal.reminder.entity.Frequency;
 import com.project.pillpal.reminder.service.ReminderService;
 import com.project.pillpal.user.entity.Role;
 import com.project.pillpal.user.entity.User;
+import com.project.pillpal.medicationintake.dto.AdherenceResponse;
+import com.project.pillpal.medicationintake.dto.AdherenceScheduleRow;
+import com.project.pillpal.medicationintake.repository.DailyAdherenceRepository;
+import com.project.pillpal.medicationintake.repository.MedicationIntakeRepository;
+import com.project.pillpal.medicationintake.service.AdherenceService;
+import com.project.pillpal.medicationintake.service.DailyAdherenceService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -44,6 +75,18 @@ class MedicationServiceTest {
     @Mock
     private ReminderService reminderService;
 
+    @Mock
+    private MedicationAutocompleteService medicationAutocompleteService;
+
+    @Mock
+    private AdherenceService adherenceService;
+
+    @Mock
+    private DailyAdherenceService dailyAdherenceService;
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
     @InjectMocks
     private MedicationService medicationService;
 
@@ -72,74 +115,107 @@ class MedicationServiceTest {
         medication.setUser(user);
 
         medicationResponse = new MedicationResponse(1L, "Test Medication", "Test Description",
-                "http://example.com/image.jpg", "100mg", true, LocalDate.now(),
-                LocalDate.now().plusDays(30), false, 1L);
+                "http://example.com/image.jpg", ImageStatus.UPLOADED, "100mg", true, LocalDate.now(),
+                LocalDate.now().plusDays(30), false, 1L, 0L);
 
         createRequest = new CreateMedicationRequest("Test Medication", "Test Description",
                 null, "100mg", true, LocalDate.now(), LocalDate.now().plusDays(30), false,
                 false, null, null, null);
 
         updateRequest = new UpdateMedicationRequest("Updated Medication", "Updated Description",
-                null, "200mg", true, LocalDate.now().plusDays(1), LocalDate.now().plusDays(60), true);
+                null, "200mg", true, LocalDate.now().plusDays(1), LocalDate.now().plusDays(60), true, null);
     }
 
     @Test
     void testGetAllMedications() {
-        List<Medication> medications = Collections.singletonList(medication);
-        when(medicationRepository.findAll()).thenReturn(medications);
-        when(medicationMapper.toResponse(medication)).thenReturn(medicationResponse);
+        when(medicationRepository.findAllResponses()).thenReturn(Collections.singletonList(medicationResponse));
 
         List<MedicationResponse> result = medicationService.getAllMedications();
 
         assertEquals(1, result.size());
         assertEquals(medicationResponse, result.getFirst());
-        verify(medicationRepository).findAll();
+        verify(medicationRepository).findAllResponses();
+        verify(medicationRepository, never()).findAll();
+        verifyNoInteractions(medicationMapper);
     }
 
     @Test
     void testGetMedicationsByUserId() {
-        List<Medication> medications = Collections.singletonList(medication);
-        when(medicationRepository.findByUserId(1L)).thenReturn(medications);
-        when(medicationMapper.toResponse(medication)).thenReturn(medicationResponse);
+        when(medicationRepository.findResponsesByUserId(1L)).thenReturn(Collections.singletonList(medicationResponse));
 
         List<MedicationResponse> result = medicationService.getMedicationsByUserId(1L);
 
         assertEquals(1, result.size());
         assertEquals(medicationResponse, result.getFirst());
-        verify(medicationRepository).findByUserId(1L);
+        verify(medicationRepository).findResponsesByUserId(1L);
     }
 
     @Test
     void testGetActiveMedications() {
-        List<Medication> medications = Collections.singletonList(medication);
-        when(medicationRepository.findByActiveTrue()).thenReturn(medications);
-        when(medicationMapper.toResponse(medication)).thenReturn(medicationResponse);
+        when(medicationRepository.findActiveResponses()).thenReturn(Collections.singletonList(medicationResponse));
 
         List<MedicationResponse> result = medicationService.getActiveMedications();
 
         assertEquals(1, result.size());
         assertEquals(medicationResponse, result.getFirst());
-        verify(medicationRepository).findByActiveTrue();
+        verify(medicationRepository).findActiveResponses();
+    }
+
+    @Test
+    void testGetAllMedicationsPageHasMore() {
+        MedicationResponse nextResponse = new MedicationResponse(2L, "Next Medication", null, null, ImageStatus.NONE,
+                "50mg", true, LocalDate.now(), null, true, 1L, 0L);
+        when(medicationRepository.findResponsesAfter(0L, PageRequest.ofSize(2)))
+                .thenReturn(Arrays.asList(medicationResponse, nextResponse));
+
+        CursorPageResponse<MedicationResponse> result = medicationService.getAllMedicationsPage(null, 1);
+
+        assertEquals(List.of(medicationResponse), result.items());
+        assertTrue(result.hasMore());
+        assertEquals(1L, result.nextCursor());
+    }
+
+    @Test
+    void testGetActiveMedicationsPageLastPage() {
+        when(medicationRepository.findActiveResponsesAfter(1L,
+                PageRequest.ofSize(CursorPageResponse.DEFAULT_PAGE_SIZE + 1)))
+                .thenReturn(Collections.emptyList());
+
+        CursorPageResponse<MedicationResponse> result = medicationService.getActiveMedicationsPage(1L, null);
+
+        assertTrue(result.items().isEmpty());
+        assertFalse(result.hasMore());
+        assertNull(result.nextCursor());
+    }
+
+    @Test
+    void testStreamMedicationsByUserId() {
+        when(medicationRepository.streamResponsesByUserId(1L)).thenReturn(Stream.of(medicationResponse));
+        List<MedicationResponse> streamed = new ArrayList<>();
+
+        medicationService.streamMedicationsByUserId(1L, streamed::add);
+
+        assertEquals(List.of(medicationResponse), streamed);
+        verify(medicationRepository).streamResponsesByUserId(1L);
     }
 
     @Test
     void testGetMedicationByIdSuccess() {
-        when(medicationRepository.findById(1L)).thenReturn(Optional.of(medication));
-        when(medicationMapper.toResponse(medication)).thenReturn(medicationResponse);
+        when(medicationRepository.findResponseById(1L)).thenReturn(Optional.of(medicationResponse));
 
         MedicationResponse result = medicationService.getMedicationById(1L);
 
         assertEquals(medicationResponse, result);
-        verify(medicationRepository).findById(1L);
+        verify(medicationRepository).findResponseById(1L);
     }
 
     @Test
     void testGetMedicationByIdNotFound() {
-        when(medicationRepository.findById(999L)).thenReturn(Optional.empty());
+        when(medicationRepository.findResponseById(999L)).thenReturn(Optional.empty());
 
         assertThrows(com.project.pillpal.exceptions.ResourceNotFoundException.class,
                 () -> medicationService.getMedicationById(999L));
-        verify(medicationRepository).findById(999L);
+        verify(medicationRepository).findResponseById(999L);
     }
 
     @Test
@@ -158,14 +234,87 @@ class MedicationServiceTest {
     @Test
     void testUpdateMedicationSuccess() {
         when(medicationRepository.findById(1L)).thenReturn(Optional.of(medication));
-        when(medicationRepository.save(any(Medication.class))).thenReturn(medication);
+        when(medicationRepository.saveAndFlush(medication)).thenReturn(medication);
         when(medicationMapper.toResponse(medication)).thenReturn(medicationResponse);
 
         MedicationResponse result = medicationService.updateMedication(1L, updateRequest, null, user);
 
         assertNotNull(result);
-        verify(medicationRepository, atLeastOnce()).findById(1L);
-        verify(medicationRepository).save(any(Medication.class));
+        verify(medicationRepository, times(1)).findById(1L);
+        verify(medicationRepository).saveAndFlush(medication);
+    }
+
+    @Test
+    void testUpdateMedicationUploadsImageBeforeTransaction() {
+        MultipartFile image = new MockMultipartFile("image", "new.png", "image/png", new byte[] { 1 });
+        when(medicationRepository.findById(1L)).thenReturn(Optional.of(medication));
+        when(medicationImageService.storeImage(1L, image)).thenReturn("http://example.com/new-image.jpg");
+        when(medicationRepository.saveAndFlush(medication)).thenReturn(medication);
+        when(medicationMapper.toResponse(medication)).thenReturn(medicationResponse);
+
+        medicationService.updateMedication(1L, updateRequest, image, user);
+
+        InOrder inOrder = inOrder(medicationImageService, transactionTemplate);
+        inOrder.verify(medicationImageService).storeImage(1L, image);
+        inOrder.verify(transactionTemplate).execute(any());
+        verify(medicationImageService).replaceImage(medication, "http://example.com/new-image.jpg");
+        verify(medicationImageService, never()).releaseImage(any());
+    }
+
+    @Test
+    void testUpdateMedicationKeepsImageWhenCloudinaryIsUnavailable() {
+        medication.setImageStatus(ImageStatus.UPLOADED);
+        MultipartFile image = new MockMultipartFile("image", "new.png", "image/png", new byte[] { 1 });
+        when(medicationRepository.findById(1L)).thenReturn(Optional.of(medication));
+        when(medicationImageService.storeImage(1L, image)).thenReturn(null);
+        when(medicationRepository.saveAndFlush(medication)).thenReturn(medication);
+        when(medicationMapper.toResponse(medication)).thenReturn(medicationResponse);
+
+        MedicationResponse result = medicationService.updateMedication(1L, updateRequest, image, user);
+
+        assertTrue(result.imageUpdateSkipped());
+        assertEquals(ImageStatus.UPLOADED, result.imageStatus());
+        assertEquals(ImageStatus.UPLOADED, medication.getImageStatus());
+        verify(medicationImageService, never()).replaceImage(any(), any());
+    }
+
+    @Test
+    void testUpdateMedicationReleasesUploadedImageWhenUpdateFails() {
+        MultipartFile image = new MockMultipartFile("image", "new.png", "image/png", new byte[] { 1 });
+        when(medicationRepository.findById(1L)).thenReturn(Optional.of(medication));
+        when(medicationImageService.storeImage(1L, image)).thenReturn("http://example.com/new-image.jpg");
+        when(medicationRepository.saveAndFlush(medication))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Medication.class, 1L));
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> medicationService.updateMedication(1L, updateRequest, image, user));
+        verify(medicationImageService).releaseImage("http://example.com/new-image.jpg");
+    }
+
+    @Test
+    void testUpdateMedicationWithImageChecksOwnerBeforeUploading() {
+        User otherUser = new User();
+        otherUser.setId(2L);
+        medication.setUser(otherUser);
+        MultipartFile image = new MockMultipartFile("image", "new.png", "image/png", new byte[] { 1 });
+        when(medicationRepository.findById(1L)).thenReturn(Optional.of(medication));
+
+        assertThrows(com.project.pillpal.exceptions.UnauthorizedAccessException.class,
+                () -> medicationService.updateMedication(1L, updateRequest, image, user));
+        verify(medicationImageService, never()).storeImage(any(), any());
+    }
+
+    @Test
+    void testUpdateMedicationWithStaleVersion() {
+        medication.setVersion(3L);
+        UpdateMedicationRequest staleRequest = new UpdateMedicationRequest("Updated Medication", null, null, null,
+                null, null, null, null, 2L);
+        when(medicationRepository.findById(1L)).thenReturn(Optional.of(medication));
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> medicationService.updateMedication(1L, staleRequest, null, user));
+        verify(medicationMapper, never()).updateEntity(any(), any());
+        verify(medicationRepository, never()).saveAndFlush(any(Medication.class));
     }
 
     @Test
@@ -175,7 +324,7 @@ class MedicationServiceTest {
         assertThrows(com.project.pillpal.exceptions.ResourceNotFoundException.class,
                 () -> medicationService.updateMedication(999L, updateRequest, null, user));
         verify(medicationRepository).findById(999L);
-        verify(medicationRepository, never()).save(any(Medication.class));
+        verify(medicationRepository, never()).saveAndFlush(any(Medication.class));
     }
 
     @Test
@@ -186,6 +335,45 @@ class MedicationServiceTest {
 
         verify(medicationRepository).findById(1L);
         verify(medicationRepository).delete(medication);
+        verify(medicationAutocompleteService).invalidate(1L);
+        verify(dailyAdherenceService).deleteForMedication(1L);
+        verify(adherenceService).forgetMedication(1L, 1L);
+    }
+
+    @Test
+    void testDeleteMedicationEvictsAdherenceOnlyAfterCommit() throws Exception {
+        AtomicBoolean committed = new AtomicBoolean();
+        MedicationIntakeRepository medicationIntakeRepository = mock(MedicationIntakeRepository.class);
+        DailyAdherenceRepository dailyAdherenceRepository = mock(DailyAdherenceRepository.class);
+        when(medicationIntakeRepository.findAdherenceSchedulesByUserId(1L)).thenAnswer(invocation -> committed.get()
+                ? List.of()
+                : List.of(new AdherenceScheduleRow(1L, 1L, "Test Medication", LocalDate.now().minusDays(7), null,
+                        Frequency.DAILY, LocalTime.of(8, 0))));
+        when(dailyAdherenceRepository.findByUserIdAndIntakeDateBetween(eq(1L), any(), any())).thenReturn(List.of());
+        AdherenceService adherence = new AdherenceService(medicationIntakeRepository, dailyAdherenceRepository);
+        MedicationService service = new MedicationService(medicationRepository, medicationMapper,
+                medicationImageService, medicationStatusService, reminderService, medicationAutocompleteService,
+                adherence, dailyAdherenceService, transactionTemplate);
+        when(medicationRepository.findById(1L)).thenReturn(Optional.of(medication));
+        assertEquals(1, adherence.getUserAdherence(1L, null, null).medications().size());
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            service.deleteMedication(1L, user);
+
+            AdherenceResponse duringTransaction = CompletableFuture
+                    .supplyAsync(() -> adherence.getUserAdherence(1L, null, null))
+                    .get(5, TimeUnit.SECONDS);
+            assertEquals(1, duringTransaction.medications().size());
+
+            committed.set(true);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(adherence.getUserAdherence(1L, null, null).medications().isEmpty());
+        verify(medicationIntakeRepository, times(2)).findAdherenceSchedulesByUserId(1L);
     }
 
     @Test
@@ -196,30 +384,28 @@ class MedicationServiceTest {
                 () -> medicationService.deleteMedication(999L, user));
         verify(medicationRepository).findById(999L);
         verify(medicationRepository, never()).delete(any(Medication.class));
+        verify(medicationAutocompleteService, never()).invalidate(any());
     }
 
     @Test
     void testGetMedicationsByUserAndActive() {
-        List<Medication> medications = Collections.singletonList(medication);
-        when(medicationRepository.findByUserIdAndActiveTrue(1L)).thenReturn(medications);
-        when(medicationMapper.toResponse(medication)).thenReturn(medicationResponse);
+        when(medicationRepository.findActiveResponsesByUserId(1L))
+                .thenReturn(Collections.singletonList(medicationResponse));
 
         List<MedicationResponse> result = medicationService.getMedicationsByUserAndActive(1L, true);
 
         assertEquals(1, result.size());
-        verify(medicationRepository).findByUserIdAndActiveTrue(1L);
+        verify(medicationRepository).findActiveResponsesByUserId(1L);
     }
 
     @Test
     void testGetMedicationsByUserAndInactive() {
-        List<Medication> medications = Collections.singletonList(medication);
-        when(medicationRepository.findByUserId(1L)).thenReturn(medications);
-        when(medicationMapper.toResponse(medication)).thenReturn(medicationResponse);
+        when(medicationRepository.findResponsesByUserId(1L)).thenReturn(Collections.singletonList(medicationResponse));
 
         List<MedicationResponse> result = medicationService.getMedicationsByUserAndActive(1L, false);
 
         assertEquals(1, result.size());
-        verify(medicationRepository).findByUserId(1L);
+        verify(medicationRepository).findResponsesByUserId(1L);
     }
 
     @Test
@@ -244,37 +430,85 @@ class MedicationServiceTest {
 
     @Test
     void testCountByUserId() {
-        List<Medication> medications = Arrays.asList(medication, medication);
-        when(medicationRepository.findByUserId(1L)).thenReturn(medications);
+        when(medicationRepository.countByUserId(1L)).thenReturn(2L);
 
         long result = medicationService.countByUserId(1L);
 
         assertEquals(2L, result);
-        verify(medicationRepository).findByUserId(1L);
+        verify(medicationRepository).countByUserId(1L);
     }
 
     @Test
-    void testSearchMedicationsByName() {
-        List<Medication> medications = Collections.singletonList(medication);
-        when(medicationRepository.findByNameContainingIgnoreCase("test")).thenReturn(medications);
-        when(medicationMapper.toResponse(medication)).thenReturn(medicationResponse);
+    void testGetMedicationCountsByUserId() {
+        when(medicationRepository.countByUserIdGroupedByLifetimeAndActive(1L)).thenReturn(Arrays.asList(
+                new MedicationCountRow(true, true, 2L),
+                new MedicationCountRow(false, true, 3L),
+                new MedicationCountRow(false, false, 4L)));
+
+        MedicationCountResponse result = medicationService.getMedicationCountsByUserId(1L);
+
+        assertEquals(new MedicationCountResponse(9L, 5L, 2L, 7L), result);
+        verify(medicationRepository, never()).findResponsesByUserId(1L);
+    }
 
-        List<MedicationResponse> result = medicationService.searchMedicationsByName("test");
+    @Test
+    void testSearchMedicationsByNameMatchesSubstringThroughTrigramIndex() {
+        when(medicationRepository.findResponsesByNameTrigramAndNameLikeAfter("tes", "%test%", 0L,
+                Pageable.unpaged())).thenReturn(Collections.singletonList(medicationResponse));
+
+        List<MedicationResponse> result = medicationService.searchMedicationsByName("test", NameMatch.CONTAINS);
 
         assertEquals(1, result.size());
-        verify(medicationRepository).findByNameContainingIgnoreCase("test");
+    }
+
+    @Test
+    void testSearchMedicationsByNameNormalizesTerm() {
+        when(medicationRepository.findResponsesByNameTrigramAndNameLikeAfter("vit", "%vitamin d%", 0L,
+                Pageable.unpaged())).thenReturn(Collections.singletonList(medicationResponse));
+
+        List<MedicationResponse> result = medicationService.searchMedicationsByName("  Vitamin   D ",
+                NameMatch.CONTAINS);
+
+        assertEquals(1, result.size());
+    }
+
+    @Test
+    void testSearchMedicationsByNameWithShortTermSkipsTrigramIndex() {
+        when(medicationRepository.findResponsesByNameLikeAfter("%d3%", 0L, Pageable.unpaged()))
+                .thenReturn(Collections.singletonList(medicationResponse));
+
+        assertEquals(1, medicationService.searchMedicationsByName("D3", NameMatch.CONTAINS).size());
+        verify(medicationRepository, never()).findResponsesByNameTrigramAndNameLikeAfter(any(), any(), any(),
+                any());
+    }
+
+    @Test
+    void testSearchMedicationsByNamePrefix() {
+        when(medicationRepository.findResponsesByNameLikeAfter("test%", 0L, Pageable.unpaged()))
+                .thenReturn(Collections.singletonList(medicationResponse));
+
+        assertEquals(1, medicationService.searchMedicationsByName("test", NameMatch.PREFIX).size());
+    }
+
+    @Test
+    void testSearchMedicationsByNameEscapesWildcards() {
+        when(medicationRepository.findResponsesByNameTrigramAndNameLikeAfter("50!", "%50!!!%!_x%", 0L,
+                Pageable.unpaged())).thenReturn(List.of());
+
+        assertTrue(medicationService.searchMedicationsByName("50!%_x", NameMatch.CONTAINS).isEmpty());
+        verify(medicationRepository).findResponsesByNameTrigramAndNameLikeAfter("50!", "%50!!!%!_x%", 0L,
+                Pageable.unpaged());
     }
 
     @Test
     void testSearchMedicationsByUserIdAndName() {
-        List<Medication> medications = Collections.singletonList(medication);
-        when(medicationRepository.findByUserIdAndNameContainingIgnoreCase(1L, "test")).thenReturn(medications);
-        when(medicationMapper.toResponse(medication)).thenReturn(medicationResponse);
+        when(medicationRepository.findResponsesByUserIdAndNameTrigramAndNameLikeAfter(1L, "tes", "%test%", 0L,
+                Pageable.unpaged())).thenReturn(Collections.singletonList(medicationResponse));
 
-        List<MedicationResponse> result = medicationService.searchMedicationsByUserIdAndName(1L, "test");
+        List<MedicationResponse> result = medicationService.searchMedicationsByUserIdAndName(1L, "test",
+                NameMatch.CONTAINS);
 
         assertEquals(1, result.size());
-        verify(medicationRepository).findByUserIdAndNameContainingIgnoreCase(1L, "test");
     }
 
     @Test
@@ -322,6 +556,38 @@ class MedicationServiceTest {
         verify(medicationRepository).save(any(Medication.class));
     }
 
+    @Test
+    void testCreateMedicationQueuesImageUploadAfterSave() {
+        MultipartFile image = new MockMultipartFile("image", "pill.png", "image/png", new byte[] { 1 });
+        Path staged = Path.of("/tmp/pillpal-upload-1.tmp");
+        when(medicationMapper.toEntity(createRequest)).thenReturn(medication);
+        when(medicationImageService.stageImageForMedication(medication, image)).thenReturn(staged);
+        when(medicationRepository.save(any(Medication.class))).thenReturn(medication);
+        when(medicationMapper.toResponse(medication)).thenReturn(medicationResponse);
+
+        medicationService.createMedication(createRequest, image, user);
+
+        InOrder inOrder = inOrder(medicationImageService, medicationRepository);
+        inOrder.verify(medicationImageService).stageImageForMedication(medication, image);
+        inOrder.verify(medicationRepository).save(medication);
+        inOrder.verify(medicationImageService).queueImageUpload(medication.getId(), staged);
+        verify(medicationImageService, never()).storeImage(any(), any());
+    }
+
+    @Test
+    void testCreateMedicationDiscardsStagedImageWhenSaveFails() {
+        MultipartFile image = new MockMultipartFile("image", "pill.png", "image/png", new byte[] { 1 });
+        Path staged = Path.of("/tmp/pillpal-upload-1.tmp");
+        when(medicationMapper.toEntity(createRequest)).thenReturn(medication);
+        when(medicationImageService.stageImageForMedication(medication, image)).thenReturn(staged);
+        when(medicationRepository.save(any(Medication.class))).thenThrow(new IllegalStateException("db down"));
+
+        assertThrows(IllegalStateException.class, () -> medicationService.createMedication(createRequest, image, user));
+
+        verify(medicationImageService).discardStagedImage(staged);
+        verify(medicationImageService, never()).queueImageUpload(any(), any());
+    }
+
     @Test
     void testCreateMedicationWithReminder() {
         CreateMedicationRequest reminderRequest = new CreateMedicationRequest("Medication with Reminder", "Description",
@@ -1,5 +1,6 @@
 package com.project.pillpal.medication.service;
 
+import com.project.pillpal.medication.dtos.CursorPageResponse;
 import com.project.pillpal.medication.dtos.MedicationStatusResponse;
 import com.project.pillpal.medication.entity.Medication;
 import com.project.pillpal.medication.repository.MedicationRepository;
@@ -13,16 +14,21 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -65,9 +71,9 @@ class MedicationStatusServiceTest {
     @Test
     void testGetMedicationsByTimeOfDayWithTakenStatus() {
         when(medicationRepository.findByActiveTrue()).thenReturn(Collections.singletonList(medication));
-        when(medicationIntakeService.getIntakesByMedicationIdAndDateRange(anyLong(), any(LocalDateTime.class),
+        when(medicationIntakeService.getIntakesByMedicationIdsAndDateRange(anyCollection(), any(LocalDateTime.class),
                 any(LocalDateTime.class)))
-                .thenReturn(Collections.singletonList(takenIntake));
+                .thenReturn(Map.of(1L, Collections.singletonList(takenIntake)));
 
         List<MedicationStatusResponse> result = medicationStatusService.getMedicationsByTimeOfDay();
 
@@ -84,9 +90,9 @@ class MedicationStatusServiceTest {
     @Test
     void testGetMedicationsByTimeOfDayWithSkippedStatus() {
         when(medicationRepository.findByActiveTrue()).thenReturn(Collections.singletonList(medication));
-        when(medicationIntakeService.getIntakesByMedicationIdAndDateRange(anyLong(), any(LocalDateTime.class),
+        when(medicationIntakeService.getIntakesByMedicationIdsAndDateRange(anyCollection(), any(LocalDateTime.class),
                 any(LocalDateTime.class)))
-                .thenReturn(Collections.singletonList(skippedIntake));
+                .thenReturn(Map.of(1L, Collections.singletonList(skippedIntake)));
 
         List<MedicationStatusResponse> result = medicationStatusService.getMedicationsByTimeOfDay();
 
@@ -98,9 +104,9 @@ class MedicationStatusServiceTest {
     @Test
     void testGetMedicationsByTimeOfDayWithPendingStatus() {
         when(medicationRepository.findByActiveTrue()).thenReturn(Collections.singletonList(medication));
-        when(medicationIntakeService.getIntakesByMedicationIdAndDateRange(anyLong(), any(LocalDateTime.class),
+        when(medicationIntakeService.getIntakesByMedicationIdsAndDateRange(anyCollection(), any(LocalDateTime.class),
                 any(LocalDateTime.class)))
-                .thenReturn(Collections.emptyList());
+                .thenReturn(Collections.emptyMap());
 
         List<MedicationStatusResponse> result = medicationStatusService.getMedicationsByTimeOfDay();
 
@@ -119,16 +125,29 @@ class MedicationStatusServiceTest {
         medication2.setActive(true);
 
         when(medicationRepository.findByActiveTrue()).thenReturn(Arrays.asList(medication, medication2));
-        when(medicationIntakeService.getIntakesByMedicationIdAndDateRange(anyLong(), any(LocalDateTime.class),
+        when(medicationIntakeService.getIntakesByMedicationIdsAndDateRange(anyCollection(), any(LocalDateTime.class),
                 any(LocalDateTime.class)))
-                .thenReturn(Collections.singletonList(takenIntake))
-                .thenReturn(Collections.emptyList());
+                .thenReturn(Map.of(1L, Collections.singletonList(takenIntake)));
 
         List<MedicationStatusResponse> result = medicationStatusService.getMedicationsByTimeOfDay();
 
         assertEquals(2, result.size());
         assertEquals("taken", result.get(0).status());
         assertEquals("pending", result.get(1).status());
+        verify(medicationIntakeService, times(1)).getIntakesByMedicationIdsAndDateRange(anyCollection(),
+                any(LocalDateTime.class), any(LocalDateTime.class));
+        verify(medicationIntakeService, never()).getIntakesByMedicationIdAndDateRange(anyLong(),
+                any(LocalDateTime.class), any(LocalDateTime.class));
+    }
+
+    @Test
+    void testGetMedicationsByTimeOfDayWithNoActiveMedications() {
+        when(medicationRepository.findByActiveTrue()).thenReturn(Collections.emptyList());
+
+        List<MedicationStatusResponse> result = medicationStatusService.getMedicationsByTimeOfDay();
+
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(medicationIntakeService);
     }
 
     @Test
@@ -235,4 +254,45 @@ class MedicationStatusServiceTest {
         assertEquals("pending", result.status());
         assertEquals(1, result.todayIntakes().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGetMedicationsByTimeOfDayForUserReturnsPageWithCursor() {
+        Medication medication2 = new Medication();
+        medication2.setId(2L);
+        medication2.setName("Test Medication 2");
+        medication2.setDosage("200mg");
+        medication2.setActive(true);
+
+        when(medicationRepository.findByUserIdAndActiveTrueAndIdGreaterThanOrderByIdAsc(eq(1L), eq(0L),
+                any(Pageable.class)))
+                .thenReturn(Arrays.asList(medication, medication2));
+        when(medicationIntakeService.getIntakesByMedicationIdsAndDateRange(anyCollection(), any(LocalDateTime.class),
+                any(LocalDateTime.class)))
+                .thenReturn(Map.of(1L, Collections.singletonList(takenIntake)));
+
+        CursorPageResponse<MedicationStatusResponse> result = medicationStatusService
+                .getMedicationsByTimeOfDayForUser(1L, null, 1);
+
+        assertEquals(1, result.items().size());
+        assertEquals("taken", result.items().getFirst().status());
+        assertTrue(result.hasMore());
+        assertEquals(1L, result.nextCursor());
+        verify(medicationRepository).findByUserIdAndActiveTrueAndIdGreaterThanOrderByIdAsc(1L, 0L,
+                PageRequest.ofSize(2));
+    }
+
+    @Test
+    void testGetMedicationsByTimeOfDayForUserLastPage() {
+        when(medicationRepository.findByUserIdAndActiveTrueAndIdGreaterThanOrderByIdAsc(eq(1L), eq(5L),
+                any(Pageable.class)))
+                .thenReturn(Collections.emptyList());
+
+        CursorPageResponse<MedicationStatusResponse> result = medicationStatusService
+                .getMedicationsByTimeOfDayForUser(1L, 5L, 20);
+
+        assertTrue(result.items().isEmpty());
+        assertFalse(result.hasMore());
+        assertNull(result.nextCursor());
+        verifyNoInteractions(medicationIntakeService);
+    }
+}
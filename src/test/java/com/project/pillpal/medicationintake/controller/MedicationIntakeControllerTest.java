@@ -24,7 +24,9 @@ import org.springframework.web.context.WebApplicationContext;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
 
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -83,7 +85,7 @@ class MedicationIntakeControllerTest {
     @Test
     void testCreateIntake() throws Exception {
         CreateMedicationIntakeRequest request = new CreateMedicationIntakeRequest(
-                medication.getId(), "SKIPPED");
+                medication.getId(), "SKIPPED", null);
 
         mockMvc.perform(post("/api/intakes")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -98,7 +100,51 @@ class MedicationIntakeControllerTest {
         mockMvc.perform(get("/api/intakes/me"))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
-                .andExpect(jsonPath("$").isArray());
+                .andExpect(jsonPath("$").isArray())
+                .andExpect(header().string("Deprecation", "true"));
+    }
+
+    @Test
+    void testGetAllIntakesForCurrentUserIsCappedAtLimit() throws Exception {
+        mockMvc.perform(get("/api/intakes/me")
+                .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(lessThanOrEqualTo(1)));
+    }
+
+    @Test
+    void testGetIntakeHistoryForCurrentUser() throws Exception {
+        mockMvc.perform(get("/api/intakes/me/history")
+                .param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.items").isArray())
+                .andExpect(jsonPath("$.hasMore").isBoolean());
+    }
+
+    @Test
+    void testGetIntakeHistoryWithPartialCursor() throws Exception {
+        mockMvc.perform(get("/api/intakes/me/history")
+                .param("beforeId", "10"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testGetAdherenceForCurrentUser() throws Exception {
+        mockMvc.perform(get("/api/intakes/adherence/me")
+                .param("from", LocalDate.now().minusDays(6).toString()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.medications").isArray())
+                .andExpect(jsonPath("$.currentStreak").isNumber());
+    }
+
+    @Test
+    void testGetAdherenceWithInvertedWindow() throws Exception {
+        mockMvc.perform(get("/api/intakes/adherence/me")
+                .param("from", "2024-02-10")
+                .param("to", "2024-02-01"))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -128,7 +174,7 @@ class MedicationIntakeControllerTest {
     @Test
     void testCreateIntakeWithPENDINGStatus() throws Exception {
         CreateMedicationIntakeRequest request = new CreateMedicationIntakeRequest(
-                medication.getId(), "PENDING");
+                medication.getId(), "PENDING", null);
 
         mockMvc.perform(post("/api/intakes")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -141,7 +187,7 @@ class MedicationIntakeControllerTest {
     @Test
     void testCreateIntakeWithTAKENStatus() throws Exception {
         CreateMedicationIntakeRequest request = new CreateMedicationIntakeRequest(
-                medication.getId(), "TAKEN");
+                medication.getId(), "TAKEN", null);
 
         mockMvc.perform(post("/api/intakes")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -154,7 +200,7 @@ class MedicationIntakeControllerTest {
     @Test
     void testCreateIntakeWithInvalidStatus() throws Exception {
         CreateMedicationIntakeRequest request = new CreateMedicationIntakeRequest(
-                medication.getId(), "INVALID_STATUS");
+                medication.getId(), "INVALID_STATUS", null);
 
         mockMvc.perform(post("/api/intakes")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -165,7 +211,7 @@ class MedicationIntakeControllerTest {
     @Test
     void testCreateIntakeWithNonExistentMedication() throws Exception {
         CreateMedicationIntakeRequest request = new CreateMedicationIntakeRequest(
-                999L, "TAKEN");
+                999L, "TAKEN", null);
 
         mockMvc.perform(post("/api/intakes")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -173,6 +219,26 @@ class MedicationIntakeControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void testCreateIntakesBatchWithNonExistentMedication() throws Exception {
+        List<CreateMedicationIntakeRequest> requests = List.of(
+                new CreateMedicationIntakeRequest(999L, "TAKEN", LocalDateTime.now().minusHours(2)),
+                new CreateMedicationIntakeRequest(999L, "SKIPPED", LocalDateTime.now().minusHours(1)));
+
+        mockMvc.perform(post("/api/intakes/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testCreateIntakesBatchEmpty() throws Exception {
+        mockMvc.perform(post("/api/intakes/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void testGetIntakesByMedicationIdNotFound() throws Exception {
         mockMvc.perform(get("/api/intakes/medication/{medicationId}", 999L))
@@ -194,7 +260,7 @@ class MedicationIntakeControllerTest {
     @Test
     void testCreateIntakeWithNullMedicationId() throws Exception {
         CreateMedicationIntakeRequest request = new CreateMedicationIntakeRequest(
-                null, "TAKEN");
+                null, "TAKEN", null);
 
         mockMvc.perform(post("/api/intakes")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -205,7 +271,7 @@ class MedicationIntakeControllerTest {
     @Test
     void testCreateIntakeWithNullStatus() throws Exception {
         CreateMedicationIntakeRequest request = new CreateMedicationIntakeRequest(
-                medication.getId(), null);
+                medication.getId(), null, null);
 
         mockMvc.perform(post("/api/intakes")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -0,0 +1,53 @@
+package com.project.pillpal.medicationintake.repository;
+
+import com.project.pillpal.medication.entity.Medication;
+import com.project.pillpal.medication.repository.MedicationRepository;
+import com.project.pillpal.medicationintake.entity.MedicationIntake;
+import com.project.pillpal.medicationintake.entity.Status;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:pillpal_intake_seed;MODE=MySQL",
+        "spring.sql.init.mode=always",
+        "spring.jpa.defer-datasource-initialization=true",
+        "spring.sql.init.data-locations=classpath:data-local.sql,classpath:sql/intake-high-id.sql,"
+                + "classpath:data-local-sequences.sql"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class MedicationIntakeRepositoryTest {
+
+    @Autowired
+    private MedicationIntakeRepository medicationIntakeRepository;
+
+    @Autowired
+    private MedicationRepository medicationRepository;
+
+    @Test
+    void testGeneratedIdsStartAfterHighestSeededId() {
+        Medication medication = medicationRepository.findById(1L).orElseThrow();
+
+        MedicationIntake first = medicationIntakeRepository.saveAndFlush(intake(medication));
+        MedicationIntake second = medicationIntakeRepository.saveAndFlush(intake(medication));
+
+        assertTrue(first.getId() > 500, "first generated id " + first.getId());
+        assertTrue(second.getId() > first.getId());
+        assertEquals(6, medicationIntakeRepository.count());
+    }
+
+    private static MedicationIntake intake(Medication medication) {
+        MedicationIntake intake = new MedicationIntake();
+        intake.setDateTime(LocalDateTime.of(2024, 3, 2, 8, 0));
+        intake.setStatus(Status.TAKEN);
+        intake.setMedication(medication);
+        return intake;
+    }
+}
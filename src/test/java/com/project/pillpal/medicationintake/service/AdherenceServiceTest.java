@@ -0,0 +1,168 @@
+package com.project.pillpal.medicationintake.service;
+
+import com.project.pillpal.exceptions.ResourceNotFoundException;
+import com.project.pillpal.medicationintake.dto.AdherenceResponse;
+import com.project.pillpal.medicationintake.dto.AdherenceScheduleRow;
+import com.project.pillpal.medicationintake.dto.MedicationAdherenceResponse;
+import com.project.pillpal.medicationintake.entity.DailyAdherence;
+import com.project.pillpal.medicationintake.repository.DailyAdherenceRepository;
+import com.project.pillpal.medicationintake.repository.MedicationIntakeRepository;
+import com.project.pillpal.reminder.entity.Frequency;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AdherenceServiceTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 1, 1);
+
+    @Mock
+    private MedicationIntakeRepository medicationIntakeRepository;
+
+    @Mock
+    private DailyAdherenceRepository dailyAdherenceRepository;
+
+    @InjectMocks
+    private AdherenceService adherenceService;
+
+    @Test
+    void testGetUserAdherenceCountsRatesAndStreaks() {
+        when(medicationIntakeRepository.findAdherenceSchedulesByUserId(1L)).thenReturn(List.of(
+                new AdherenceScheduleRow(1L, 10L, "Aspirin", MONDAY, null, Frequency.DAILY, LocalTime.of(8, 0))));
+        when(dailyAdherenceRepository.findByUserIdAndIntakeDateBetween(eq(1L), any(), any())).thenReturn(List.of(
+                row(MONDAY, 1, 0),
+                row(MONDAY.plusDays(1), 1, 0),
+                row(MONDAY.plusDays(2), 0, 1),
+                row(MONDAY.plusDays(3), 1, 0),
+                row(MONDAY.plusDays(4), 1, 0)));
+
+        AdherenceResponse result = adherenceService.getUserAdherence(1L, MONDAY, MONDAY.plusDays(5),
+                LocalDateTime.of(2024, 2, 1, 12, 0));
+
+        assertEquals(6, result.expectedDoses());
+        assertEquals(4, result.takenDoses());
+        assertEquals(1, result.skippedDoses());
+        assertEquals(1, result.missedDoses());
+        assertEquals(0.667, result.adherenceRate());
+        assertEquals(0, result.currentStreak());
+        assertEquals(2, result.longestStreak());
+        assertEquals(1, result.medications().size());
+        assertEquals("Aspirin", result.medications().getFirst().medicationName());
+        verify(dailyAdherenceRepository).findByUserIdAndIntakeDateBetween(1L, MONDAY, MONDAY.plusDays(5));
+    }
+
+    @Test
+    void testGetUserAdherenceOnlyCountsDueDosesToday() {
+        LocalDate today = MONDAY.plusDays(4);
+        when(medicationIntakeRepository.findAdherenceSchedulesByUserId(1L)).thenReturn(List.of(
+                new AdherenceScheduleRow(1L, 10L, "Aspirin", MONDAY, null, Frequency.DAILY, LocalTime.of(8, 0)),
+                new AdherenceScheduleRow(1L, 10L, "Aspirin", MONDAY, null, Frequency.DAILY, LocalTime.of(20, 0))));
+        when(dailyAdherenceRepository.findByUserIdAndIntakeDateBetween(eq(1L), any(), any())).thenReturn(List.of(
+                new DailyAdherence(null, 1L, 10L, today.minusDays(1), 2, 0, 2)));
+
+        AdherenceResponse result = adherenceService.getUserAdherence(1L, today.minusDays(1), today,
+                today.atTime(10, 0));
+
+        assertEquals(3, result.expectedDoses());
+        assertEquals(0, result.missedDoses());
+        assertEquals(1, result.currentStreak());
+    }
+
+    @Test
+    void testGetUserAdherenceCountsWeeklyRemindersOnStartWeekday() {
+        when(medicationIntakeRepository.findAdherenceSchedulesByUserId(1L)).thenReturn(List.of(
+                new AdherenceScheduleRow(1L, 10L, "Vitamin D", MONDAY, null, Frequency.WEEKLY, LocalTime.of(9, 0)),
+                new AdherenceScheduleRow(1L, 11L, "No reminders", MONDAY, null, null, null)));
+        when(dailyAdherenceRepository.findByUserIdAndIntakeDateBetween(eq(1L), any(), any())).thenReturn(List.of(
+                row(MONDAY.plusDays(7), 1, 0)));
+
+        AdherenceResponse result = adherenceService.getUserAdherence(1L, MONDAY, MONDAY.plusDays(13),
+                LocalDateTime.of(2024, 2, 1, 12, 0));
+
+        MedicationAdherenceResponse weekly = result.medications().getFirst();
+        assertEquals(2, weekly.expectedDoses());
+        assertEquals(1, weekly.missedDoses());
+        assertEquals(1, weekly.currentStreak());
+        assertNull(result.medications().get(1).adherenceRate());
+    }
+
+    @Test
+    void testGetUserAdherenceIsCachedUntilInvalidated() {
+        when(medicationIntakeRepository.findAdherenceSchedulesByUserId(1L)).thenReturn(List.of(
+                new AdherenceScheduleRow(1L, 10L, "Aspirin", MONDAY, null, Frequency.DAILY, LocalTime.of(8, 0))));
+        when(dailyAdherenceRepository.findByUserIdAndIntakeDateBetween(eq(1L), any(), any())).thenReturn(List.of());
+        LocalDateTime now = LocalDateTime.of(2024, 2, 1, 12, 0);
+
+        adherenceService.getUserAdherence(1L, MONDAY, MONDAY.plusDays(6), now);
+        adherenceService.getUserAdherence(1L, MONDAY, MONDAY.plusDays(6), now.plusHours(1));
+        verify(medicationIntakeRepository, times(1)).findAdherenceSchedulesByUserId(1L);
+
+        adherenceService.invalidateMedication(10L);
+        adherenceService.getUserAdherence(1L, MONDAY, MONDAY.plusDays(6), now.plusHours(1));
+        verify(medicationIntakeRepository, times(2)).findAdherenceSchedulesByUserId(1L);
+    }
+
+    @Test
+    void testForgetMedicationInvalidatesOwner() {
+        when(medicationIntakeRepository.findAdherenceSchedulesByUserId(1L)).thenReturn(List.of(
+                new AdherenceScheduleRow(1L, 10L, "Aspirin", MONDAY, null, Frequency.DAILY, LocalTime.of(8, 0))));
+        when(dailyAdherenceRepository.findByUserIdAndIntakeDateBetween(eq(1L), any(), any())).thenReturn(List.of());
+        LocalDateTime now = LocalDateTime.of(2024, 2, 1, 12, 0);
+
+        adherenceService.getUserAdherence(1L, MONDAY, MONDAY.plusDays(6), now);
+        adherenceService.forgetMedication(10L, 1L);
+        adherenceService.getUserAdherence(1L, MONDAY, MONDAY.plusDays(6), now);
+
+        verify(medicationIntakeRepository, times(2)).findAdherenceSchedulesByUserId(1L);
+    }
+
+    @Test
+    void testGetMedicationAdherenceNotFound() {
+        when(medicationIntakeRepository.findAdherenceSchedulesByUserId(1L)).thenReturn(List.of());
+        when(dailyAdherenceRepository.findByUserIdAndIntakeDateBetween(eq(1L), any(), any())).thenReturn(List.of());
+
+        assertThrows(ResourceNotFoundException.class, () -> adherenceService.getMedicationAdherence(1L, 99L,
+                MONDAY, MONDAY.plusDays(6), LocalDateTime.of(2024, 2, 1, 12, 0)));
+    }
+
+    @Test
+    void testGetUserAdherenceRejectsOversizedWindow() {
+        assertThrows(IllegalArgumentException.class, () -> adherenceService.getUserAdherence(1L, MONDAY,
+                MONDAY.plusDays(AdherenceService.MAX_WINDOW_DAYS), LocalDateTime.of(2025, 2, 1, 12, 0)));
+        verifyNoInteractions(medicationIntakeRepository, dailyAdherenceRepository);
+    }
+
+    @Test
+    void testGetUserAdherenceKeepsExpectedRecordedInRollup() {
+        when(medicationIntakeRepository.findAdherenceSchedulesByUserId(1L)).thenReturn(List.of(
+                new AdherenceScheduleRow(1L, 10L, "Aspirin", MONDAY, null, Frequency.DAILY, LocalTime.of(8, 0))));
+        DailyAdherence twiceDaily = row(MONDAY, 2, 0);
+        twiceDaily.setExpected(2);
+        when(dailyAdherenceRepository.findByUserIdAndIntakeDateBetween(eq(1L), any(), any()))
+                .thenReturn(List.of(twiceDaily));
+
+        AdherenceResponse result = adherenceService.getUserAdherence(1L, MONDAY, MONDAY.plusDays(1),
+                LocalDateTime.of(2024, 2, 1, 12, 0));
+
+        assertEquals(3, result.expectedDoses());
+        assertEquals(1, result.missedDoses());
+        assertEquals(1, result.longestStreak());
+    }
+
+    private static DailyAdherence row(LocalDate date, int taken, int skipped) {
+        return new DailyAdherence(null, 1L, 10L, date, taken, skipped, 1);
+    }
+}
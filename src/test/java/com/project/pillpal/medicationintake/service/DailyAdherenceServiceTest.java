@@ -0,0 +1,109 @@
+package com.project.pillpal.medicationintake.service;
+
+import com.project.pillpal.medication.entity.Medication;
+import com.project.pillpal.medicationintake.dto.AdherenceScheduleRow;
+import com.project.pillpal.medicationintake.dto.DailyIntakeCount;
+import com.project.pillpal.medicationintake.entity.MedicationIntake;
+import com.project.pillpal.medicationintake.entity.Status;
+import com.project.pillpal.medicationintake.repository.DailyAdherenceRepository;
+import com.project.pillpal.medicationintake.repository.MedicationIntakeRepository;
+import com.project.pillpal.reminder.entity.Frequency;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DailyAdherenceServiceTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 1, 1);
+
+    @Mock
+    private DailyAdherenceRepository dailyAdherenceRepository;
+
+    @Mock
+    private MedicationIntakeRepository medicationIntakeRepository;
+
+    @InjectMocks
+    private DailyAdherenceService dailyAdherenceService;
+
+    @Test
+    void testRecordIntakeAddsCountsForIntakeDay() {
+        when(medicationIntakeRepository.findAdherenceSchedulesByMedicationId(10L)).thenReturn(List.of(
+                new AdherenceScheduleRow(1L, 10L, "Aspirin", MONDAY, null, Frequency.DAILY, LocalTime.of(8, 0)),
+                new AdherenceScheduleRow(1L, 10L, "Aspirin", MONDAY, null, Frequency.DAILY, LocalTime.of(20, 0))));
+
+        dailyAdherenceService.recordIntake(intake(10L, MONDAY.plusDays(2), Status.SKIPPED));
+
+        verify(dailyAdherenceRepository).addCounts(1L, 10L, MONDAY.plusDays(2), 0, 1, 2);
+    }
+
+    @Test
+    void testRecordIntakesGroupsByMedicationAndDay() {
+        when(medicationIntakeRepository.findAdherenceSchedulesByMedicationIdIn(Set.of(10L, 11L))).thenReturn(List.of(
+                new AdherenceScheduleRow(1L, 10L, "Aspirin", MONDAY, null, Frequency.DAILY, LocalTime.of(8, 0)),
+                new AdherenceScheduleRow(1L, 11L, "Vitamin D", MONDAY, null, Frequency.WEEKLY,
+                        LocalTime.of(9, 0))));
+
+        dailyAdherenceService.recordIntakes(dailyAdherenceService.getSchedules(Set.of(10L, 11L)), List.of(
+                intake(10L, MONDAY, Status.TAKEN),
+                intake(10L, MONDAY, Status.TAKEN),
+                intake(10L, MONDAY, Status.PENDING),
+                intake(11L, MONDAY.plusDays(1), Status.TAKEN)));
+
+        verify(dailyAdherenceRepository).addCounts(1L, 10L, MONDAY, 2, 0, 1);
+        verify(dailyAdherenceRepository).addCounts(1L, 11L, MONDAY.plusDays(1), 1, 0, 0);
+        verifyNoMoreInteractions(dailyAdherenceRepository);
+        verify(medicationIntakeRepository).findAdherenceSchedulesByMedicationIdIn(Set.of(10L, 11L));
+        verifyNoMoreInteractions(medicationIntakeRepository);
+    }
+
+    @Test
+    void testRecordIntakeSkipsDeletedMedication() {
+        when(medicationIntakeRepository.findAdherenceSchedulesByMedicationId(10L)).thenReturn(List.of());
+
+        dailyAdherenceService.recordIntake(intake(10L, MONDAY, Status.TAKEN));
+
+        verify(dailyAdherenceRepository, never()).addCounts(anyLong(), anyLong(), any(), anyInt(), anyInt(),
+                anyInt());
+    }
+
+    @Test
+    void testRebuildForUserReplacesCountsFromIntakes() {
+        when(medicationIntakeRepository.findAdherenceSchedulesByUserId(1L)).thenReturn(List.of(
+                new AdherenceScheduleRow(1L, 10L, "Aspirin", MONDAY, null, Frequency.DAILY, LocalTime.of(8, 0))));
+        when(medicationIntakeRepository.countDailyByUserId(eq(1L), any(), any())).thenReturn(List.of(
+                new DailyIntakeCount(10L, MONDAY, Status.TAKEN, 1L),
+                new DailyIntakeCount(10L, MONDAY, Status.SKIPPED, 2L),
+                new DailyIntakeCount(10L, MONDAY.plusDays(1), Status.TAKEN, 1L)));
+
+        int rows = dailyAdherenceService.rebuildForUser(1L);
+
+        assertEquals(2, rows);
+        verify(dailyAdherenceRepository).replaceCounts(1L, 10L, MONDAY, 1, 2, 1);
+        verify(dailyAdherenceRepository).replaceCounts(1L, 10L, MONDAY.plusDays(1), 1, 0, 1);
+    }
+
+    private static MedicationIntake intake(Long medicationId, LocalDate date, Status status) {
+        Medication medication = new Medication();
+        medication.setId(medicationId);
+        MedicationIntake intake = new MedicationIntake();
+        intake.setMedication(medication);
+        intake.setDateTime(date.atTime(8, 5));
+        intake.setStatus(status);
+        return intake;
+    }
+}
@@ -1,12 +1,18 @@
 package com.project.pillpal.medicationintake.service;
 
+import com.project.pillpal.exceptions.IdempotencyKeyReusedException;
 import com.project.pillpal.medication.entity.Medication;
 import com.project.pillpal.medication.repository.MedicationRepository;
+import com.project.pillpal.medicationintake.dto.AdherenceScheduleRow;
+import com.project.pillpal.medicationintake.dto.CreateMedicationIntakeRequest;
+import com.project.pillpal.medicationintake.dto.IntakeHistoryPageResponse;
 import com.project.pillpal.medicationintake.dto.MedicationIntakeResponse;
 import com.project.pillpal.medicationintake.entity.MedicationIntake;
 import com.project.pillpal.medicationintake.entity.Status;
 import com.project.pillpal.medicationintake.mapper.MedicationIntakeMapper;
+import com.project.pillpal.medicationintake.repository.DailyAdherenceRepository;
 import com.project.pillpal.medicationintake.repository.MedicationIntakeRepository;
+import com.project.pillpal.reminder.entity.Frequency;
 import com.project.pillpal.user.entity.Role;
 import com.project.pillpal.user.entity.User;
 import org.junit.jupiter.api.BeforeEach;
@@ -14,15 +20,28 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,6 +56,18 @@ class MedicationIntakeServiceTest {
     @Mock
     private MedicationRepository medicationRepository;
 
+    @Mock
+    private AdherenceService adherenceService;
+
+    @Mock
+    private DailyAdherenceService dailyAdherenceService;
+
+    @Spy
+    private RecentIdempotencyKeys recentIdempotencyKeys = new RecentIdempotencyKeys();
+
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
     @InjectMocks
     private MedicationIntakeService medicationIntakeService;
 
@@ -68,48 +99,332 @@ class MedicationIntakeServiceTest {
 
     @Test
     void testCreateIntakeSuccess() {
-        when(medicationRepository.findById(1L)).thenReturn(Optional.of(medication));
-        when(medicationIntakeRepository.save(any(MedicationIntake.class))).thenReturn(intake);
+        when(medicationRepository.getReferenceById(1L)).thenReturn(medication);
+        when(medicationIntakeRepository.saveAndFlush(any(MedicationIntake.class))).thenReturn(intake);
 
         MedicationIntake result = medicationIntakeService.createIntake(1L, Status.TAKEN);
 
         assertNotNull(result);
         assertEquals(Status.TAKEN, result.getStatus());
         assertEquals(medication, result.getMedication());
-        verify(medicationRepository).findById(1L);
-        verify(medicationIntakeRepository).save(any(MedicationIntake.class));
+        verify(medicationRepository).getReferenceById(1L);
+        verify(medicationRepository, never()).findById(any());
+        verify(medicationIntakeRepository).saveAndFlush(any(MedicationIntake.class));
+        verify(dailyAdherenceService).recordIntake(intake);
+        verify(adherenceService).invalidateMedication(1L);
+    }
+
+    @Test
+    void testCreateIntakeFailsWhenDailyAdherenceCannotBeRecorded() {
+        when(medicationRepository.getReferenceById(1L)).thenReturn(medication);
+        when(medicationIntakeRepository.saveAndFlush(any(MedicationIntake.class))).thenReturn(intake);
+        doThrow(new IllegalStateException("deadlock")).when(dailyAdherenceService).recordIntake(intake);
+
+        assertThrows(IllegalStateException.class, () -> medicationIntakeService.createIntake(1L,
+                IdempotencyScope.TAKEN, 1L, Status.TAKEN, null, "retry-6"));
+
+        verify(transactionTemplate).execute(any());
+        assertNull(recentIdempotencyKeys.get("1:taken:retry-6"));
+        verifyNoInteractions(adherenceService);
     }
 
     @Test
     void testCreateIntakeMedicationNotFound() {
-        when(medicationRepository.findById(999L)).thenReturn(Optional.empty());
+        Medication missingMedication = new Medication();
+        missingMedication.setId(999L);
+        when(medicationRepository.getReferenceById(999L)).thenReturn(missingMedication);
+        when(medicationIntakeRepository.saveAndFlush(any(MedicationIntake.class)))
+                .thenThrow(new DataIntegrityViolationException("FK_MEDICATION_INTAKES_MEDICATION"));
 
         assertThrows(com.project.pillpal.exceptions.ResourceNotFoundException.class,
                 () -> medicationIntakeService.createIntake(999L, Status.TAKEN));
-        verify(medicationRepository).findById(999L);
+        verify(medicationRepository).getReferenceById(999L);
+        verify(medicationRepository).existsById(999L);
+    }
+
+    @Test
+    void testCreateIntakeRethrowsOtherConstraintViolations() {
+        DataIntegrityViolationException violation = new DataIntegrityViolationException("CK_MEDICATION_INTAKES");
+        when(medicationRepository.getReferenceById(1L)).thenReturn(medication);
+        when(medicationRepository.existsById(1L)).thenReturn(true);
+        when(medicationIntakeRepository.saveAndFlush(any(MedicationIntake.class))).thenThrow(violation);
+
+        DataIntegrityViolationException thrown = assertThrows(DataIntegrityViolationException.class,
+                () -> medicationIntakeService.createIntake(1L, Status.TAKEN));
+
+        assertSame(violation, thrown);
+        verifyNoInteractions(dailyAdherenceService, adherenceService);
+    }
+
+    @Test
+    void testCreateIntakeReplaysRecentIdempotencyKey() {
+        when(medicationRepository.getReferenceById(1L)).thenReturn(medication);
+        when(medicationIntakeRepository.saveAndFlush(any(MedicationIntake.class))).thenReturn(intake);
+
+        MedicationIntake first = medicationIntakeService.createIntake(1L, IdempotencyScope.TAKEN, 1L, Status.TAKEN,
+                null, "retry-1");
+        MedicationIntake second = medicationIntakeService.createIntake(1L, IdempotencyScope.TAKEN, 1L, Status.TAKEN,
+                null, "retry-1");
+
+        assertSame(first, second);
+        verify(medicationIntakeRepository, times(1)).saveAndFlush(any(MedicationIntake.class));
+        verify(medicationIntakeRepository, never()).findByIdempotencyKey(any());
+    }
+
+    @Test
+    void testCreateIntakeReplaysStoredIdempotencyKey() {
+        when(medicationRepository.getReferenceById(1L)).thenReturn(medication);
+        when(medicationIntakeRepository.saveAndFlush(any(MedicationIntake.class)))
+                .thenThrow(new DataIntegrityViolationException("UK_MEDICATION_INTAKES_IDEMPOTENCY_KEY"));
+        when(medicationIntakeRepository.findByIdempotencyKey("1:taken:retry-2")).thenReturn(Optional.of(intake));
+
+        MedicationIntake result = medicationIntakeService.createIntake(1L, IdempotencyScope.TAKEN, 1L, Status.TAKEN,
+                null, "retry-2");
+
+        assertSame(intake, result);
+        assertSame(intake, recentIdempotencyKeys.get("1:taken:retry-2"));
+    }
+
+    @Test
+    void testCreateIntakeRejectsIdempotencyKeyReusedForOtherMedication() {
+        recentIdempotencyKeys.put("1:create:retry-3", intake);
+
+        assertThrows(IdempotencyKeyReusedException.class, () -> medicationIntakeService.createIntake(1L,
+                IdempotencyScope.CREATE, 2L, Status.TAKEN, null, "retry-3"));
+        verifyNoInteractions(medicationIntakeRepository);
+    }
+
+    @Test
+    void testCreateIntakeRejectsIdempotencyKeyReusedWithOtherPayload() {
+        recentIdempotencyKeys.put("1:create:retry-4", intake);
+
+        assertThrows(IdempotencyKeyReusedException.class, () -> medicationIntakeService.createIntake(1L,
+                IdempotencyScope.CREATE, 1L, Status.SKIPPED, null, "retry-4"));
+        assertThrows(IdempotencyKeyReusedException.class, () -> medicationIntakeService.createIntake(1L,
+                IdempotencyScope.CREATE, 1L, Status.TAKEN, intake.getDateTime().minusHours(1), "retry-4"));
+        assertSame(intake, medicationIntakeService.createIntake(1L, IdempotencyScope.CREATE, 1L, Status.TAKEN,
+                intake.getDateTime(), "retry-4"));
+        verifyNoInteractions(medicationIntakeRepository);
+    }
+
+    @Test
+    void testCreateIntakeScopesIdempotencyKeyToUserAndEndpoint() {
+        when(medicationRepository.getReferenceById(1L)).thenReturn(medication);
+        when(medicationIntakeRepository.saveAndFlush(any(MedicationIntake.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        MedicationIntake taken = medicationIntakeService.createIntake(1L, IdempotencyScope.TAKEN, 1L, Status.TAKEN,
+                null, "retry-5");
+        MedicationIntake otherUser = medicationIntakeService.createIntake(2L, IdempotencyScope.TAKEN, 1L,
+                Status.TAKEN, null, "retry-5");
+        MedicationIntake created = medicationIntakeService.createIntake(1L, IdempotencyScope.CREATE, 1L,
+                Status.TAKEN, null, "retry-5");
+
+        assertEquals("1:taken:retry-5", taken.getIdempotencyKey());
+        assertEquals("2:taken:retry-5", otherUser.getIdempotencyKey());
+        assertEquals("1:create:retry-5", created.getIdempotencyKey());
+        verify(medicationIntakeRepository, times(3)).saveAndFlush(any(MedicationIntake.class));
+    }
+
+    @Test
+    void testCreateIntakesSkipsReplayedItems() {
+        intake.setIdempotencyKey("1:batch:sync-1:0");
+        List<CreateMedicationIntakeRequest> requests = List.of(
+                new CreateMedicationIntakeRequest(1L, "TAKEN", null),
+                new CreateMedicationIntakeRequest(1L, "SKIPPED", null));
+        when(medicationRepository.findIdsByUserIdAndIdIn(1L, Set.of(1L))).thenReturn(List.of(1L));
+        when(medicationIntakeRepository.findByIdempotencyKeyIn(List.of("1:batch:sync-1:0", "1:batch:sync-1:1")))
+                .thenReturn(List.of(intake));
+        when(medicationRepository.getReferenceById(1L)).thenReturn(medication);
+
+        List<MedicationIntake> result = medicationIntakeService.createIntakes(1L, requests, "sync-1");
+
+        assertEquals(2, result.size());
+        assertSame(intake, result.getFirst());
+        assertEquals("1:batch:sync-1:1", result.get(1).getIdempotencyKey());
+        verify(medicationIntakeRepository).saveAll(List.of(result.get(1)));
+    }
+
+    @Test
+    void testCreateIntakesDoesNotReplaySingleIntakeWithDerivedKey() {
+        recentIdempotencyKeys.put("1:create:sync-2:0", intake);
+        List<CreateMedicationIntakeRequest> requests = List.of(new CreateMedicationIntakeRequest(1L, "TAKEN", null));
+        when(medicationRepository.findIdsByUserIdAndIdIn(1L, Set.of(1L))).thenReturn(List.of(1L));
+        when(medicationRepository.getReferenceById(1L)).thenReturn(medication);
+
+        List<MedicationIntake> result = medicationIntakeService.createIntakes(1L, requests, "sync-2");
+
+        assertNotSame(intake, result.getFirst());
+        assertEquals("1:batch:sync-2:0", result.getFirst().getIdempotencyKey());
+        verify(medicationIntakeRepository).findByIdempotencyKeyIn(List.of("1:batch:sync-2:0"));
+    }
+
+    @Test
+    void testCreateIntakesRejectsReplayWithOtherPayload() {
+        intake.setIdempotencyKey("1:batch:sync-3:0");
+        List<CreateMedicationIntakeRequest> requests = List.of(new CreateMedicationIntakeRequest(1L, "SKIPPED", null));
+        when(medicationRepository.findIdsByUserIdAndIdIn(1L, Set.of(1L))).thenReturn(List.of(1L));
+        when(medicationIntakeRepository.findByIdempotencyKeyIn(List.of("1:batch:sync-3:0")))
+                .thenReturn(List.of(intake));
+
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> medicationIntakeService.createIntakes(1L, requests, "sync-3"));
+        verify(medicationIntakeRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void testCreateIntakesValidatesOwnershipOnce() {
+        LocalDateTime takenAt = LocalDateTime.of(2024, 1, 15, 8, 0);
+        List<CreateMedicationIntakeRequest> requests = List.of(
+                new CreateMedicationIntakeRequest(1L, "TAKEN", takenAt),
+                new CreateMedicationIntakeRequest(1L, "SKIPPED", null));
+        when(medicationRepository.findIdsByUserIdAndIdIn(1L, Set.of(1L))).thenReturn(List.of(1L));
+        when(medicationRepository.getReferenceById(1L)).thenReturn(medication);
+        when(medicationIntakeRepository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<MedicationIntake> result = medicationIntakeService.createIntakes(1L, requests);
+
+        assertEquals(2, result.size());
+        assertEquals(takenAt, result.getFirst().getDateTime());
+        assertEquals(Status.SKIPPED, result.get(1).getStatus());
+        verify(medicationRepository, times(1)).findIdsByUserIdAndIdIn(1L, Set.of(1L));
         verify(medicationIntakeRepository, never()).save(any(MedicationIntake.class));
+        verify(dailyAdherenceService, times(1)).getSchedules(Set.of(1L));
+        verify(dailyAdherenceService).recordIntakes(Map.of(), result);
     }
 
     @Test
-    void testGetAllIntakesForUser() {
-        List<MedicationIntake> intakes = Collections.singletonList(intake);
-        when(medicationIntakeRepository.findByMedicationUserIdOrderByDateTimeDesc(1L)).thenReturn(intakes);
+    void testCreateIntakesResolvesSchedulesOncePerBatch() {
+        DailyAdherenceRepository dailyAdherenceRepository = mock(DailyAdherenceRepository.class);
+        MedicationIntakeService service = new MedicationIntakeService(medicationIntakeRepository,
+                medicationRepository, recentIdempotencyKeys, medicationIntakeMapper, adherenceService,
+                new DailyAdherenceService(dailyAdherenceRepository, medicationIntakeRepository), transactionTemplate);
+        Medication other = new Medication();
+        other.setId(2L);
+        LocalDateTime morning = LocalDateTime.of(2024, 1, 15, 8, 0);
+        List<CreateMedicationIntakeRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            requests.add(new CreateMedicationIntakeRequest(i % 2 == 0 ? 1L : 2L, "TAKEN", morning.plusMinutes(i)));
+        }
+        when(medicationRepository.findIdsByUserIdAndIdIn(1L, Set.of(1L, 2L))).thenReturn(List.of(1L, 2L));
+        when(medicationRepository.getReferenceById(1L)).thenReturn(medication);
+        when(medicationRepository.getReferenceById(2L)).thenReturn(other);
+        when(medicationIntakeRepository.findAdherenceSchedulesByMedicationIdIn(Set.of(1L, 2L))).thenReturn(List.of(
+                new AdherenceScheduleRow(1L, 1L, "Test Medication", morning.toLocalDate(), null, Frequency.DAILY,
+                        LocalTime.of(8, 0)),
+                new AdherenceScheduleRow(1L, 2L, "Other Medication", morning.toLocalDate(), null, Frequency.DAILY,
+                        LocalTime.of(9, 0))));
 
-        List<MedicationIntake> result = medicationIntakeService.getAllIntakesForUser(1L);
+        service.createIntakes(1L, requests);
 
-        assertEquals(1, result.size());
-        assertEquals(intake, result.getFirst());
-        verify(medicationIntakeRepository).findByMedicationUserIdOrderByDateTimeDesc(1L);
+        long queries = Stream.of(medicationRepository, medicationIntakeRepository)
+                .flatMap(repository -> mockingDetails(repository).getInvocations().stream())
+                .filter(invocation -> invocation.getMethod().getName().startsWith("find"))
+                .count();
+        assertEquals(2, queries);
+        verify(medicationIntakeRepository, times(1)).findAdherenceSchedulesByMedicationIdIn(Set.of(1L, 2L));
+        verify(medicationIntakeRepository).saveAll(anyList());
+        verify(dailyAdherenceRepository).addCounts(1L, 1L, morning.toLocalDate(), 20, 0, 1);
+        verify(dailyAdherenceRepository).addCounts(1L, 2L, morning.toLocalDate(), 20, 0, 1);
+        verifyNoMoreInteractions(dailyAdherenceRepository);
     }
 
     @Test
-    void testGetAllIntakesForUserEmpty() {
-        when(medicationIntakeRepository.findByMedicationUserIdOrderByDateTimeDesc(1L)).thenReturn(List.of());
+    void testCreateIntakesRejectsForeignMedication() {
+        List<CreateMedicationIntakeRequest> requests = List.of(
+                new CreateMedicationIntakeRequest(1L, "TAKEN", null),
+                new CreateMedicationIntakeRequest(2L, "TAKEN", null));
+        when(medicationRepository.findIdsByUserIdAndIdIn(1L, Set.of(1L, 2L))).thenReturn(List.of(1L));
 
-        List<MedicationIntake> result = medicationIntakeService.getAllIntakesForUser(1L);
+        assertThrows(com.project.pillpal.exceptions.ResourceNotFoundException.class,
+                () -> medicationIntakeService.createIntakes(1L, requests));
+        verify(medicationIntakeRepository, never()).saveAll(anyList());
+    }
 
-        assertTrue(result.isEmpty());
-        verify(medicationIntakeRepository).findByMedicationUserIdOrderByDateTimeDesc(1L);
+    @Test
+    void testCreateIntakesEmpty() {
+        assertThrows(IllegalArgumentException.class,
+                () -> medicationIntakeService.createIntakes(1L, List.of()));
+        verifyNoInteractions(medicationRepository, medicationIntakeRepository);
     }
 
+    @Test
+    void testGetIntakeHistoryForUserHasMore() {
+        MedicationIntake older = new MedicationIntake();
+        older.setId(2L);
+        older.setDateTime(intake.getDateTime().minusDays(1));
+        older.setStatus(Status.SKIPPED);
+        older.setMedication(medication);
+        MedicationIntakeResponse response = new MedicationIntakeResponse(1L, intake.getDateTime().toString(),
+                "TAKEN", 1L);
+        when(medicationIntakeRepository.findHistoryPageByUserId(eq(1L), any(LocalDateTime.class),
+                any(LocalDateTime.class), eq(0L), eq(PageRequest.ofSize(2))))
+                .thenReturn(Arrays.asList(intake, older));
+        when(medicationIntakeMapper.toResponse(intake)).thenReturn(response);
+
+        IntakeHistoryPageResponse result = medicationIntakeService.getIntakeHistoryForUser(1L, null, null, null,
+                null, 1);
+
+        assertEquals(List.of(response), result.items());
+        assertTrue(result.hasMore());
+        assertEquals(intake.getDateTime().toString(), result.nextBeforeDateTime());
+        assertEquals(1L, result.nextBeforeId());
+    }
+
+    @Test
+    void testGetIntakeHistoryForUserWithCursor() {
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 2, 1, 0, 0);
+        LocalDateTime before = LocalDateTime.of(2024, 1, 15, 8, 0);
+        when(medicationIntakeRepository.findHistoryPageByUserId(1L, from, before, 7L, PageRequest.ofSize(21)))
+                .thenReturn(Collections.emptyList());
+
+        IntakeHistoryPageResponse result = medicationIntakeService.getIntakeHistoryForUser(1L, from, to, before,
+                7L, null);
+
+        assertTrue(result.items().isEmpty());
+        assertFalse(result.hasMore());
+        assertNull(result.nextBeforeId());
+    }
+
+    @Test
+    void testGetIntakeHistoryForUserRejectsPartialCursor() {
+        assertThrows(IllegalArgumentException.class, () -> medicationIntakeService.getIntakeHistoryForUser(1L, null,
+                null, LocalDateTime.now(), null, null));
+        verifyNoInteractions(medicationIntakeRepository);
+    }
+
+    @Test
+    void testGetIntakesByMedicationIdsAndDateRangeGroupsByMedication() {
+        Medication otherMedication = new Medication();
+        otherMedication.setId(2L);
+
+        MedicationIntake otherIntake = new MedicationIntake();
+        otherIntake.setId(2L);
+        otherIntake.setDateTime(LocalDateTime.now());
+        otherIntake.setStatus(Status.SKIPPED);
+        otherIntake.setMedication(otherMedication);
+
+        LocalDateTime start = LocalDateTime.now().minusDays(1);
+        LocalDateTime end = LocalDateTime.now();
+        when(medicationIntakeRepository.findByMedicationIdInAndDateTimeBetween(List.of(1L, 2L), start, end))
+                .thenReturn(List.of(intake, otherIntake));
+
+        Map<Long, List<MedicationIntake>> result = medicationIntakeService
+                .getIntakesByMedicationIdsAndDateRange(List.of(1L, 2L), start, end);
+
+        assertEquals(2, result.size());
+        assertEquals(List.of(intake), result.get(1L));
+        assertEquals(List.of(otherIntake), result.get(2L));
+        verify(medicationIntakeRepository).findByMedicationIdInAndDateTimeBetween(List.of(1L, 2L), start, end);
+    }
+
+    @Test
+    void testGetIntakesByMedicationIdsAndDateRangeEmptyIds() {
+        Map<Long, List<MedicationIntake>> result = medicationIntakeService
+                .getIntakesByMedicationIdsAndDateRange(List.of(), LocalDateTime.now(), LocalDateTime.now());
+
+        assertTrue(result.isEmpty());
+        verifyNoInteractions(medicationIntakeRepository);
+    }
 }
@@ -0,0 +1,90 @@
+package com.project.pillpal.reminder.repository;
+
+import com.project.pillpal.medication.entity.Medication;
+import com.project.pillpal.medication.repository.MedicationRepository;
+import com.project.pillpal.reminder.entity.Frequency;
+import com.project.pillpal.reminder.entity.Reminder;
+import com.project.pillpal.user.entity.Role;
+import com.project.pillpal.user.entity.User;
+import com.project.pillpal.user.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("test")
+class ReminderRepositoryTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    @Autowired
+    private ReminderRepository reminderRepository;
+
+    @Autowired
+    private MedicationRepository medicationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Medication medication;
+
+    @BeforeEach
+    void setUp() {
+        User user = new User();
+        user.setUsername("reminder-repo-user");
+        user.setEmail("reminder-repo-user@example.com");
+        user.setPassword("password123");
+        user.setRole(Role.ROLE_USER);
+
+        medication = new Medication();
+        medication.setName("Aspirin");
+        medication.setDosage("100mg");
+        medication.setStartDate(LocalDate.of(2024, 1, 1));
+        medication.setUser(userRepository.save(user));
+        medication = medicationRepository.save(medication);
+    }
+
+    @Test
+    void testLockDueReminderIdsReturnsEnabledDueRemindersOldestFirst() {
+        Reminder late = reminder(NOW.minusMinutes(1), true);
+        Reminder oldest = reminder(NOW.minusHours(1), true);
+        Reminder exact = reminder(NOW, true);
+        reminder(NOW.minusHours(2), false);
+        reminder(NOW.plusMinutes(1), true);
+        reminder(null, true);
+
+        List<Long> ids = reminderRepository.lockDueReminderIds(NOW, 10);
+
+        assertEquals(List.of(oldest.getId(), late.getId(), exact.getId()), ids);
+    }
+
+    @Test
+    void testLockDueReminderIdsHonoursLimit() {
+        Reminder oldest = reminder(NOW.minusHours(2), true);
+        Reminder older = reminder(NOW.minusHours(1), true);
+        reminder(NOW.minusMinutes(1), true);
+
+        assertEquals(List.of(oldest.getId(), older.getId()), reminderRepository.lockDueReminderIds(NOW, 2));
+    }
+
+    private Reminder reminder(LocalDateTime nextFireAt, boolean enabled) {
+        Reminder reminder = new Reminder();
+        reminder.setTime(LocalTime.of(8, 0));
+        reminder.setFrequency(Frequency.DAILY);
+        reminder.setEnabled(enabled);
+        reminder.setNextFireAt(nextFireAt);
+        reminder.setMedication(medication);
+        return reminderRepository.saveAndFlush(reminder);
+    }
+}
@@ -0,0 +1,25 @@
+package com.project.pillpal.reminder.service;
+
+import com.project.pillpal.reminder.dto.ReminderNotification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class InMemoryReminderNotificationSink implements ReminderNotificationSink {
+
+    private final List<ReminderNotification> notifications = new ArrayList<>();
+
+    @Override
+    public String name() {
+        return "in-memory";
+    }
+
+    @Override
+    public synchronized void send(ReminderNotification notification) {
+        notifications.add(notification);
+    }
+
+    synchronized List<ReminderNotification> notifications() {
+        return List.copyOf(notifications);
+    }
+}
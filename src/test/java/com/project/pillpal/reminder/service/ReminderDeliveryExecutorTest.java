@@ -0,0 +1,168 @@
+package com.project.pillpal.reminder.service;
+
+import com.project.pillpal.reminder.dto.ReminderNotification;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReminderDeliveryExecutorTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ReminderDeliveryExecutor executor;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testSubmitDeliversConcurrentlyWithinSinkLimit() throws InterruptedException {
+        SlowSink sink = new SlowSink("push", 20);
+        executor = new ReminderDeliveryExecutor(List.of(sink), meterRegistry, 50, 5000, 3, 1);
+
+        long start = System.nanoTime();
+        for (long i = 0; i < 2000; i++) {
+            executor.submit(notification(i));
+        }
+
+        assertTrue(executor.awaitIdle(Duration.ofSeconds(20)));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertEquals(2000, sink.sent.get());
+        assertTrue(sink.maxInFlight.get() <= 50, "in-flight deliveries exceeded the sink limit");
+        assertTrue(elapsedMs < 2000 * 20 / 4, "deliveries ran close to serially: " + elapsedMs + "ms");
+        assertEquals(2000, counter("push", "delivered"));
+    }
+
+    @Test
+    void testSubmitRetriesTransientFailures() throws InterruptedException {
+        AtomicInteger attempts = new AtomicInteger();
+        ReminderNotificationSink flaky = sink("webhook", notification -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new IllegalStateException("503 from webhook");
+            }
+        });
+        executor = new ReminderDeliveryExecutor(List.of(flaky), meterRegistry, 4, 10, 3, 1);
+
+        executor.submit(notification(1L));
+
+        assertTrue(executor.awaitIdle(Duration.ofSeconds(5)));
+        assertEquals(3, attempts.get());
+        assertEquals(1, counter("webhook", "delivered"));
+        assertEquals(2, counter("webhook", "retried"));
+    }
+
+    @Test
+    void testSubmitGivesUpAfterMaxAttempts() throws InterruptedException {
+        ReminderNotificationSink broken = sink("email", notification -> {
+            throw new IllegalStateException("smtp down");
+        });
+        executor = new ReminderDeliveryExecutor(List.of(broken), meterRegistry, 4, 10, 2, 1);
+
+        executor.submit(notification(1L));
+
+        assertTrue(executor.awaitIdle(Duration.ofSeconds(5)));
+        assertEquals(1, counter("email", "failed"));
+        assertEquals(0, counter("email", "delivered"));
+    }
+
+    @Test
+    void testSubmitRejectsWhenSinkQueueIsFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        ReminderNotificationSink blocked = sink("push", notification -> {
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        InMemoryReminderNotificationSink inMemory = new InMemoryReminderNotificationSink();
+        executor = new ReminderDeliveryExecutor(List.of(blocked, inMemory), meterRegistry, 1, 2, 1, 1);
+
+        for (long i = 0; i < 3; i++) {
+            executor.submit(notification(i));
+        }
+
+        assertEquals(1, counter("push", "rejected"));
+        assertEquals(2, executor.queued("push"));
+        release.countDown();
+        assertTrue(executor.awaitIdle(Duration.ofSeconds(5)));
+        assertEquals(3, inMemory.notifications().size());
+    }
+
+    @Test
+    void testRejectsSinksWithDuplicateNames() {
+        List<ReminderNotificationSink> sinks = List.of(sink("push", notification -> {
+        }), sink("push", notification -> {
+        }));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class,
+                () -> new ReminderDeliveryExecutor(sinks, meterRegistry, 1, 2, 1, 1));
+        assertTrue(ex.getMessage().contains("push"));
+    }
+
+    private double counter(String sink, String outcome) {
+        return meterRegistry.get("reminders.delivery").tag("sink", sink).tag("outcome", outcome).counter().count();
+    }
+
+    private static ReminderNotification notification(long reminderId) {
+        return new ReminderNotification(reminderId, 10L, "Aspirin", 7L, LocalDateTime.of(2024, 1, 1, 8, 0));
+    }
+
+    private static ReminderNotificationSink sink(String name, Consumer<ReminderNotification> send) {
+        return new ReminderNotificationSink() {
+            @Override
+            public String name() {
+                return name;
+            }
+
+            @Override
+            public void send(ReminderNotification notification) {
+                send.accept(notification);
+            }
+        };
+    }
+
+    private static final class SlowSink implements ReminderNotificationSink {
+        private final String name;
+        private final long latencyMs;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private final AtomicInteger sent = new AtomicInteger();
+
+        private SlowSink(String name, long latencyMs) {
+            this.name = name;
+            this.latencyMs = latencyMs;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public void send(ReminderNotification notification) {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+                sent.incrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.project.pillpal.reminder.service;
+
+import com.project.pillpal.medication.entity.Medication;
+import com.project.pillpal.reminder.dto.ReminderNotification;
+import com.project.pillpal.reminder.entity.Frequency;
+import com.project.pillpal.reminder.entity.Reminder;
+import com.project.pillpal.reminder.repository.ReminderRepository;
+import com.project.pillpal.user.entity.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReminderSchedulerTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2024, 1, 1);
+
+    @Mock
+    private ReminderRepository reminderRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private ReminderDeliveryExecutor reminderDeliveryExecutor;
+
+    private ReminderScheduler reminderScheduler;
+
+    @BeforeEach
+    void setUp() {
+        reminderScheduler = scheduler(100);
+    }
+
+    @Test
+    void testDispatchDueNotifiesAndReschedulesClaimedReminders() {
+        Reminder reminder = reminder(1L, true);
+        reminder.setNextFireAt(MONDAY.atTime(8, 0));
+        LocalDateTime now = MONDAY.atTime(8, 0, 30);
+        when(reminderRepository.lockDueReminderIds(now, 100)).thenReturn(List.of(1L));
+        when(reminderRepository.findAllById(List.of(1L))).thenReturn(List.of(reminder));
+
+        assertEquals(1, reminderScheduler.dispatchDue(now));
+
+        ArgumentCaptor<ReminderNotification> captor = ArgumentCaptor.forClass(ReminderNotification.class);
+        verify(reminderDeliveryExecutor).submit(captor.capture());
+        ReminderNotification notification = captor.getValue();
+        assertEquals(MONDAY.atTime(8, 0), notification.scheduledAt());
+        assertEquals("Aspirin", notification.medicationName());
+        assertEquals(7L, notification.userId());
+        assertEquals(MONDAY.plusDays(1).atTime(8, 0), reminder.getNextFireAt());
+    }
+
+    @Test
+    void testDispatchDueSkipsInactiveMedication() {
+        Reminder reminder = reminder(1L, false);
+        reminder.setNextFireAt(MONDAY.atTime(8, 0));
+        when(reminderRepository.lockDueReminderIds(any(), anyInt())).thenReturn(List.of(1L));
+        when(reminderRepository.findAllById(List.of(1L))).thenReturn(List.of(reminder));
+
+        assertEquals(0, reminderScheduler.dispatchDue(MONDAY.atTime(9, 0)));
+
+        verifyNoInteractions(reminderDeliveryExecutor);
+        assertNull(reminder.getNextFireAt());
+    }
+
+    @Test
+    void testDispatchDueClaimsBatchesUntilDrained() {
+        ReminderScheduler scheduler = scheduler(1);
+        LocalDateTime now = MONDAY.atTime(8, 0);
+        when(reminderRepository.lockDueReminderIds(now, 1))
+                .thenReturn(List.of(1L), List.of(2L), List.of());
+        when(reminderRepository.findAllById(List.of(1L))).thenReturn(List.of(reminder(1L, true)));
+        when(reminderRepository.findAllById(List.of(2L))).thenReturn(List.of(reminder(2L, true)));
+
+        assertEquals(2, scheduler.dispatchDue(now));
+        verify(reminderRepository, times(3)).lockDueReminderIds(now, 1);
+        verify(reminderDeliveryExecutor, times(2)).submit(any());
+    }
+
+    @Test
+    void testDispatchDueKeepsDrainingAfterBatchOfInactiveMedications() {
+        ReminderScheduler scheduler = scheduler(1);
+        LocalDateTime now = MONDAY.atTime(8, 0);
+        when(reminderRepository.lockDueReminderIds(now, 1))
+                .thenReturn(List.of(1L), List.of(2L), List.of());
+        when(reminderRepository.findAllById(List.of(1L))).thenReturn(List.of(reminder(1L, false)));
+        when(reminderRepository.findAllById(List.of(2L))).thenReturn(List.of(reminder(2L, true)));
+
+        assertEquals(1, scheduler.dispatchDue(now));
+        verify(reminderRepository, times(3)).lockDueReminderIds(now, 1);
+        verify(reminderDeliveryExecutor, times(1)).submit(any());
+    }
+
+    @Test
+    void testScheduleClearsNextFireTimeOfDisabledReminder() {
+        Reminder reminder = reminder(1L, true);
+        reminder.setEnabled(false);
+        reminder.setNextFireAt(MONDAY.atTime(8, 0));
+        when(reminderRepository.findById(1L)).thenReturn(Optional.of(reminder));
+
+        reminderScheduler.schedule(1L);
+
+        assertNull(reminder.getNextFireAt());
+    }
+
+    @Test
+    void testScheduleUnscheduledFillsMissingNextFireTimes() {
+        Reminder reminder = reminder(1L, true);
+        when(reminderRepository.findUnscheduledIdsAfter(eq(0L), any())).thenReturn(List.of(1L));
+        when(reminderRepository.findUnscheduledIdsAfter(eq(1L), any())).thenReturn(List.of());
+        when(reminderRepository.findAllById(List.of(1L))).thenReturn(List.of(reminder));
+
+        reminderScheduler.scheduleUnscheduled();
+
+        assertNotNull(reminder.getNextFireAt());
+    }
+
+    @Test
+    void testNextFireAtForWeeklyReminderUsesStartWeekday() {
+        LocalDateTime wednesday = MONDAY.plusDays(2).atTime(12, 0);
+
+        assertEquals(MONDAY.plusDays(7).atTime(8, 0), ReminderFireTimes.nextFireAt(LocalTime.of(8, 0),
+                Frequency.WEEKLY, MONDAY, null, wednesday));
+        assertEquals(MONDAY.plusDays(3).atTime(8, 0), ReminderFireTimes.nextFireAt(LocalTime.of(8, 0),
+                Frequency.DAILY, MONDAY, null, wednesday));
+    }
+
+    @Test
+    void testScheduledDispatchIsSkippedWhenDisabled() {
+        ReflectionTestUtils.setField(reminderScheduler, "dispatchEnabled", false);
+
+        reminderScheduler.dispatchDue();
+
+        verifyNoInteractions(reminderRepository, reminderDeliveryExecutor);
+    }
+
+    @Test
+    void testNextFireAtRespectsStartAndEndDates() {
+        assertEquals(MONDAY.atTime(8, 0), ReminderFireTimes.nextFireAt(LocalTime.of(8, 0), Frequency.DAILY,
+                MONDAY, null, MONDAY.minusDays(5).atTime(9, 0)));
+        assertNull(ReminderFireTimes.nextFireAt(LocalTime.of(8, 0), Frequency.DAILY, MONDAY, MONDAY,
+                MONDAY.atTime(8, 0)));
+    }
+
+    private ReminderScheduler scheduler(int batchSize) {
+        ReminderScheduler scheduler = new ReminderScheduler(reminderRepository, reminderDeliveryExecutor,
+                new TransactionTemplate(transactionManager));
+        ReflectionTestUtils.setField(scheduler, "dispatchEnabled", true);
+        ReflectionTestUtils.setField(scheduler, "batchSize", batchSize);
+        return scheduler;
+    }
+
+    private static Reminder reminder(Long id, boolean medicationActive) {
+        User user = new User();
+        user.setId(7L);
+
+        Medication medication = new Medication();
+        medication.setId(10L);
+        medication.setName("Aspirin");
+        medication.setActive(medicationActive);
+        medication.setStartDate(MONDAY);
+        medication.setUser(user);
+
+        Reminder reminder = new Reminder();
+        reminder.setId(id);
+        reminder.setTime(LocalTime.of(8, 0));
+        reminder.setFrequency(Frequency.DAILY);
+        reminder.setEnabled(true);
+        reminder.setMedication(medication);
+        return reminder;
+    }
+}
@@ -11,6 +11,7 @@ import com.project.pillpal.reminder.mapper.ReminderMapperImpl;
 import com.project.pillpal.reminder.repository.ReminderRepository;
 import com.project.pillpal.user.entity.Role;
 import com.project.pillpal.user.entity.User;
+import com.project.pillpal.medicationintake.service.AdherenceService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -41,6 +42,12 @@ class ReminderServiceTest {
     @Mock
     private MedicationRepository medicationRepository;
 
+    @Mock
+    private AdherenceService adherenceService;
+
+    @Mock
+    private ReminderScheduler reminderScheduler;
+
     @InjectMocks
     private ReminderService reminderService;
 
@@ -155,6 +162,7 @@ class ReminderServiceTest {
         assertNotNull(result);
         verify(medicationRepository).findById(1L);
         verify(reminderRepository).save(any(Reminder.class));
+        verify(reminderScheduler).schedule(reminder.getId());
     }
 
     @Test
@@ -195,21 +203,21 @@ class ReminderServiceTest {
 
     @Test
     void testDeleteReminderSuccess() {
-        when(reminderRepository.existsById(1L)).thenReturn(true);
+        when(reminderRepository.findById(1L)).thenReturn(Optional.of(reminder));
 
         reminderService.deleteReminder(1L);
 
-        verify(reminderRepository).existsById(1L);
-        verify(reminderRepository).deleteById(1L);
+        verify(reminderRepository).delete(reminder);
+        verify(adherenceService).invalidateMedication(reminder.getMedication().getId());
     }
 
     @Test
     void testDeleteReminderNotFound() {
-        when(reminderRepository.existsById(999L)).thenReturn(false);
+        when(reminderRepository.findById(999L)).thenReturn(Optional.empty());
 
         assertThrows(com.project.pillpal.exceptions.ResourceNotFoundException.class,
                 () -> reminderService.deleteReminder(999L));
-        verify(reminderRepository).existsById(999L);
-        verify(reminderRepository, never()).deleteById(any(Long.class));
+        verify(reminderRepository, never()).delete(any(Reminder.class));
+        verifyNoInteractions(adherenceService);
     }
 }
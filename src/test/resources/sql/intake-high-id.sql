@@ -0,0 +1,3 @@
+-- A seeded intake far above the sequence's starting value
+INSERT INTO medication_intakes (id, date_time, status, medication_id) VALUES
+(500, '2024-03-01 08:00:00', 'TAKEN', 1);